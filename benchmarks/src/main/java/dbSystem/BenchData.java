@@ -0,0 +1,106 @@
+package dbSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+/**
+ * JMH 벤치마크가 쓰는 합성 데이터와 실행 환경
+ *
+ * 카탈로그 DB 는 MySQL 대신 메모리의 H2 를 쓴다 (-DdbSystem.url 등을 주면 그 값을 쓴다).
+ * DbConst 가 시스템 프로퍼티를 읽기 전에 정해야 하므로, 각 벤치마크의 @Setup 은 엔진보다 이 클래스를 먼저 부른다.
+ */
+final class BenchData {
+
+    static {
+        defaultProperty("dbSystem.url", "jdbc:h2:mem:dbsystem;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        defaultProperty("dbSystem.user", "sa");
+        defaultProperty("dbSystem.password", "");
+        defaultProperty("dbSystem.schema", "public");
+        // 백그라운드 재구성이 측정 도중에 파일을 바꾸지 않게 끈다
+        defaultProperty("dbSystem.reorg.threshold", "0");
+    }
+
+    // key 는 0 ~ KEY_SPACE-1 의 8자리 숫자
+    static final int KEY_SPACE = 100_000_000;
+
+    private static PrintStream console;
+
+    private BenchData() {
+    }
+
+    private static void defaultProperty(String name, String value) {
+        if (System.getProperty(name) == null) {
+            System.setProperty(name, value);
+        }
+    }
+
+    /**
+     * 엔진이 삽입, 검색마다 찍는 콘솔 메시지를 버린다 (측정에 출력 시간이 섞이지 않게)
+     */
+    static synchronized void quiet() {
+        if (console == null) {
+            console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+    }
+
+    static synchronized void restoreConsole() {
+        if (console != null) {
+            System.setOut(console);
+            console = null;
+        }
+    }
+
+    static String key(long value) {
+        return String.format("%08d", value);
+    }
+
+    /**
+     * 적재할 입력 파일 (ID;NAME;DEPT), key 는 0 ~ keys-1 에서 고르므로 keys 가 작을수록 같은 key 가 많다.
+     */
+    static File writeInput(String tableName, int count, int keys, long seed) throws IOException {
+        File input = File.createTempFile(tableName + ".", ".input", new File(".").getAbsoluteFile());
+        input.deleteOnExit();
+        Random random = new Random(seed);
+        try (PrintWriter writer = new PrintWriter(input, KeyComparator.CHARSET)) {
+            for (int i = 0; i < count; i++) {
+                writer.println(key(random.nextInt(keys)) + ";n" + i + ";d" + random.nextInt(50));
+            }
+        }
+        return input;
+    }
+
+    /**
+     * ID(8), NAME(12), DEPT(4) 빈 테이블을 새로 만든다
+     */
+    static void createEmptyTable(String tableName, StorageMode mode) {
+        LinkedHashMap<String, Integer> columns = new LinkedHashMap<>();
+        columns.put("ID", 8);
+        columns.put("NAME", 12);
+        columns.put("DEPT", 4);
+        Main.createSequentialFile(tableName, columns, Main.DEFAULT_PAGE_SIZE, mode);
+    }
+
+    /**
+     * ID(8), NAME(12), DEPT(4) 테이블을 새로 만들고 input 을 대량 적재
+     */
+    static void createTable(String tableName, File input) throws IOException, SQLException {
+        createEmptyTable(tableName, StorageMode.RANDOM_ACCESS);
+        BulkLoader.load(tableName, input.getPath());
+    }
+
+    static void createTable(String tableName, int count, int keys, long seed) throws IOException, SQLException {
+        File input = writeInput(tableName, count, keys, seed);
+        try {
+            createTable(tableName, input);
+        } finally {
+            input.delete();
+        }
+    }
+}
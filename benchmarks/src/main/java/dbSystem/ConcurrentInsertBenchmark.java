@@ -0,0 +1,81 @@
+package dbSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 여러 스레드가 같은 테이블에 정렬 삽입할 때의 처리량 (스레드 수는 -t 로 바꾼다)
+ *
+ * overlap 이 false 면 스레드마다 서로 다른 key 범위(앞 두 자리가 스레드 번호)에 넣으므로 앞 레코드 잠금에서 거의 기다리지 않고,
+ * true 면 모든 스레드가 같은 범위에 번갈아 넣는다.
+ * 끝난 뒤 체인, 헤더, 인덱스가 맞는지는 ConcurrentInsertTest 가 확인한다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConcurrentInsertBenchmark {
+
+    private static final String TABLE = "jmh_concurrent";
+
+    @Param({"false", "true"})
+    public boolean overlap;
+
+    private final AtomicInteger nextThread = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Writer {
+        int thread;
+        int inserted;
+
+        @Setup(Level.Trial)
+        public void setUp(ConcurrentInsertBenchmark benchmark) {
+            thread = benchmark.nextThread.getAndIncrement();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchData.quiet();
+        BenchData.createEmptyTable(TABLE, StorageMode.RANDOM_ACCESS);
+    }
+
+    @Benchmark
+    public Record insert(Writer writer) {
+        int i = writer.inserted++;
+        // 겹치지 않으면 스레드 번호가 앞자리, 겹치면 모든 스레드가 같은 범위에 번갈아 넣는다
+        String key = overlap
+                ? BenchData.key((long) i * 100 + writer.thread)
+                : String.format("%02d%06d", writer.thread, i);
+        return Main.insertRecord(TABLE, key + ";i" + i + ";d" + writer.thread);
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkpoint() throws IOException {
+        WriteAheadLog.checkpoint(TABLE + ".txt");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchData.restoreConsole();
+    }
+}
@@ -0,0 +1,76 @@
+package dbSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * hash join, 조인 컬럼과 메모리 한도별
+ *
+ * ID 는 search key, DEPT 는 search key 가 아닌 컬럼이다 (DEPT 조인은 merge join 으로 할 수 없다).
+ * memoryKb 가 작으면 partition 을 임시 파일로 나눈다. 같은 데이터의 merge join 은 MergeJoinBenchmark 와 비교한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HashJoinBenchmark {
+
+    private static final String LEFT = "jmh_hash_left";
+    private static final String RIGHT = "jmh_hash_right";
+
+    @Param({"20000"})
+    public int leftRows;
+
+    @Param({"100000"})
+    public int rightRows;
+
+    @Param({"ID", "DEPT"})
+    public String column;
+
+    @Param({"64", "16384"})
+    public long memoryKb;
+
+    private HashJoin hashJoin;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        BenchData.quiet();
+        BenchData.createTable(LEFT, leftRows, 10000, 1);
+        BenchData.createTable(RIGHT, rightRows, 10000, 2);
+        hashJoin = new HashJoin(memoryKb * 1024, DbConst.HASH_JOIN_PARTITIONS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchData.restoreConsole();
+    }
+
+    @Benchmark
+    public long hashJoin(Blackhole blackhole) throws IOException, SQLException {
+        try (RangeCursor left = RangeCursor.open(LEFT, column, null, null);
+             RangeCursor right = RangeCursor.open(RIGHT, column, null, null)) {
+            return hashJoin.join(left, right, (l, r) -> {
+                blackhole.consume(l[1]);
+                blackhole.consume(r[1]);
+            });
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package dbSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 블록 버퍼 안의 char(n) key 를 String 으로 디코딩해서 비교할 때와 KeyComparator 로 바로 비교할 때, 비교 한 번당
+ *
+ * 할당량은 -prof gc 로 본다 (gc.alloc.rate.norm 을 KEYS 로 나누면 비교 한 번당 바이트).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class KeyCompareBenchmark {
+
+    private static final int KEYS = 100_000;
+    private static final String BOUND = "500000";
+
+    @Param({"12"})
+    public int size;
+
+    // 공백으로 채운 고정 길이 key 를 이어 붙인 버퍼 (페이지 안의 레코드 필드와 같은 모양)
+    private byte[] block;
+    private byte[] boundBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        block = new byte[KEYS * size];
+        for (int i = 0; i < KEYS; i++) {
+            byte[] value = KeyComparator.encode(Integer.toString(random.nextInt(1000000)));
+            for (int j = 0; j < size; j++) {
+                block[i * size + j] = j < value.length ? value[j] : KeyComparator.PAD;
+            }
+        }
+        boundBytes = KeyComparator.encode(BOUND);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public int decodeAndCompare() {
+        int less = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (new String(block, i * size, size, KeyComparator.CHARSET).trim().compareTo(BOUND) < 0) {
+                less++;
+            }
+        }
+        return less;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public int compareBytes() {
+        int less = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (KeyComparator.compare(block, i * size, size, boundBytes, 0, boundBytes.length) < 0) {
+                less++;
+            }
+        }
+        return less;
+    }
+}
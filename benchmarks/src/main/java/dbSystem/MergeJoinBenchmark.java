@@ -0,0 +1,68 @@
+package dbSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * search key merge join (printJoinResult 가 고르는 방법 중 하나), key 중복 정도별
+ *
+ * 양쪽 모두 rows 개이고 key 종류는 rows / duplicates 개라서, 한 key 에 평균 duplicates 개씩 있고
+ * 결과는 약 rows * duplicates 쌍이다. 같은 key 묶음이 커질수록 묶음을 메모리(JOIN_MEMORY)에 두는 비용이 드러난다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MergeJoinBenchmark {
+
+    private static final String LEFT = "jmh_join_left";
+    private static final String RIGHT = "jmh_join_right";
+
+    @Param({"20000"})
+    public int rows;
+
+    @Param({"1", "10", "100"})
+    public int duplicates;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        BenchData.quiet();
+        int keys = Math.max(1, rows / duplicates);
+        BenchData.createTable(LEFT, rows, keys, 5);
+        BenchData.createTable(RIGHT, rows, keys, 6);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchData.restoreConsole();
+    }
+
+    @Benchmark
+    public long mergeJoin(Blackhole blackhole) throws IOException, SQLException {
+        try (RangeCursor left = RangeCursor.open(LEFT, "ID", null, null);
+             RangeCursor right = RangeCursor.open(RIGHT, "ID", null, null)) {
+            return MergeJoin.join(left, right, (l, r) -> {
+                blackhole.consume(l[1]);
+                blackhole.consume(r[1]);
+            });
+        }
+    }
+}
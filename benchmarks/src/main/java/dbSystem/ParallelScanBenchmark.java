@@ -0,0 +1,70 @@
+package dbSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParallelRangeScan 의 전체 검색, 스레드 수별 (한 스레드로 체인을 따라가는 검색은 ScanBenchmark.fullScan)
+ *
+ * collect : 결과를 key 순서대로 모은다
+ * forEach : 순서 없이 행마다 바로 넘긴다
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParallelScanBenchmark {
+
+    private static final String TABLE = "jmh_parallel_scan";
+
+    @Param({"200000"})
+    public int records;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ParallelRangeScan scan;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        BenchData.quiet();
+        BenchData.createTable(TABLE, records, BenchData.KEY_SPACE, 7);
+        scan = new ParallelRangeScan(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scan.close();
+        BenchData.restoreConsole();
+    }
+
+    @Benchmark
+    public List<Map<String, String>> collect() throws IOException, SQLException {
+        return scan.collect(TABLE, null, null);
+    }
+
+    @Benchmark
+    public long forEach(Blackhole blackhole) throws IOException, SQLException {
+        return scan.forEach(TABLE, null, null, blackhole::consume);
+    }
+}
@@ -0,0 +1,88 @@
+package dbSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 체인을 따라 읽는 검색 (rangeSearchRecord, searchField 가 쓰는 RangeCursor)
+ *
+ * fullScan    : search key 범위 제한 없이 전체, 레코드마다 NAME 을 디코딩
+ * narrowScan  : key 공간의 0.1% 범위 (인덱스로 시작 위치를 찾는다)
+ * fieldSearch : search key 가 아닌 필드 하나만 디코딩하면서 전체
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ScanBenchmark {
+
+    private static final String TABLE = "jmh_scan";
+    private static final int NARROW_WIDTH = BenchData.KEY_SPACE / 1000;
+
+    @Param({"10000", "100000"})
+    public int records;
+
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        BenchData.quiet();
+        BenchData.createTable(TABLE, records, BenchData.KEY_SPACE, 3);
+        random = new Random(4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchData.restoreConsole();
+    }
+
+    @Benchmark
+    public int fullScan(Blackhole blackhole) throws IOException, SQLException {
+        return scan(null, null, blackhole);
+    }
+
+    @Benchmark
+    public int narrowScan(Blackhole blackhole) throws IOException, SQLException {
+        int start = random.nextInt(BenchData.KEY_SPACE - NARROW_WIDTH);
+        return scan(BenchData.key(start), BenchData.key(start + NARROW_WIDTH), blackhole);
+    }
+
+    @Benchmark
+    public int fieldSearch(Blackhole blackhole) throws IOException, SQLException {
+        try (RangeCursor cursor = RangeCursor.open(TABLE, "NAME", null, null, "NAME")) {
+            while (cursor.next()) {
+                blackhole.consume(cursor.row().get("NAME"));
+            }
+            return cursor.getMatchedCount();
+        }
+    }
+
+    private static int scan(String startValue, String endValue, Blackhole blackhole)
+            throws IOException, SQLException {
+        try (RangeCursor cursor = RangeCursor.open(TABLE, "ID", startValue, endValue)) {
+            while (cursor.next()) {
+                blackhole.consume(cursor.row().get(1));
+            }
+            return cursor.getMatchedCount();
+        }
+    }
+}
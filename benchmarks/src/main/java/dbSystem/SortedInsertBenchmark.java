@@ -0,0 +1,73 @@
+package dbSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 정렬 삽입(Main.insertRecord → insertRecordSorted → writeRecordToBlock) 한 건의 시간, 파일 크기별
+ *
+ * 반복(iteration)마다 records 개짜리 테이블을 다시 적재하므로, 각 반복은 같은 크기의 파일에서 시작한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SortedInsertBenchmark {
+
+    private static final String TABLE = "jmh_insert";
+
+    @Param({"1000", "10000", "100000"})
+    public int records;
+
+    private File input;
+    private Random random;
+    private int inserted;
+
+    @Setup(Level.Trial)
+    public void writeInput() throws IOException {
+        BenchData.quiet();
+        input = BenchData.writeInput(TABLE, records, BenchData.KEY_SPACE, 1);
+        random = new Random(2);
+    }
+
+    @Setup(Level.Iteration)
+    public void load() throws IOException, SQLException {
+        BenchData.createTable(TABLE, input);
+    }
+
+    @Benchmark
+    public Record insert() {
+        return Main.insertRecord(TABLE, BenchData.key(random.nextInt(BenchData.KEY_SPACE)) + ";i" + inserted++ + ";d1");
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkpoint() throws IOException {
+        // 로그에 남은 페이지를 다음 반복의 적재 시간으로 넘기지 않는다
+        WriteAheadLog.checkpoint(TABLE + ".txt");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        input.delete();
+        BenchData.restoreConsole();
+    }
+}
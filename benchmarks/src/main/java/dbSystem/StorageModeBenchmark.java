@@ -0,0 +1,85 @@
+package dbSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 저장 방식(RandomAccessFile + 버퍼 풀, 메모리 매핑)별 정렬 삽입 한 건과 전체 범위 검색
+ *
+ * 반복마다 빈 테이블에 records 개를 하나씩 정렬 삽입해서 시작한다 (MAPPED 도 같은 경로로 만들 수 있게 대량 적재는 쓰지 않는다).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StorageModeBenchmark {
+
+    private static final String TABLE = "jmh_storage";
+
+    @Param({"RANDOM_ACCESS", "MAPPED"})
+    public StorageMode mode;
+
+    @Param({"3000"})
+    public int records;
+
+    private Random random;
+    private int inserted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchData.quiet();
+    }
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        BenchData.createEmptyTable(TABLE, mode);
+        random = new Random(42);
+        for (inserted = 0; inserted < records; inserted++) {
+            insert();
+        }
+    }
+
+    @Benchmark
+    public Record insert() {
+        return Main.insertRecord(TABLE, BenchData.key(random.nextInt(BenchData.KEY_SPACE)) + ";i" + inserted++ + ";d1");
+    }
+
+    @Benchmark
+    public int fullScan(Blackhole blackhole) throws IOException, SQLException {
+        try (RangeCursor cursor = RangeCursor.open(TABLE, "ID", null, null)) {
+            while (cursor.next()) {
+                blackhole.consume(cursor.row().get(1));
+            }
+            return cursor.getMatchedCount();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkpoint() throws IOException {
+        WriteAheadLog.checkpoint(TABLE + ".txt");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchData.restoreConsole();
+    }
+}
@@ -0,0 +1,66 @@
+package dbSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WriteAheadLog 의 fsync 방식(PER_OP, BATCHED, NONE)별 정렬 삽입 한 건
+ *
+ * BATCHED 의 간격은 -jvmArgs -DdbSystem.wal.batchMs=..., -DdbSystem.wal.batchOps=... 로 바꾼다.
+ * 반복이 끝날 때 체크포인트하므로 마지막 배치의 fsync 는 측정에 들어가지 않는다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WalBenchmark {
+
+    private static final String TABLE = "jmh_wal";
+
+    @Param({"PER_OP", "BATCHED", "NONE"})
+    public WriteAheadLog.Durability durability;
+
+    private Random random;
+    private int inserted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchData.quiet();
+        WriteAheadLog.setDurability(durability);
+        BenchData.createEmptyTable(TABLE, StorageMode.RANDOM_ACCESS);
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public Record insert() {
+        return Main.insertRecord(TABLE, BenchData.key(random.nextInt(BenchData.KEY_SPACE)) + ";i" + inserted++ + ";d1");
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkpoint() throws IOException {
+        WriteAheadLog.checkpoint(TABLE + ".txt");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        WriteAheadLog.setDurability(DbConst.WAL_DURABILITY);
+        BenchData.restoreConsole();
+    }
+}
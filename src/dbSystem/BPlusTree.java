@@ -0,0 +1,609 @@
+package dbSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * search key(첫 번째 컬럼) → 레코드 rid B+ 트리 인덱스
+ *
+ * 데이터 파일 옆의 별도 파일(테이블 이름.idx)에 저장하며, 페이지 크기는 데이터 파일과 같다.
+ * 같은 키가 여러 번 나올 수 있으므로 항목은 (키, rid) 쌍으로 정렬한다.
+ * 키는 search key 필드 길이의 고정 길이 바이트(공백 패딩)이고 부호 없는 바이트 순으로 비교한다.
+ * null 키는 공백으로 채운 키, 즉 가장 작은 값으로 취급한다.
+ *
+ * 0번 페이지(메타)
+ *   0~3   : 매직 넘버
+ *   4~7   : 루트 페이지 번호
+ *   8~11  : 키 길이
+ *   12~15 : 항목 수
+ *   16~19 : 사용 중인 페이지 수
+ * 노드 페이지
+ *   0     : 종류 (1 리프, 2 내부)
+ *   2~3   : 항목 수
+ *   4~7   : 리프면 다음 리프 페이지 번호 (없으면 0), 내부 노드면 가장 왼쪽 자식
+ *   8~    : 리프는 (키, rid), 내부 노드는 (키, rid, 오른쪽 자식)
+ *
+ * 삭제가 없으므로 분할만 한다. 인덱스 파일이 없으면 포인터 체인을 한 번 훑어서 만든다.
+ *
+ * 같은 인덱스 파일을 여러 스레드가 각자 열어서 쓰므로, 인덱스 파일마다 하나인 읽기/쓰기 잠금으로
+ * 찾기는 같이, 삽입(분할)과 새로 만들기는 혼자 한다. 잠금을 잡을 때마다 메타 페이지에서 루트를 다시 읽는다.
+ */
+public class BPlusTree implements AutoCloseable {
+
+    private static final int MAGIC = 0x53494458; // "SIDX"
+
+    private static final int META_PAGE = 0;
+    private static final int ROOT_POS = 4;
+    private static final int KEY_SIZE_POS = 8;
+    private static final int ENTRY_COUNT_POS = 12;
+    private static final int PAGE_COUNT_POS = 16;
+
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final int NODE_HEADER = 8;
+
+    // 노드 하나에 들어가야 하는 최소 항목 수, 이보다 적으면 인덱스를 쓰지 않는다
+    private static final int MIN_FANOUT = 4;
+
+    private static final ConcurrentMap<String, ReentrantReadWriteLock> LOCKS = new ConcurrentHashMap<>();
+
+    private final BlockFile indexFile;
+    private final int pageSize;
+    private final int keySize;
+    private final int maxLeafEntries;
+    private final int maxInternalEntries;
+    private final ReentrantReadWriteLock lock;
+
+    private int rootPage;
+    private int entryCount;
+    private int pageCount;
+    // 마지막 insert 에서 같은 (키, rid) 항목이 이미 있었는지
+    private boolean duplicate;
+
+    private BPlusTree(BlockFile indexFile, int keySize) {
+        this.indexFile = indexFile;
+        this.pageSize = indexFile.getBlockSize();
+        this.keySize = keySize;
+        this.maxLeafEntries = (pageSize - NODE_HEADER) / (keySize + 4);
+        this.maxInternalEntries = (pageSize - NODE_HEADER) / (keySize + 8);
+        this.lock = LOCKS.computeIfAbsent(indexFile.getFileId(), id -> new ReentrantReadWriteLock());
+    }
+
+    /**
+     * 데이터 파일의 인덱스 열기, 없거나 키 길이가 다르면 포인터 체인으로 새로 만든다.
+     * 슬롯 페이지 이전 형식의 파일이거나 search key 가 너무 길어 노드에 몇 개 들어가지 않으면 null
+     */
+    public static BPlusTree open(BlockFile dataFile, TableSchema schema) throws IOException {
+        int pageSize = dataFile.getBlockSize();
+        int keySize = schema.getFieldSize(0);
+        if (!dataFile.isSlotted() || (pageSize - NODE_HEADER) / (keySize + 8) < MIN_FANOUT) {
+            return null;
+        }
+
+        File file = fileFor(dataFile.getFileId());
+        boolean exists = file.exists() && file.length() > 0;
+
+        BlockFile indexFile = new BlockFile(file.getPath(), "rw", pageSize);
+        BPlusTree tree = new BPlusTree(indexFile, keySize);
+
+        tree.lock.writeLock().lock();
+        try {
+            // 기다리는 동안 다른 스레드가 만들었을 수 있다 (아직 버퍼 풀에만 있어 파일은 비어 있을 수도 있다)
+            exists = exists || file.length() > 0 || BufferPool.getInstance().hasPages(indexFile.getFileId());
+            if (exists) {
+                byte[] meta = indexFile.readBlock((long) META_PAGE * pageSize);
+                if (FileHeader.getInt(meta, 0) == MAGIC && FileHeader.getInt(meta, KEY_SIZE_POS) == keySize) {
+                    tree.refresh();
+                    return tree;
+                }
+            }
+
+            BufferPool.getInstance().invalidate(indexFile.getFileId());
+            tree.rebuild(dataFile, schema);
+            return tree;
+        } finally {
+            tree.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 데이터 파일 경로에 대응하는 인덱스 파일 (f1.txt → f1.idx)
+     */
+    public static File fileFor(String dataFilePath) {
+        return FileUtil.companionFile(dataFilePath, "idx");
+    }
+
+    /**
+     * 데이터 파일을 새로 만들거나 교체했을 때 예전 인덱스 삭제 (다음에 열 때 다시 만든다)
+     */
+    public static void delete(String dataFileName) throws IOException {
+        File file = fileFor(new File(dataFileName).getCanonicalPath());
+        BufferPool.getInstance().invalidate(file.getCanonicalPath());
+        if (file.exists() && !file.delete()) {
+            throw new IOException("인덱스 파일 삭제 실패: " + file);
+        }
+    }
+
+    /**
+     * 필드 값을 인덱스 키로 변환 (null 이면 공백 키)
+     */
+    public byte[] encodeKey(String value) {
+        byte[] key = new byte[keySize];
+        Arrays.fill(key, (byte) ' ');
+        if (value != null) {
+            byte[] bytes = KeyComparator.encode(value);
+            System.arraycopy(bytes, 0, key, 0, Math.min(bytes.length, keySize));
+        }
+        return key;
+    }
+
+    /**
+     * 인덱스 키를 필드 값으로 되돌리기 (뒤의 공백 제거)
+     */
+    public String decodeKey(byte[] key) {
+        return KeyComparator.decode(key, 0, key.length);
+    }
+
+    public int getEntryCount() throws IOException {
+        lock.readLock().lock();
+        try {
+            refresh();
+            return entryCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * [lo, hi] 범위를 대략 parts 조각으로 나눌 경계 키 (오름차순, 중복 없음, lo 초과 hi 이하), lo, hi 가 null 이면 끝까지
+     *
+     * 루트부터 한 단계씩 내려가며 범위에 걸친 노드의 분리 키(fence key)를 모으고, parts - 1 개 이상 모이거나
+     * 리프에 닿으면 그 단계의 키에서 고르게 뽑는다. 위쪽 단계의 분리 키는 아래 서브트리를 비슷한 크기로 나누므로
+     * 범위가 넓으면 노드 몇 개만 읽고 끝난다.
+     */
+    public List<byte[]> splitKeys(byte[] lo, byte[] hi, int parts) throws IOException {
+        lock.readLock().lock();
+        try {
+            refresh();
+            return splitKeys(Collections.singletonList(rootPage), lo, hi, parts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<byte[]> splitKeys(List<Integer> level, byte[] lo, byte[] hi, int parts) throws IOException {
+        while (true) {
+            List<byte[]> keys = new ArrayList<>();
+            List<Integer> children = new ArrayList<>();
+            boolean leaf = false;
+
+            for (int page : level) {
+                Node node = readNode(page);
+                leaf = node.type == LEAF;
+                for (int i = 0; i < node.count; i++) {
+                    if ((lo == null || Arrays.compareUnsigned(node.keys[i], lo) > 0)
+                            && (hi == null || Arrays.compareUnsigned(node.keys[i], hi) <= 0)
+                            && (keys.isEmpty() || !Arrays.equals(keys.get(keys.size() - 1), node.keys[i]))) {
+                        keys.add(node.keys[i]);
+                    }
+                }
+                if (!leaf) {
+                    // i번째 자식은 keys[i-1] 이상 keys[i] 이하의 키를 가질 수 있다 (같은 키는 rid 로 나뉜다)
+                    for (int c = 0; c <= node.count; c++) {
+                        if ((lo == null || c == node.count || Arrays.compareUnsigned(node.keys[c], lo) >= 0)
+                                && (hi == null || c == 0 || Arrays.compareUnsigned(node.keys[c - 1], hi) <= 0)) {
+                            children.add(node.children[c]);
+                        }
+                    }
+                }
+            }
+
+            if (keys.size() >= parts - 1 || leaf || children.isEmpty()) {
+                if (keys.size() <= parts - 1) {
+                    return keys;
+                }
+                List<byte[]> picked = new ArrayList<>();
+                for (int i = 1; i < parts; i++) {
+                    picked.add(keys.get((int) ((long) i * keys.size() / parts)));
+                }
+                return picked;
+            }
+            level = children;
+        }
+    }
+
+    /**
+     * 루트부터 리프까지의 단계 수 (키 하나를 찾을 때 읽는 인덱스 페이지 수)
+     */
+    public int getHeight() throws IOException {
+        lock.readLock().lock();
+        try {
+            refresh();
+            int height = 1;
+            Node node = readNode(rootPage);
+            while (node.type == INTERNAL) {
+                node = readNode(node.children[0]);
+                height++;
+            }
+            return height;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 키가 key 보다 작은 항목 중 가장 큰 항목의 레코드 rid, 없으면 -1
+     *
+     * 분리 키는 항상 오른쪽 서브트리의 가장 작은 항목이므로, 한 번이라도 가장 왼쪽이 아닌 자식으로
+     * 내려왔다면 도착한 리프에 답이 있다. 같은 키의 레코드는 체인과 인덱스에서 순서가 다를 수 있으므로
+     * 호출하는 쪽은 돌려받은 레코드부터 체인을 따라 나머지 작은 키를 건너뛰어야 한다.
+     */
+    public long findPredecessor(byte[] key) throws IOException {
+        lock.readLock().lock();
+        try {
+            refresh();
+            Node node = readNode(rootPage);
+            while (node.type == INTERNAL) {
+                node = readNode(node.children[childIndex(node, key, -1)]);
+            }
+
+            for (int i = node.count - 1; i >= 0; i--) {
+                if (compare(node.keys[i], -1, key, -1) < 0) {
+                    return node.rids[i];
+                }
+            }
+            return -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * (키, 레코드 rid) 항목 추가
+     */
+    public void insert(byte[] key, long rid) throws IOException {
+        lock.writeLock().lock();
+        try {
+            refresh();
+            duplicate = false;
+            Split split = insert(rootPage, key, (int) rid);
+            if (duplicate) {
+                return;
+            }
+            if (split != null) {
+                // 루트가 나뉘면 높이가 하나 늘어난다
+                Node root = new Node(INTERNAL, allocatePage());
+                root.count = 1;
+                root.children[0] = rootPage;
+                root.keys[0] = split.key;
+                root.rids[0] = split.rid;
+                root.children[1] = split.rightPage;
+                writeNode(root);
+                rootPage = root.page;
+            }
+            entryCount++;
+            writeMeta();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Split insert(int page, byte[] key, int rid) throws IOException {
+        Node node = readNode(page);
+
+        if (node.type == LEAF) {
+            int pos = childIndex(node, key, rid);
+            // 인덱스를 새로 만드는 동안 체인에 들어간 레코드는 만들 때 이미 넣었을 수 있다
+            if (pos > 0 && compare(node.keys[pos - 1], node.rids[pos - 1], key, rid) == 0) {
+                duplicate = true;
+                return null;
+            }
+            node.insertAt(pos, key, rid, 0);
+            if (node.count <= maxLeafEntries) {
+                writeNode(node);
+                return null;
+            }
+
+            Node right = new Node(LEAF, allocatePage());
+            node.moveUpperHalf(right, node.count / 2, false);
+            right.next = node.next;
+            node.next = right.page;
+            writeNode(right);
+            writeNode(node);
+            return new Split(right.keys[0], right.rids[0], right.page);
+        }
+
+        int index = childIndex(node, key, rid);
+        Split split = insert(node.children[index], key, rid);
+        if (split == null) {
+            return null;
+        }
+
+        node.insertAt(index, split.key, split.rid, split.rightPage);
+        if (node.count <= maxInternalEntries) {
+            writeNode(node);
+            return null;
+        }
+
+        // 가운데 분리 키는 부모로 올리고 오른쪽 노드에는 남기지 않는다
+        int mid = node.count / 2;
+        Split promoted = new Split(node.keys[mid], node.rids[mid], 0);
+        Node right = new Node(INTERNAL, allocatePage());
+        node.moveUpperHalf(right, mid, true);
+        writeNode(right);
+        writeNode(node);
+        promoted.rightPage = right.page;
+        return promoted;
+    }
+
+    /**
+     * 포인터 체인을 따라 모든 레코드의 키를 읽고, 정렬한 뒤 리프부터 채워서 트리를 다시 만든다.
+     */
+    public void rebuild(BlockFile dataFile, TableSchema schema) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+
+        int blockSize = dataFile.getBlockSize();
+        long current = dataFile.length() < blockSize ? -1 : dataFile.readInt(FileHeader.FIRST_RECORD_POS);
+        long cachedBlockOffset = -1;
+        byte[] block = null;
+        // 레코드는 슬롯까지 최소 9바이트(비트맵 + 포인터 + 슬롯)이므로 이보다 많이 따라가면 순환 참조
+        long maxRecords = dataFile.length() / (5 + SlottedPage.SLOT_SIZE);
+        dataFile.startPrefetch();
+        while (current != 0 && current != -1) {
+            if (entries.size() > maxRecords) {
+                throw new IOException("레코드 체인에 순환 참조가 있어 인덱스를 만들 수 없습니다.");
+            }
+            // 레코드는 rid 의 페이지 안에 있으므로 블록 하나만 읽으면 된다
+            long blockOffset = SlottedPage.pageOf(current) * blockSize;
+            if (blockOffset != cachedBlockOffset) {
+                block = dataFile.readBlock(blockOffset);
+                cachedBlockOffset = blockOffset;
+            }
+            int inBlock = SlottedPage.recordPosition(block, SlottedPage.slotOf(current));
+            byte nullBitMap = block[inBlock];
+
+            byte[] key = encodeKey(null);
+            if (!TableSchema.isNull(nullBitMap, 0)) {
+                int keyPos = inBlock + schema.fieldOffset(nullBitMap, 0);
+                System.arraycopy(block, keyPos, key, 0, keySize);
+            }
+            entries.add(new Entry(key, (int) current));
+
+            current = FileHeader.getInt(block, inBlock + schema.pointerOffset(nullBitMap));
+        }
+
+        entries.sort((a, b) -> compare(a.key, a.rid, b.key, b.rid));
+        build(entries);
+    }
+
+    private void build(List<Entry> entries) throws IOException {
+        pageCount = 1;
+
+        // 리프 채우기, 마지막 리프가 비지 않게 개수를 나눈다
+        List<Split> level = new ArrayList<>();
+        int leafCount = Math.max(1, (entries.size() + maxLeafEntries - 1) / maxLeafEntries);
+        Node previous = null;
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            int from = (int) ((long) entries.size() * leaf / leafCount);
+            int to = (int) ((long) entries.size() * (leaf + 1) / leafCount);
+
+            Node node = new Node(LEAF, allocatePage());
+            for (int i = from; i < to; i++) {
+                node.insertAt(node.count, entries.get(i).key, entries.get(i).rid, 0);
+            }
+            if (previous != null) {
+                previous.next = node.page;
+                writeNode(previous);
+            }
+            previous = node;
+            level.add(node.count == 0 ? new Split(encodeKey(null), -1, node.page)
+                    : new Split(node.keys[0], node.rids[0], node.page));
+        }
+        writeNode(previous);
+
+        // 위 단계의 첫 항목을 분리 키로 삼아 내부 노드 채우기
+        while (level.size() > 1) {
+            List<Split> upper = new ArrayList<>();
+            int fanout = maxInternalEntries + 1;
+            int nodeCount = (level.size() + fanout - 1) / fanout;
+            for (int n = 0; n < nodeCount; n++) {
+                int from = level.size() * n / nodeCount;
+                int to = level.size() * (n + 1) / nodeCount;
+
+                Node node = new Node(INTERNAL, allocatePage());
+                node.children[0] = level.get(from).rightPage;
+                for (int i = from + 1; i < to; i++) {
+                    Split child = level.get(i);
+                    node.insertAt(node.count, child.key, child.rid, child.rightPage);
+                }
+                writeNode(node);
+                upper.add(new Split(level.get(from).key, level.get(from).rid, node.page));
+            }
+            level = upper;
+        }
+
+        rootPage = level.get(0).rightPage;
+        entryCount = entries.size();
+        writeMeta();
+    }
+
+    /**
+     * 노드에서 (key, rid) 이 들어갈 위치 = (key, rid) 이하인 항목 수
+     */
+    private int childIndex(Node node, byte[] key, int rid) {
+        int low = 0;
+        int high = node.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(node.keys[mid], node.rids[mid], key, rid) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 키는 KeyComparator 순 (공백으로 채운 같은 길이의 키라 부호 없는 바이트 순), 같으면 rid 순
+     * (rid -1 은 같은 키의 모든 항목보다 작다)
+     */
+    private static int compare(byte[] key1, int rid1, byte[] key2, int rid2) {
+        int c = KeyComparator.compare(key1, key2);
+        return c != 0 ? c : Integer.compare(rid1, rid2);
+    }
+
+    /**
+     * 메타 페이지에서 루트, 항목 수, 페이지 수를 다시 읽는다 (다른 핸들이 바꿨을 수 있다, 잠금 안에서)
+     */
+    private void refresh() throws IOException {
+        long meta = (long) META_PAGE * pageSize;
+        rootPage = indexFile.readInt(meta + ROOT_POS);
+        entryCount = indexFile.readInt(meta + ENTRY_COUNT_POS);
+        pageCount = indexFile.readInt(meta + PAGE_COUNT_POS);
+    }
+
+    private int allocatePage() {
+        return pageCount++;
+    }
+
+    private void writeMeta() throws IOException {
+        byte[] meta = new byte[pageSize];
+        FileHeader.putInt(meta, 0, MAGIC);
+        FileHeader.putInt(meta, ROOT_POS, rootPage);
+        FileHeader.putInt(meta, KEY_SIZE_POS, keySize);
+        FileHeader.putInt(meta, ENTRY_COUNT_POS, entryCount);
+        FileHeader.putInt(meta, PAGE_COUNT_POS, pageCount);
+        indexFile.writeBlock((long) META_PAGE * pageSize, meta);
+    }
+
+    private Node readNode(int page) throws IOException {
+        byte[] data = indexFile.readBlock((long) page * pageSize);
+        Node node = new Node(data[0], page);
+        node.count = ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+
+        int pos = NODE_HEADER;
+        if (node.type == LEAF) {
+            node.next = FileHeader.getInt(data, 4);
+        } else {
+            node.children[0] = FileHeader.getInt(data, 4);
+        }
+        for (int i = 0; i < node.count; i++) {
+            node.keys[i] = Arrays.copyOfRange(data, pos, pos + keySize);
+            node.rids[i] = FileHeader.getInt(data, pos + keySize);
+            pos += keySize + 4;
+            if (node.type == INTERNAL) {
+                node.children[i + 1] = FileHeader.getInt(data, pos);
+                pos += 4;
+            }
+        }
+        return node;
+    }
+
+    private void writeNode(Node node) throws IOException {
+        byte[] data = new byte[pageSize];
+        data[0] = node.type;
+        data[2] = (byte) (node.count >> 8);
+        data[3] = (byte) node.count;
+        FileHeader.putInt(data, 4, node.type == LEAF ? node.next : node.children[0]);
+
+        int pos = NODE_HEADER;
+        for (int i = 0; i < node.count; i++) {
+            System.arraycopy(node.keys[i], 0, data, pos, keySize);
+            FileHeader.putInt(data, pos + keySize, node.rids[i]);
+            pos += keySize + 4;
+            if (node.type == INTERNAL) {
+                FileHeader.putInt(data, pos, node.children[i + 1]);
+                pos += 4;
+            }
+        }
+        indexFile.writeBlock((long) node.page * pageSize, data);
+    }
+
+    @Override
+    public void close() throws IOException {
+        indexFile.close();
+    }
+
+    /**
+     * 메모리에 읽어온 노드, 분할 직전의 넘친 상태를 담을 수 있게 한 칸 크게 잡는다.
+     */
+    private class Node {
+        final byte type;
+        final int page;
+        int count;
+        int next;
+        final byte[][] keys;
+        final int[] rids;
+        final int[] children;
+
+        Node(byte type, int page) {
+            this.type = type;
+            this.page = page;
+            int capacity = (type == LEAF ? maxLeafEntries : maxInternalEntries) + 1;
+            this.keys = new byte[capacity][];
+            this.rids = new int[capacity];
+            this.children = new int[capacity + 1];
+        }
+
+        /**
+         * pos 위치에 항목 추가, 내부 노드면 child 는 새 항목의 오른쪽 자식
+         */
+        void insertAt(int pos, byte[] key, int rid, int child) {
+            System.arraycopy(keys, pos, keys, pos + 1, count - pos);
+            System.arraycopy(rids, pos, rids, pos + 1, count - pos);
+            System.arraycopy(children, pos + 1, children, pos + 2, count - pos);
+            keys[pos] = key;
+            rids[pos] = rid;
+            children[pos + 1] = child;
+            count++;
+        }
+
+        /**
+         * from 번째 항목부터 right 로 옮기기
+         * promote 면 from 번째 항목은 부모로 올라가므로 옮기지 않고, 그 오른쪽 자식이 right 의 가장 왼쪽 자식이 된다.
+         */
+        void moveUpperHalf(Node right, int from, boolean promote) {
+            int start = promote ? from + 1 : from;
+            if (promote) {
+                right.children[0] = children[from + 1];
+            }
+            for (int i = start; i < count; i++) {
+                right.insertAt(right.count, keys[i], rids[i], children[i + 1]);
+            }
+            count = from;
+        }
+    }
+
+    private static class Entry {
+        final byte[] key;
+        final int rid;
+
+        Entry(byte[] key, int rid) {
+            this.key = key;
+            this.rid = rid;
+        }
+    }
+
+    /**
+     * 노드가 나뉠 때 부모에 추가할 분리 키와 오른쪽 노드 (bulk 생성 때는 각 노드의 첫 항목)
+     */
+    private static class Split {
+        final byte[] key;
+        final int rid;
+        int rightPage;
+
+        Split(byte[] key, int rid, int rightPage) {
+            this.key = key;
+            this.rid = rid;
+            this.rightPage = rightPage;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package dbSystem;
+
+import java.util.Arrays;
+
+/**
+ * 레코드 바이트(Null 비트맵 + 고정 길이 필드 + 포인터)를 그대로 두고 읽는 행
+ *
+ * 필드 위치는 TableSchema 에 비트맵별로 미리 계산된 오프셋으로 찾고, 값은 필요할 때만 꺼낸다.
+ * getChars, compareField, fieldEquals 는 새 객체를 만들지 않으므로 스캔과 조인의 key 비교에 쓴다.
+ * 비교는 공백으로 채워 저장된 필드 바이트 그대로 KeyComparator 로 하고, 값을 꺼낼 때만 뒤를 채운 공백을 뺀다.
+ *
+ * 감싼 배열을 복사하지 않으므로, 배열 내용이 바뀌면(다음 레코드를 같은 버퍼에 읽으면) 행도 바뀐다.
+ */
+public final class BinaryRow {
+
+    private final TableSchema schema;
+    private final FieldChars[] chars;
+    private byte[] bytes;
+    private byte nullBitMap;
+
+    BinaryRow(TableSchema schema) {
+        this.schema = schema;
+        this.chars = new FieldChars[schema.getColumnCount()];
+    }
+
+    /**
+     * 레코드 바이트로 행 구성 (배열의 앞쪽이 레코드, 뒤에 남는 부분은 무시)
+     */
+    public BinaryRow(TableSchema schema, byte[] recordBytes) {
+        this(schema);
+        wrap(recordBytes);
+    }
+
+    void wrap(byte[] recordBytes) {
+        this.bytes = recordBytes;
+        this.nullBitMap = recordBytes[0];
+    }
+
+    public TableSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * 감싸고 있는 배열 (fieldOffset 은 이 배열 안의 위치)
+     */
+    public byte[] getBuffer() {
+        return bytes;
+    }
+
+    public byte getNullBitMap() {
+        return nullBitMap;
+    }
+
+    /**
+     * 레코드 길이 (포인터 필드 포함)
+     */
+    public int getLength() {
+        return schema.recordLength(nullBitMap);
+    }
+
+    public boolean isNull(int fieldIndex) {
+        return TableSchema.isNull(nullBitMap, fieldIndex);
+    }
+
+    /**
+     * 다음 레코드의 주소 (0 이면 마지막 레코드)
+     */
+    public int getPointer() {
+        return FileHeader.getInt(bytes, schema.pointerOffset(nullBitMap));
+    }
+
+    void setPointer(int pointer) {
+        int pos = schema.pointerOffset(nullBitMap);
+        bytes[pos] = (byte) (pointer >>> 24);
+        bytes[pos + 1] = (byte) (pointer >>> 16);
+        bytes[pos + 2] = (byte) (pointer >>> 8);
+        bytes[pos + 3] = (byte) pointer;
+    }
+
+    /**
+     * 필드가 저장된 위치 (getBuffer 안), null 필드면 -1
+     */
+    public int fieldOffset(int fieldIndex) {
+        return isNull(fieldIndex) ? -1 : schema.fieldOffset(nullBitMap, fieldIndex);
+    }
+
+    /**
+     * 필드의 저장 길이 (뒤를 공백으로 채운 char(n) 의 n), null 필드면 -1
+     */
+    public int fieldLength(int fieldIndex) {
+        return isNull(fieldIndex) ? -1 : schema.getFieldSize(fieldIndex);
+    }
+
+    /**
+     * 필드 값을 새 String 으로 (뒤를 채운 공백 제거), null 이면 null
+     */
+    public String getString(int fieldIndex) {
+        int start = fieldOffset(fieldIndex);
+        return start == -1 ? null : KeyComparator.decode(bytes, start, schema.getFieldSize(fieldIndex));
+    }
+
+    /**
+     * 저장된 필드 바이트의 복사본 (공백 포함), null 이면 null
+     */
+    public byte[] copyField(int fieldIndex) {
+        int start = fieldOffset(fieldIndex);
+        return start == -1 ? null : Arrays.copyOfRange(bytes, start, start + schema.getFieldSize(fieldIndex));
+    }
+
+    /**
+     * 필드 값(뒤를 채운 공백 제거)을 배열에 복사하지 않고 읽는 CharSequence, null 이면 null
+     * 컬럼마다 하나의 객체를 다시 쓰므로 다음 레코드에서 내용이 바뀐다.
+     * ASCII 가 아닌 바이트가 있으면 한 글자씩 읽을 수 없으므로 String 을 만들어 반환한다.
+     */
+    public CharSequence getChars(int fieldIndex) {
+        int start = fieldOffset(fieldIndex);
+        if (start == -1) {
+            return null;
+        }
+        int end = start + KeyComparator.trimmedLength(bytes, start, schema.getFieldSize(fieldIndex));
+        for (int i = start; i < end; i++) {
+            if (bytes[i] < 0) {
+                return new String(bytes, start, end - start, KeyComparator.CHARSET);
+            }
+        }
+        FieldChars view = chars[fieldIndex];
+        if (view == null) {
+            view = new FieldChars();
+            chars[fieldIndex] = view;
+        }
+        view.set(bytes, start, end - start);
+        return view;
+    }
+
+    /**
+     * 저장된 필드 바이트와 key[offset, offset + length) 를 KeyComparator 순서로 비교 (null 필드는 모든 값보다 작다)
+     */
+    public int compareField(int fieldIndex, byte[] key, int offset, int length) {
+        int start = fieldOffset(fieldIndex);
+        if (start == -1) {
+            return -1;
+        }
+        return KeyComparator.compare(bytes, start, schema.getFieldSize(fieldIndex), key, offset, length);
+    }
+
+    public int compareField(int fieldIndex, byte[] key) {
+        return compareField(fieldIndex, key, 0, key.length);
+    }
+
+    /**
+     * 두 행의 필드 비교, null 끼리는 같고 null 은 모든 값보다 작다
+     */
+    public int compareField(int fieldIndex, BinaryRow other, int otherFieldIndex) {
+        int otherStart = other.fieldOffset(otherFieldIndex);
+        if (otherStart == -1) {
+            return isNull(fieldIndex) ? 0 : 1;
+        }
+        return compareField(fieldIndex, other.bytes, otherStart, other.schema.getFieldSize(otherFieldIndex));
+    }
+
+    /**
+     * 필드가 null 이 아니고 key 와 같은지 (뒤의 공백은 무시)
+     */
+    public boolean fieldEquals(int fieldIndex, byte[] key) {
+        return key != null && !isNull(fieldIndex) && compareField(fieldIndex, key) == 0;
+    }
+
+    /**
+     * ASCII 필드 값을 복사하지 않고 보여주는 CharSequence
+     */
+    private static final class FieldChars implements CharSequence {
+        private byte[] bytes;
+        private int start;
+        private int length;
+
+        void set(byte[] bytes, int start, int length) {
+            this.bytes = bytes;
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) bytes[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, start, length, KeyComparator.CHARSET);
+        }
+    }
+}
@@ -0,0 +1,725 @@
+package dbSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 블록 단위로 읽고 쓰는 파일
+ *
+ * RANDOM_ACCESS 방식은 모든 블록 접근이 공용 BufferPool 을 거친다. 실제 디스크 I/O 는
+ * 버퍼 풀이 페이지를 읽어오거나 dirty 페이지를 내보낼 때만 일어난다.
+ * MAPPED 방식은 파일을 매핑한 영역을 직접 읽고 쓰므로 블록 접근에 시스템 콜이 없다.
+ * MAPPED 파일은 실제 파일 크기를 길이로 쓰므로 (MappedRegion 참고) 같은 파일의 여러 핸들이 같은 길이를 본다.
+ * Metrics 에는 블록 접근을 논리 읽기/쓰기로, 버퍼 풀이 디스크를 읽고 쓸 때를 물리 읽기/쓰기로 센다.
+ *
+ * 슬롯 페이지 형식의 RANDOM_ACCESS 데이터 파일은 WriteAheadLog 를 쓴다. beginTransaction ~ commit 사이에
+ * 바꾼 페이지는 고정해 두었다가 commit 에서 로그에 한 번에 쓰고, 데이터 파일에는 로그가 쓰는 시점에 들어간다.
+ *
+ * 핸들 하나는 한 스레드가 쓰고, 여러 스레드는 각자 핸들을 연다. 버퍼 풀 페이지는 프레임의 latch 를 잡고 복사하며,
+ * 트랜잭션은 바꾸는 페이지와 앞 레코드를 LockManager 로 커밋할 때까지 잠근다.
+ * 로그를 쓰지 않는 파일의 트랜잭션은 파일마다 한 번에 하나씩만 진행한다.
+ */
+public class BlockFile implements AutoCloseable {
+
+    private final String fileId;
+    private final RandomAccessFile raf;
+    private final int blockSize;
+    private final boolean readOnly;
+    private final StorageMode storageMode;
+    private final int formatVersion;
+    private final BufferPool pool;
+    private final MappedRegion mapped;
+
+    // 레코드를 쓸 때 처음 열고 파일을 닫을 때 같이 닫는다
+    private FreeSpaceMap freeSpaceMap;
+
+    // search key 인덱스, 처음 쓸 때 열고 파일을 닫을 때 같이 닫는다
+    private BPlusTree index;
+    private boolean indexOpened;
+    // FSM, 인덱스를 여는 동안 잡는다. 여는 중에 다른 잠금을 기다릴 수 있으므로 synchronized 대신
+    // ReentrantLock 을 쓴다 (가상 스레드가 기다리는 동안 캐리어 스레드를 붙잡지 않게)
+    private final ReentrantLock openLock = new ReentrantLock();
+
+    // 체인을 따라 읽을 때만 켠다 (startPrefetch)
+    private volatile Prefetcher prefetcher;
+
+    // 로그를 쓰는 데이터 파일이면 그 로그, 트랜잭션 중이면 바꾼 페이지 (블록 번호 → 고정한 프레임)
+    private final WriteAheadLog wal;
+    private Map<Long, BufferPool.Frame> transaction;
+    // 트랜잭션이 잡은 잠금 (커밋하거나 되돌릴 때 푼다)
+    private LockManager locks;
+    private boolean inTransaction;
+    private final List<Long> heldKeys = new ArrayList<>();
+    private final List<Long> heldPages = new ArrayList<>();
+
+    // 버퍼 풀에만 쓰여 있고 아직 디스크에 내려가지 않은 블록까지 포함한 파일 길이 (RANDOM_ACCESS)
+    private long length;
+
+    public BlockFile(String fileName, String mode, int blockSize) throws IOException {
+        this(fileName, mode, blockSize, StorageMode.RANDOM_ACCESS);
+    }
+
+    public BlockFile(String fileName, String mode, int blockSize, StorageMode storageMode) throws IOException {
+        this(fileName, mode, blockSize, storageMode, FileHeader.FORMAT_VERSION, null);
+    }
+
+    private BlockFile(String fileName, String mode, int blockSize, StorageMode storageMode, int formatVersion,
+                      WriteAheadLog wal) throws IOException {
+        File file = new File(fileName);
+        this.fileId = file.getCanonicalPath();
+        this.raf = new RandomAccessFile(file, mode);
+        this.blockSize = blockSize;
+        this.readOnly = "r".equals(mode);
+        this.storageMode = storageMode;
+        this.formatVersion = formatVersion;
+        this.wal = wal;
+        // 로그에만 있고 아직 파일에 쓰지 않은 블록까지
+        this.length = Math.max(raf.length(), wal == null ? 0 : wal.getLogicalLength());
+
+        if (storageMode == StorageMode.MAPPED) {
+            // chunk 는 블록 크기의 배수여야 블록이 chunk 경계에 걸치지 않는다
+            int chunkSize = Math.max(blockSize, DbConst.MMAP_CHUNK_SIZE / blockSize * blockSize);
+            this.mapped = new MappedRegion(raf.getChannel(), readOnly, chunkSize,
+                    LockManager.of(fileId).extendLock());
+            this.pool = null;
+        } else {
+            this.mapped = null;
+            this.pool = BufferPool.getInstance();
+        }
+    }
+
+    /**
+     * 헤더에 기록된 페이지 크기, 저장 방식, 형식 버전으로 파일 열기
+     * 슬롯 페이지 이전 형식의 파일은 읽기 전용으로만 열 수 있다.
+     */
+    public static BlockFile open(String fileName, String mode) throws IOException {
+        FileHeader.Probe probe = FileHeader.probe(fileName);
+        if (!probe.isCurrent() && !"r".equals(mode)) {
+            throw new IOException("예전 형식(버전 " + probe.formatVersion + ")의 파일은 읽기만 가능합니다. "
+                    + "파일 업그레이드 후 사용하세요: " + fileName);
+        }
+        WriteAheadLog wal = probe.isCurrent() && probe.storageMode == StorageMode.RANDOM_ACCESS
+                ? WriteAheadLog.of(new File(fileName).getCanonicalPath())
+                : null;
+        return new BlockFile(fileName, mode, probe.pageSize, probe.storageMode, probe.formatVersion, wal);
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    /**
+     * 데이터 블록이 SlottedPage 이고 레코드 포인터가 rid 인지 (아니면 파일 오프셋)
+     */
+    public boolean isSlotted() {
+        return formatVersion >= FileHeader.FORMAT_VERSION;
+    }
+
+    public long length() throws IOException {
+        if (mapped != null) {
+            return mapped.size();
+        }
+        synchronized (this) {
+            return length;
+        }
+    }
+
+    /**
+     * 블록 읽기 (버퍼 풀 페이지나 매핑 영역의 복사본)
+     */
+    public byte[] readBlock(long blockOffset) throws IOException {
+        Metrics.increment(Metrics.Counter.BLOCK_READS);
+        if (mapped != null) {
+            byte[] blockData = new byte[blockSize];
+            mapped.read(blockOffset, blockData, 0, blockSize);
+            return blockData;
+        }
+
+        Prefetcher p = prefetcher;
+        if (p != null) {
+            p.access(blockOffset / blockSize);
+        }
+
+        BufferPool.Frame frame = pool.pin(this, blockOffset / blockSize);
+        frame.getLatch().readLock().lock();
+        try {
+            return frame.getData().clone();
+        } finally {
+            frame.getLatch().readLock().unlock();
+            pool.unpin(frame, false);
+        }
+    }
+
+    /**
+     * 슬롯 페이지의 레코드 하나를 buffer 앞쪽에 복사 (블록 전체를 복사하지 않는다)
+     * buffer 가 null 이거나 작으면 새 배열을 만들어 반환한다.
+     */
+    public byte[] readSlot(long rid, byte[] buffer) throws IOException {
+        long blockOffset = SlottedPage.pageOf(rid) * blockSize;
+        int slot = SlottedPage.slotOf(rid);
+        if (mapped != null) {
+            return copySlot(readBlock(blockOffset), slot, buffer);
+        }
+        Metrics.increment(Metrics.Counter.BLOCK_READS);
+
+        Prefetcher p = prefetcher;
+        if (p != null) {
+            p.access(blockOffset / blockSize);
+        }
+
+        BufferPool.Frame frame = pool.pin(this, blockOffset / blockSize);
+        frame.getLatch().readLock().lock();
+        try {
+            return copySlot(frame.getData(), slot, buffer);
+        } finally {
+            frame.getLatch().readLock().unlock();
+            pool.unpin(frame, false);
+        }
+    }
+
+    private static byte[] copySlot(byte[] block, int slot, byte[] buffer) {
+        int position = SlottedPage.recordPosition(block, slot);
+        int length = SlottedPage.recordLength(block, slot);
+        if (buffer == null || buffer.length < length) {
+            buffer = new byte[length];
+        }
+        System.arraycopy(block, position, buffer, 0, length);
+        return buffer;
+    }
+
+    /**
+     * 블록 쓰기, 여러 블록 크기의 데이터면 연속된 블록에 나눠 쓴다.
+     */
+    public void writeBlock(long blockOffset, byte[] blockData) throws IOException {
+        checkWritable();
+        Metrics.add(Metrics.Counter.BLOCK_WRITES, (blockData.length + blockSize - 1) / blockSize);
+
+        if (mapped != null) {
+            mapped.write(blockOffset, blockData, 0, blockData.length);
+        } else {
+            for (int pos = 0; pos < blockData.length; pos += blockSize) {
+                track((blockOffset + pos) / blockSize);
+                BufferPool.Frame frame = pool.pin(this, (blockOffset + pos) / blockSize);
+                frame.getLatch().writeLock().lock();
+                try {
+                    System.arraycopy(blockData, pos, frame.getData(), 0, Math.min(blockSize, blockData.length - pos));
+                } finally {
+                    frame.getLatch().writeLock().unlock();
+                    pool.unpinDirty(frame, this);
+                }
+            }
+        }
+
+        synchronized (this) {
+            length = Math.max(length, blockOffset + blockData.length);
+        }
+    }
+
+    /**
+     * 파일 내 위치의 1바이트 읽기
+     */
+    public byte readByte(long pos) throws IOException {
+        Metrics.increment(Metrics.Counter.BLOCK_READS);
+        if (mapped != null) {
+            return mapped.getByte(pos);
+        }
+
+        BufferPool.Frame frame = pool.pin(this, pos / blockSize);
+        frame.getLatch().readLock().lock();
+        try {
+            return frame.getData()[(int) (pos % blockSize)];
+        } finally {
+            frame.getLatch().readLock().unlock();
+            pool.unpin(frame, false);
+        }
+    }
+
+    /**
+     * 파일 내 위치의 int 값 읽기, 블록 경계를 넘어도 된다.
+     */
+    public int readInt(long pos) throws IOException {
+        if (mapped != null) {
+            Metrics.increment(Metrics.Counter.BLOCK_READS);
+            return mapped.getInt(pos);
+        }
+
+        int offsetInBlock = (int) (pos % blockSize);
+        if (offsetInBlock + 4 > blockSize) {
+            byte[] bytes = new byte[4];
+            for (int i = 0; i < 4; i++) {
+                bytes[i] = readByte(pos + i);
+            }
+            return FileHeader.getInt(bytes, 0);
+        }
+        Metrics.increment(Metrics.Counter.BLOCK_READS);
+
+        BufferPool.Frame frame = pool.pin(this, pos / blockSize);
+        frame.getLatch().readLock().lock();
+        try {
+            return FileHeader.getInt(frame.getData(), offsetInBlock);
+        } finally {
+            frame.getLatch().readLock().unlock();
+            pool.unpin(frame, false);
+        }
+    }
+
+    /**
+     * 파일 내 위치에 int 값 쓰기, 블록 경계를 넘어도 된다.
+     */
+    public void writeInt(long pos, int value) throws IOException {
+        checkWritable();
+        Metrics.increment(Metrics.Counter.BLOCK_WRITES);
+
+        if (mapped != null) {
+            mapped.putInt(pos, value);
+        } else {
+            int offsetInBlock = (int) (pos % blockSize);
+            if (offsetInBlock + 4 > blockSize) {
+                byte[] bytes = new byte[4];
+                FileHeader.putInt(bytes, 0, value);
+                for (int i = 0; i < 4; i++) {
+                    track((pos + i) / blockSize);
+                    BufferPool.Frame frame = pool.pin(this, (pos + i) / blockSize);
+                    frame.getLatch().writeLock().lock();
+                    try {
+                        frame.getData()[(int) ((pos + i) % blockSize)] = bytes[i];
+                    } finally {
+                        frame.getLatch().writeLock().unlock();
+                        pool.unpinDirty(frame, this);
+                    }
+                }
+            } else {
+                track(pos / blockSize);
+                BufferPool.Frame frame = pool.pin(this, pos / blockSize);
+                frame.getLatch().writeLock().lock();
+                try {
+                    FileHeader.putInt(frame.getData(), offsetInBlock, value);
+                } finally {
+                    frame.getLatch().writeLock().unlock();
+                    pool.unpinDirty(frame, this);
+                }
+            }
+        }
+
+        synchronized (this) {
+            length = Math.max(length, pos + 4);
+        }
+    }
+
+    /**
+     * 트랜잭션 시작, 이후 commit 까지 바꾼 페이지는 디스크에 쓰이지 않고 다른 트랜잭션이 바꿀 수 없다.
+     * 로그를 쓰지 않는 파일(MAPPED)이면 같은 파일의 다른 트랜잭션이 끝날 때까지 기다린다.
+     */
+    public void beginTransaction() throws IOException {
+        checkWritable();
+        if (inTransaction) {
+            throw new IllegalStateException("이미 트랜잭션 중입니다: " + fileId);
+        }
+        locks = LockManager.of(fileId);
+        if (wal != null) {
+            transaction = new LinkedHashMap<>();
+        } else {
+            locks.serialLock().lock();
+        }
+        inTransaction = true;
+    }
+
+    /**
+     * 트랜잭션에서 바꾼 페이지를 로그에 한 번에 쓰고, WAL_DURABILITY 에 따라 fsync 한다.
+     */
+    public void commit() throws IOException {
+        commit(null);
+    }
+
+    /**
+     * beforeLog 를 커밋 구간(파일마다 한 번에 하나) 안에서 실행한 뒤 커밋한다.
+     * 여러 트랜잭션이 같이 바꾸는 헤더(레코드 수, 첫 레코드 포인터)는 여기서 바꾼다.
+     */
+    public void commit(PageAction beforeLog) throws IOException {
+        if (!inTransaction) {
+            if (beforeLog != null) {
+                beforeLog.run();
+            }
+            return;
+        }
+
+        Map<Long, BufferPool.Frame> frames = transaction;
+        if (frames == null) {
+            try {
+                if (beforeLog != null) {
+                    beforeLog.run();
+                }
+            } finally {
+                endTransaction();
+            }
+            return;
+        }
+
+        long lsn = -1;
+        locks.commitLock().lock();
+        try {
+            if (beforeLog != null) {
+                beforeLog.run();
+            }
+            if (!frames.isEmpty()) {
+                long[] blockNos = new long[frames.size()];
+                byte[][] pages = new byte[frames.size()][];
+                int i = 0;
+                for (Map.Entry<Long, BufferPool.Frame> entry : frames.entrySet()) {
+                    BufferPool.Frame frame = entry.getValue();
+                    blockNos[i] = entry.getKey();
+                    frame.getLatch().readLock().lock();
+                    try {
+                        pages[i] = frame.getData().clone();
+                    } finally {
+                        frame.getLatch().readLock().unlock();
+                    }
+                    i++;
+                }
+
+                lsn = wal.append(blockNos, pages);
+                // 페이지는 이제 로그에 있으므로, 데이터 파일에는 버퍼 풀이 아니라 로그가 쓴다
+                for (BufferPool.Frame frame : frames.values()) {
+                    pool.markClean(frame);
+                    pool.unpin(frame, false);
+                }
+                frames.clear();
+            }
+        } catch (IOException | RuntimeException e) {
+            restore(frames);
+            throw e;
+        } finally {
+            locks.commitLock().unlock();
+            endTransaction();
+        }
+
+        // fsync 는 잠금을 모두 푼 뒤에 (기다리는 동안 다른 트랜잭션이 같은 fsync 에 올라탈 수 있다)
+        if (lsn != -1) {
+            wal.commit(lsn);
+        }
+    }
+
+    /**
+     * 트랜잭션에서 바꾼 페이지를 되돌린다 (마지막으로 커밋한 내용으로).
+     */
+    public void rollback() throws IOException {
+        if (!inTransaction) {
+            return;
+        }
+        try {
+            if (transaction != null) {
+                restore(transaction);
+            }
+        } finally {
+            endTransaction();
+        }
+    }
+
+    /**
+     * 앞 레코드(rid, 맨 앞이면 LockManager.HEAD) 잠금, 그 뒤에 레코드를 연결하는 다른 트랜잭션은 커밋까지 기다린다.
+     * 트랜잭션 중이 아니거나 로그를 쓰지 않는 파일이면 아무것도 하지 않는다.
+     */
+    public void lockKey(long rid) {
+        if (transaction != null) {
+            locks.lockKey(rid);
+            heldKeys.add(rid);
+        }
+    }
+
+    public void unlockKey(long rid) {
+        if (transaction != null && heldKeys.remove(Long.valueOf(rid))) {
+            locks.unlockKey(rid);
+        }
+    }
+
+    /**
+     * 블록 잠금, 커밋하거나 unlockPage 할 때까지 다른 트랜잭션은 이 블록을 바꿀 수 없다.
+     */
+    public void lockPage(long blockNo) {
+        if (transaction != null) {
+            locks.lockPage(blockNo);
+            heldPages.add(blockNo);
+        }
+    }
+
+    /**
+     * 다른 트랜잭션이 잠근 블록이면 기다리지 않고 false
+     */
+    public boolean tryLockPage(long blockNo) {
+        if (transaction == null) {
+            return true;
+        }
+        if (!locks.tryLockPage(blockNo)) {
+            return false;
+        }
+        heldPages.add(blockNo);
+        return true;
+    }
+
+    /**
+     * lockPage 한 번을 취소, 이 트랜잭션이 바꾼 블록이면 커밋할 때까지 잠금이 남는다.
+     */
+    public void unlockPage(long blockNo) {
+        if (transaction != null && heldPages.remove(Long.valueOf(blockNo))) {
+            locks.unlockPage(blockNo);
+        }
+    }
+
+    /**
+     * 파일 끝에 새 블록을 잡고 오프셋 반환 (dataStart 이상), 트랜잭션 중이면 다른 트랜잭션과 겹치지 않게 예약하고 잠근다.
+     */
+    public long allocateBlock(long dataStart) throws IOException {
+        if (mapped != null) {
+            // 다른 핸들과 겹치지 않게 파일을 그 블록 끝까지 늘려서 잡는다
+            return mapped.allocate(dataStart, blockSize);
+        }
+        long end = Math.max(dataStart, roundUp(length()));
+        if (transaction == null) {
+            return end;
+        }
+        end = Math.max(end, roundUp(wal.getLogicalLength()));
+        long offset = locks.reserveBlock(end, blockSize);
+        lockPage(offset / blockSize);
+        return offset;
+    }
+
+    private long roundUp(long length) {
+        return (length + blockSize - 1) / blockSize * blockSize;
+    }
+
+    private void restore(Map<Long, BufferPool.Frame> frames) throws IOException {
+        for (Map.Entry<Long, BufferPool.Frame> entry : frames.entrySet()) {
+            BufferPool.Frame frame = entry.getValue();
+            frame.getLatch().writeLock().lock();
+            try {
+                readPhysical(entry.getKey(), frame.getData());
+                pool.markClean(frame);
+            } finally {
+                frame.getLatch().writeLock().unlock();
+                pool.unpin(frame, false);
+            }
+        }
+        frames.clear();
+    }
+
+    private void endTransaction() {
+        if (transaction == null) {
+            locks.serialLock().unlock();
+        }
+        for (int i = heldPages.size() - 1; i >= 0; i--) {
+            locks.unlockPage(heldPages.get(i));
+        }
+        for (int i = heldKeys.size() - 1; i >= 0; i--) {
+            locks.unlockKey(heldKeys.get(i));
+        }
+        heldPages.clear();
+        heldKeys.clear();
+        transaction = null;
+        inTransaction = false;
+    }
+
+    /**
+     * 트랜잭션 중이면 쓰려는 블록을 잠그고 커밋할 때까지 고정해 둔다 (버퍼 풀이 내보내지 못하게).
+     */
+    private void track(long blockNo) throws IOException {
+        if (transaction != null && !transaction.containsKey(blockNo)) {
+            lockPage(blockNo);
+            BufferPool.Frame frame = pool.pin(this, blockNo);
+            pool.markLogged(frame);
+            transaction.put(blockNo, frame);
+        }
+    }
+
+    /**
+     * 커밋 구간 안에서 실행할 작업
+     */
+    public interface PageAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * 이 파일의 free space map, 처음 호출할 때 연다.
+     */
+    public FreeSpaceMap getFreeSpaceMap(long dataStart) throws IOException {
+        checkWritable();
+        openLock.lock();
+        try {
+            if (freeSpaceMap == null) {
+                freeSpaceMap = FreeSpaceMap.open(this, dataStart);
+            }
+            return freeSpaceMap;
+        } finally {
+            openLock.unlock();
+        }
+    }
+
+    /**
+     * 이 파일의 search key 인덱스, 처음 호출할 때 연다. 인덱스를 쓸 수 없는 파일이면 null
+     */
+    public BPlusTree getIndex(TableSchema schema) throws IOException {
+        openLock.lock();
+        try {
+            if (!indexOpened) {
+                index = BPlusTree.open(this, schema);
+                indexOpened = true;
+            }
+            return index;
+        } finally {
+            openLock.unlock();
+        }
+    }
+
+    /**
+     * 순차 접근을 감지해서 앞 블록을 미리 읽도록 설정, 체인을 따라 읽기 전에 호출한다.
+     */
+    public synchronized void startPrefetch() {
+        if (prefetcher == null) {
+            prefetcher = Prefetcher.create(this);
+        }
+    }
+
+    /**
+     * 이 파일의 변경 내용을 디스크에 내보내기
+     */
+    public void flush() throws IOException {
+        if (mapped != null) {
+            mapped.force();
+        } else {
+            pool.flush(this);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            // 커밋하지 않은 트랜잭션은 버린다
+            rollback();
+            if (prefetcher != null) {
+                prefetcher.close();
+            }
+            if (freeSpaceMap != null) {
+                freeSpaceMap.close();
+            }
+            if (index != null) {
+                index.close();
+            }
+            if (!readOnly) {
+                flush();
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void checkWritable() throws IOException {
+        if (readOnly) {
+            throw new IOException("읽기 전용으로 연 파일입니다: " + fileId);
+        }
+    }
+
+    /**
+     * 버퍼 풀에서 페이지를 채울 때 호출, 파일 끝을 넘으면 0으로 채운다.
+     * 위치를 지정해서 읽으므로 여러 스레드가 동시에 불러도 된다 (버퍼 풀은 잠금 밖에서 부른다).
+     */
+    void readPhysical(long blockNo, byte[] data) throws IOException {
+        byte[] logged = wal == null ? null : wal.pendingPage(blockNo);
+        if (logged != null) {
+            System.arraycopy(logged, 0, data, 0, data.length);
+            return;
+        }
+
+        JfrEvents.BlockRead event = new JfrEvents.BlockRead();
+        event.begin();
+        long start = System.nanoTime();
+        FileChannel channel = raf.getChannel();
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long pos = blockNo * blockSize;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, pos + buffer.position());
+            if (n < 0) {
+                break;
+            }
+        }
+        int read = buffer.position();
+        for (int i = read; i < data.length; i++) {
+            data[i] = 0;
+        }
+        Metrics.record(Metrics.Operation.PHYSICAL_READ, start);
+        Metrics.increment(Metrics.Counter.PHYSICAL_READS);
+        Metrics.add(Metrics.Counter.BYTES_READ, read);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = fileId;
+            event.blockNo = blockNo;
+            event.bytes = read;
+            event.commit();
+        }
+    }
+
+    /**
+     * 연속된 블록을 한 번에 읽기 (Prefetcher 가 백그라운드에서 호출), 읽은 바이트 수 반환
+     * 위치를 지정해서 읽으므로 readPhysical 과 동시에 불러도 된다.
+     */
+    int readPhysicalRun(long firstBlock, byte[] data) throws IOException {
+        FileChannel channel = raf.getChannel();
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long pos = firstBlock * blockSize;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, pos + buffer.position());
+            if (n < 0) {
+                break;
+            }
+        }
+        Metrics.add(Metrics.Counter.PHYSICAL_READS, (buffer.position() + blockSize - 1) / blockSize);
+        Metrics.add(Metrics.Counter.BYTES_READ, buffer.position());
+        if (wal != null) {
+            wal.overlay(firstBlock, data, blockSize, buffer.position() / blockSize);
+        }
+        return buffer.position();
+    }
+
+    /**
+     * 버퍼 풀이 dirty 페이지를 내보낼 때 호출, 위치를 지정해서 쓰므로 동시에 불러도 된다.
+     */
+    void writePhysical(long blockNo, byte[] data) throws IOException {
+        JfrEvents.BlockWrite event = new JfrEvents.BlockWrite();
+        event.begin();
+        long start = System.nanoTime();
+        FileChannel channel = raf.getChannel();
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long pos = blockNo * blockSize;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, pos + buffer.position());
+        }
+        Metrics.record(Metrics.Operation.PHYSICAL_WRITE, start);
+        Metrics.increment(Metrics.Counter.PHYSICAL_WRITES);
+        Metrics.add(Metrics.Counter.BYTES_WRITTEN, data.length);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = fileId;
+            event.blockNo = blockNo;
+            event.bytes = data.length;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,699 @@
+package dbSystem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * (파일, 블록 번호) 단위로 블록을 캐싱하는 공용 버퍼 풀
+ *
+ * 사용하는 동안 pin 으로 고정하고 끝나면 unpin 한다. 고정되지 않은 페이지만
+ * CLOCK 알고리즘으로 교체되며, 교체되거나 flush 될 때 dirty 페이지를 파일에 쓴다.
+ *
+ * 페이지 내용은 풀의 잠금 밖에서 읽고 쓰므로, 고정한 뒤 프레임의 latch 를 잡는다 (읽기는 공유, 쓰기는 배타).
+ * latch 는 복사하는 동안만 잡고, 잡은 채로 pin/unpin 하지 않는다.
+ *
+ * 풀의 잠금은 페이지 테이블과 프레임 상태를 바꾸는 동안만 잡고 디스크 I/O 는 그 밖에서 한다.
+ * 읽어 오는 중인 프레임은 읽는 스레드가 latch 를 쓰기로 잡고 있어서, 같은 블록을 찾은 스레드는
+ * 풀이 아니라 그 프레임의 latch 에서 기다린다. 잠금은 모두 ReentrantLock 이라 가상 스레드가 기다려도
+ * 캐리어 스레드를 붙잡지 않는다.
+ */
+public class BufferPool {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // 진행 중인 write-back 이 끝날 때마다 알린다
+    private final Condition written = lock.newCondition();
+
+    private final Frame[] frames;
+    private final Map<PageKey, Frame> pageTable = new HashMap<>();
+    private int clockHand = 0;
+    private int writesInFlight;
+
+    // 통계
+    private long hits;
+    private long misses;
+    private long physicalReads;
+    private long physicalWrites;
+    private long evictions;
+    private long prefetched;
+    private long prefetchHits;
+
+    // 페이지를 디스크에 쓰거나 버릴 때마다 증가, 미리 읽은 내용이 그 사이에 낡았는지 확인하는 데 쓴다
+    private long version;
+
+    public BufferPool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("버퍼 풀 크기는 1 이상이어야 합니다: " + capacity);
+        }
+        this.frames = new Frame[capacity];
+        for (int i = 0; i < capacity; i++) {
+            frames[i] = new Frame();
+        }
+    }
+
+    private static class Holder {
+        static final BufferPool INSTANCE = new BufferPool(DbConst.BUFFER_POOL_PAGES);
+    }
+
+    public static BufferPool getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public int getCapacity() {
+        return frames.length;
+    }
+
+    /**
+     * 블록을 버퍼 풀에 올리고 고정, 사용 후 반드시 unpin 해야 한다.
+     */
+    public Frame pin(BlockFile file, long blockNo) throws IOException {
+        PageKey key = new PageKey(file.getFileId(), file.getBlockSize(), blockNo);
+        while (true) {
+            Frame frame;
+            Frame victim = null;
+            long stamp = 0;
+            boolean loader = false;
+            lock.lock();
+            try {
+                frame = pageTable.get(key);
+                if (frame != null) {
+                    hits++;
+                    if (frame.prefetched) {
+                        prefetchHits++;
+                        frame.prefetched = false;
+                    }
+                    pinFrame(frame, file);
+                    if (!frame.loading) {
+                        return frame;
+                    }
+                } else {
+                    frame = findVictim(true);
+                    if (frame == null) {
+                        if (writesInFlight == 0) {
+                            throw new IllegalStateException(
+                                    "모든 페이지가 고정되어 있어 교체할 수 없습니다 (크기: " + frames.length + ")");
+                        }
+                        written.awaitUninterruptibly();
+                        continue;
+                    }
+                    if (frame.key != null) {
+                        // dirty 희생 프레임, 잠금 밖에서 내보낸 뒤 처음부터 다시 찾는다
+                        victim = frame;
+                        stamp = startWriteBack(victim);
+                    } else {
+                        misses++;
+                        frame.reset(key, file.getBlockSize());
+                        frame.loading = true;
+                        // 고정되지 않은 프레임이라 latch 를 잡은 스레드가 없다
+                        frame.latch.writeLock().lock();
+                        pageTable.put(key, frame);
+                        pinFrame(frame, file);
+                        loader = true;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (victim != null) {
+                writeBack(victim, stamp);
+            } else if (loader) {
+                load(frame, file, blockNo);
+                return frame;
+            } else if (awaitLoaded(frame)) {
+                return frame;
+            }
+        }
+    }
+
+    private void pinFrame(Frame frame, BlockFile file) {
+        // 같은 파일을 새로 열었으면 이후 write-back 은 새 핸들로
+        // dirty 페이지는 그 페이지를 쓴 핸들이 닫힐 때 flush 하므로, 읽기 전용 핸들에게 넘기지 않는다
+        if (!frame.dirty || !file.isReadOnly()) {
+            frame.file = file;
+        }
+        frame.pinCount++;
+        frame.referenced = true;
+    }
+
+    /**
+     * 풀의 잠금 밖에서 블록을 읽어 프레임을 채운다, 읽는 동안 latch 를 쓰기로 잡고 있다.
+     * 읽지 못하면 프레임을 페이지 테이블에서 빼고, 기다리던 스레드는 처음부터 다시 찾는다.
+     */
+    private void load(Frame frame, BlockFile file, long blockNo) throws IOException {
+        boolean loaded = false;
+        try {
+            file.readPhysical(blockNo, frame.data);
+            loaded = true;
+        } finally {
+            lock.lock();
+            try {
+                frame.loading = false;
+                if (loaded) {
+                    physicalReads++;
+                } else {
+                    frame.failed = true;
+                    pageTable.remove(frame.key, frame);
+                    release(frame);
+                }
+            } finally {
+                lock.unlock();
+            }
+            frame.latch.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 다른 스레드가 읽어 오는 중인 프레임을 고정했을 때, 다 읽을 때까지 그 프레임의 latch 에서 기다린다.
+     * 읽기가 실패했으면 고정을 풀고 false
+     */
+    private boolean awaitLoaded(Frame frame) {
+        frame.latch.readLock().lock();
+        frame.latch.readLock().unlock();
+        lock.lock();
+        try {
+            if (!frame.failed) {
+                return true;
+            }
+            release(frame);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 읽기에 실패한 프레임의 고정 해제, 마지막 고정이 풀리면 빈 프레임으로 돌린다.
+     */
+    private void release(Frame frame) {
+        frame.pinCount--;
+        if (frame.pinCount == 0) {
+            frame.clear();
+        }
+    }
+
+    /**
+     * 미리 읽은 연속 블록을 버퍼 풀에 넣기, 이미 올라와 있는 블록은 건너뛴다.
+     * 읽기 시작할 때의 version 과 지금 version 이 다르면 아무것도 넣지 않는다.
+     * 빈 프레임이나 깨끗한 프레임에만 넣는다 (미리 읽기 때문에 dirty 페이지를 내보내지 않는다).
+     */
+    public void preload(BlockFile file, long firstBlock, byte[] data, int blocks, long readVersion) {
+        int blockSize = file.getBlockSize();
+        lock.lock();
+        try {
+            for (int i = 0; i < blocks && readVersion == version; i++) {
+                PageKey key = new PageKey(file.getFileId(), blockSize, firstBlock + i);
+                if (pageTable.containsKey(key)) {
+                    continue;
+                }
+                Frame frame = findVictim(false);
+                if (frame == null) {
+                    return;
+                }
+                frame.reset(key, blockSize);
+                System.arraycopy(data, i * blockSize, frame.data, 0, blockSize);
+                frame.file = file;
+                frame.prefetched = true;
+                pageTable.put(key, frame);
+                prefetched++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getVersion() {
+        lock.lock();
+        try {
+            return version;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 고정 해제, 페이지를 수정했으면 dirty 를 true 로 넘긴다.
+     */
+    public void unpin(Frame frame, boolean dirty) {
+        lock.lock();
+        try {
+            unpinLocked(frame, dirty);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void unpinLocked(Frame frame, boolean dirty) {
+        if (frame.pinCount <= 0) {
+            throw new IllegalStateException("고정되지 않은 페이지를 해제하려고 합니다: " + frame.key);
+        }
+        frame.pinCount--;
+        if (dirty) {
+            frame.dirty = true;
+            frame.modCount++;
+        }
+    }
+
+    /**
+     * 페이지를 수정한 뒤의 고정 해제, 이후 write-back 은 수정한 핸들로 한다 (먼저 닫힌 핸들로 쓰지 않게)
+     */
+    public void unpinDirty(Frame frame, BlockFile writer) {
+        lock.lock();
+        try {
+            unpinLocked(frame, true);
+            frame.file = writer;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 트랜잭션이 바꾸는 페이지로 표시, 커밋하거나 되돌릴 때까지 flush 가 디스크에 쓰지 않는다.
+     */
+    public void markLogged(Frame frame) {
+        lock.lock();
+        try {
+            frame.logged = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 페이지 내용이 다른 곳(WriteAheadLog)에 보관되었거나 디스크 내용으로 되돌렸을 때, 내보내지 않도록 dirty 해제
+     */
+    public void markClean(Frame frame) {
+        lock.lock();
+        try {
+            frame.dirty = false;
+            frame.logged = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 파일의 dirty 페이지를 모두 디스크에 쓰기
+     */
+    public void flush(BlockFile file) throws IOException {
+        flush(file.getFileId(), file);
+    }
+
+    /**
+     * 모든 dirty 페이지를 디스크에 쓰기
+     */
+    public void flushAll() throws IOException {
+        flush(null, null);
+    }
+
+    /**
+     * fileId 의 (null 이면 모든) dirty 페이지를 고정해 두고, 풀의 잠금을 놓은 뒤 하나씩 쓴다.
+     * 다른 스레드가 내보내는 중인 페이지는 다 쓸 때까지 기다린다.
+     * owner 를 닫기 전에 부르므로, 그 사이에 다시 수정되어 owner 로 내보내야 하는 페이지가 남았으면 한 번 더 돈다.
+     */
+    private void flush(String fileId, BlockFile owner) throws IOException {
+        boolean again = true;
+        while (again) {
+            List<Frame> claimed = new ArrayList<>();
+            List<Long> stamps = new ArrayList<>();
+            lock.lock();
+            try {
+                for (Frame frame : frames) {
+                    if (matches(frame, fileId) && frame.dirty && !frame.logged && !frame.writing) {
+                        frame.pinCount++;
+                        claimed.add(frame);
+                        stamps.add(startWriteBack(frame));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // 하나가 실패해도 고정해 둔 나머지는 써서 풀어 준다
+            IOException failure = null;
+            for (int i = 0; i < claimed.size(); i++) {
+                try {
+                    writeBack(claimed.get(i), stamps.get(i));
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+
+            // 자기가 고정한 페이지를 다 쓴 뒤에 기다린다 (flush 끼리 서로의 페이지를 기다리지 않게)
+            again = false;
+            lock.lock();
+            try {
+                for (Frame frame : frames) {
+                    while (frame.writing && matches(frame, fileId)) {
+                        written.awaitUninterruptibly();
+                    }
+                    if (owner != null && matches(frame, fileId) && frame.dirty && !frame.logged
+                            && frame.file == owner) {
+                        again = true;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static boolean matches(Frame frame, String fileId) {
+        return frame.key != null && (fileId == null || frame.key.fileId.equals(fileId));
+    }
+
+    /**
+     * 파일의 페이지가 버퍼 풀에 있는지, 아직 디스크에 쓰지 않은 새 파일을 다른 핸들이 만들고 있는지 볼 때
+     */
+    public boolean hasPages(String fileId) {
+        lock.lock();
+        try {
+            for (Frame frame : frames) {
+                if (frame.key != null && frame.key.fileId.equals(fileId)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 파일을 새로 만들거나 교체했을 때 해당 파일의 페이지를 버린다 (write-back 없음).
+     */
+    public void invalidate(String fileId) {
+        lock.lock();
+        try {
+            version++;
+            for (Frame frame : frames) {
+                if (frame.key != null && frame.key.fileId.equals(fileId)) {
+                    if (frame.pinCount > 0) {
+                        throw new IllegalStateException("고정된 페이지가 있는 파일은 무효화할 수 없습니다: " + frame.key);
+                    }
+                    pageTable.remove(frame.key);
+                    frame.clear();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 교체할 프레임 찾기 (CLOCK), 풀의 잠금을 잡고 부른다.
+     * 빈 프레임이 있으면 바로 쓰고, 없으면 참조 비트가 꺼진 고정되지 않은 프레임을 고른다.
+     * 깨끗한 프레임은 비워서 돌려주고, dirty 프레임은 claimDirty 이면 그대로 고정해서 돌려준다
+     * (호출한 쪽이 잠금 밖에서 내보낸 뒤 다시 찾는다). 고를 프레임이 없으면 null
+     */
+    private Frame findVictim(boolean claimDirty) {
+        // 한 바퀴에서 참조 비트를 끄고, 다음 바퀴에서 희생 프레임을 찾는다
+        for (int i = 0; i < frames.length * 2; i++) {
+            Frame frame = frames[clockHand];
+            clockHand = (clockHand + 1) % frames.length;
+
+            if (frame.pinCount > 0) {
+                continue;
+            }
+            if (frame.key == null) {
+                return frame;
+            }
+            if (frame.referenced) {
+                frame.referenced = false;
+                continue;
+            }
+            if (frame.dirty) {
+                if (!claimDirty || frame.logged || frame.writing) {
+                    continue;
+                }
+                frame.pinCount++;
+                return frame;
+            }
+            pageTable.remove(frame.key, frame);
+            frame.clear();
+            evictions++;
+            return frame;
+        }
+        return null;
+    }
+
+    /**
+     * 고정해 둔 dirty 프레임을 내보내기 시작, 풀의 잠금을 잡고 부른다.
+     * 그때의 수정 횟수를 돌려주고, 쓰는 사이에 다시 수정되지 않았을 때만 dirty 를 해제한다.
+     */
+    private long startWriteBack(Frame frame) {
+        frame.writing = true;
+        writesInFlight++;
+        version++;
+        return frame.modCount;
+    }
+
+    /**
+     * 풀의 잠금 밖에서 dirty 페이지를 디스크에 쓰기, 쓰는 동안 latch 를 읽기로 잡는다.
+     * latch 를 잡은 뒤 보니 트랜잭션이 바꾸는 페이지가 되었으면 쓰지 않는다 (커밋하지 않은 내용이므로).
+     */
+    private void writeBack(Frame frame, long stamp) throws IOException {
+        boolean done = false;
+        frame.latch.readLock().lock();
+        try {
+            BlockFile writer;
+            lock.lock();
+            try {
+                writer = frame.logged ? null : frame.file;
+            } finally {
+                lock.unlock();
+            }
+            if (writer != null) {
+                writer.writePhysical(frame.key.blockNo, frame.data);
+                done = true;
+            }
+        } finally {
+            frame.latch.readLock().unlock();
+            lock.lock();
+            try {
+                frame.writing = false;
+                writesInFlight--;
+                frame.pinCount--;
+                if (done) {
+                    physicalWrites++;
+                    if (frame.modCount == stamp && !frame.logged) {
+                        frame.dirty = false;
+                    }
+                }
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public long getHits() {
+        lock.lock();
+        try {
+            return hits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMisses() {
+        lock.lock();
+        try {
+            return misses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getPhysicalReads() {
+        lock.lock();
+        try {
+            return physicalReads;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getPhysicalWrites() {
+        lock.lock();
+        try {
+            return physicalWrites;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getEvictions() {
+        lock.lock();
+        try {
+            return evictions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getPrefetched() {
+        lock.lock();
+        try {
+            return prefetched;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getPrefetchHits() {
+        lock.lock();
+        try {
+            return prefetchHits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getHitRatio() {
+        lock.lock();
+        try {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void resetStats() {
+        lock.lock();
+        try {
+            hits = 0;
+            misses = 0;
+            physicalReads = 0;
+            physicalWrites = 0;
+            evictions = 0;
+            prefetched = 0;
+            prefetchHits = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return String.format("버퍼 풀: hit %d / miss %d (적중률 %.1f%%), 물리 읽기 %d, 물리 쓰기 %d, 교체 %d, "
+                            + "미리 읽기 %d (사용 %d)",
+                    hits, misses, getHitRatio() * 100, physicalReads, physicalWrites, evictions, prefetched, prefetchHits);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 버퍼 풀의 페이지 하나
+     */
+    public static class Frame {
+        private PageKey key;
+        private BlockFile file;
+        private byte[] data = new byte[0];
+        private int pinCount;
+        private boolean dirty;
+        private boolean referenced;
+        // 미리 읽어 넣은 뒤 아직 한 번도 쓰이지 않은 페이지
+        private boolean prefetched;
+        // 커밋하지 않은 트랜잭션이 바꾼 페이지
+        private boolean logged;
+        // 디스크에서 읽어 오는 중 (읽는 스레드가 latch 를 쓰기로 잡고 있다)
+        private boolean loading;
+        // 읽어 오다 실패, 고정이 모두 풀리면 빈 프레임이 된다
+        private boolean failed;
+        // 잠금 밖에서 디스크에 쓰는 중
+        private boolean writing;
+        // dirty 로 고정 해제된 횟수, 쓰는 사이에 다시 수정되었는지 확인한다
+        private long modCount;
+        private final ReentrantReadWriteLock latch = new ReentrantReadWriteLock();
+
+        /**
+         * 페이지 내용, 고정된 동안에만 읽고 쓸 수 있다 (latch 를 잡고).
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * 페이지 내용을 읽고 쓰는 짧은 잠금
+         */
+        public ReentrantReadWriteLock getLatch() {
+            return latch;
+        }
+
+        public long getBlockNo() {
+            return key.blockNo;
+        }
+
+        private void reset(PageKey key, int blockSize) {
+            this.key = key;
+            if (data.length != blockSize) {
+                data = new byte[blockSize];
+            }
+            pinCount = 0;
+            dirty = false;
+            referenced = false;
+            prefetched = false;
+            logged = false;
+            loading = false;
+            failed = false;
+        }
+
+        private void clear() {
+            key = null;
+            file = null;
+            pinCount = 0;
+            dirty = false;
+            referenced = false;
+            prefetched = false;
+            logged = false;
+            loading = false;
+            failed = false;
+        }
+    }
+
+    private static class PageKey {
+        final String fileId;
+        final int blockSize;
+        final long blockNo;
+
+        PageKey(String fileId, int blockSize, long blockNo) {
+            this.fileId = fileId;
+            this.blockSize = blockSize;
+            this.blockNo = blockNo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PageKey)) return false;
+            PageKey other = (PageKey) o;
+            return blockNo == other.blockNo && blockSize == other.blockSize && fileId.equals(other.fileId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileId, blockSize, blockNo);
+        }
+
+        @Override
+        public String toString() {
+            return fileId + "#" + blockNo;
+        }
+    }
+}
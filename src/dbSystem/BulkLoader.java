@@ -0,0 +1,494 @@
+package dbSystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 입력 파일의 레코드를 외부 병합 정렬해서 순차 파일을 한 번에 새로 쓰는 대량 적재
+ *
+ * 입력은 한 줄에 레코드 하나, insertRecord 와 같은 세미콜론 구분 형식이다.
+ * 1. 입력을 메모리 한도(BULK_LOAD_MEMORY)만큼씩 읽어 search key 로 정렬한 run 파일로 내보낸다.
+ * 2. run 이 BULK_LOAD_MERGE_FAN_IN 개보다 많으면 여러 번에 나눠 병합한다.
+ * 3. 기존 파일의 포인터 체인은 이미 정렬되어 있으므로 run 하나로 취급해 같이 병합한다.
+ * 4. 병합 결과를 임시 파일에 블록 순서대로 채워 쓰고, 포인터는 바로 다음 레코드를 가리키게 한다.
+ * 5. 임시 파일의 인덱스와 FSM 을 만든 뒤 원래 파일 자리로 옮긴다. (Reorganizer 도 같은 방법으로 파일을 다시 쓴다)
+ *
+ * 새 레코드는 파일을 교체한 뒤 입력을 한 번 더 읽어 SqlMirrorWriter 로 DB 테이블에도 넣는다.
+ * 파일 적재가 실패하면 DB 테이블에는 아무것도 넣지 않는다.
+ */
+public class BulkLoader {
+
+    // run 항목 하나가 차지하는 메모리 대략치 (객체 헤더, 참조 등)
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private static final Comparator<Entry> ORDER = (a, b) -> KeyComparator.compare(a.key, b.key);
+
+    /**
+     * inputPath 의 레코드를 tableName 에 적재하고 적재한 레코드 수 반환
+     * 파일에는 적재했지만 DB 테이블에 다 넣지 못했으면 SQLException 을 던진다.
+     */
+    public static long load(String tableName, String inputPath) throws IOException, SQLException {
+        String fileName = tableName + ".txt";
+        if (!FileHeader.probe(fileName).isCurrent()) {
+            throw new IOException("예전 형식의 파일에는 적재할 수 없습니다. 파일 업그레이드 후 사용하세요: " + fileName);
+        }
+        TableSchema schema = SchemaCatalog.get(tableName);
+
+        TableLocks locks = TableLocks.of(tableName);
+        locks.writer().lock();
+        try {
+            long start = System.nanoTime();
+            List<File> runs = new ArrayList<>();
+            long loaded;
+            long total;
+            try {
+                loaded = writeRuns(tableName, schema, inputPath, runs);
+                while (runs.size() > DbConst.BULK_LOAD_MERGE_FAN_IN) {
+                    runs = mergePass(tableName, runs);
+                }
+                total = rewrite(tableName, schema, runs);
+            } finally {
+                for (File run : runs) {
+                    run.delete();
+                }
+            }
+
+            long nanos = System.nanoTime() - start;
+            Metrics.record(Metrics.Operation.BULK_LOAD, start);
+            Log.info(String.format("%s 에 %d개 레코드 적재 완료 (전체 %d개, %.1f records/sec)",
+                    tableName, loaded, total, nanos == 0 ? 0 : loaded * 1_000_000_000.0 / nanos));
+
+            mirror(tableName, inputPath);
+            return loaded;
+        } finally {
+            locks.writer().unlock();
+        }
+    }
+
+    /**
+     * 기존 체인과 run 들을 병합해서 파일을 새로 쓰고 원래 파일과 교체, 전체 레코드 수 반환
+     * 호출하는 쪽이 테이블의 writer 잠금을 잡고 있어야 한다.
+     *
+     * 새 파일의 인덱스와 FSM 까지 임시 이름으로 만든 뒤, swap 잠금을 잡고 이름만 바꾼다.
+     * 그동안 읽기는 예전 파일에서 계속된다.
+     */
+    static long rewrite(String tableName, TableSchema schema, List<File> runs) throws IOException {
+        String fileName = tableName + ".txt";
+        String tmpName = fileName + ".rewrite";
+        FileHeader.Probe probe = FileHeader.probe(fileName);
+
+        long total;
+        try {
+            try (BlockFile existing = BlockFile.open(fileName, "r")) {
+                existing.startPrefetch();
+                List<Source> sources = new ArrayList<>();
+                sources.add(new ChainSource(existing, schema));
+                for (File run : runs) {
+                    sources.add(new RunSource(run));
+                }
+                total = writeSequential(tmpName, schema, probe, new Merger(sources));
+            }
+
+            try (BlockFile file = BlockFile.open(tmpName, "rw")) {
+                file.getIndex(schema);
+                file.getFreeSpaceMap(FileHeader.getDataStart(file.readBlock(0), file.getBlockSize()));
+            }
+        } catch (IOException | RuntimeException e) {
+            FreeSpaceMap.delete(tmpName);
+            BPlusTree.delete(tmpName);
+            new File(tmpName).delete();
+            throw e;
+        }
+
+        TableLocks locks = TableLocks.of(tableName);
+        locks.swapWrite().lock();
+        try {
+            // 교체 도중 죽어도 예전 파일이 로그 없이 완전하도록 로그를 먼저 데이터 파일에 적용한다
+            WriteAheadLog.checkpoint(fileName);
+            // 예전 인덱스, FSM 을 먼저 지워서 도중에 죽으면 다음에 열 때 다시 만들게 한다
+            FreeSpaceMap.delete(fileName);
+            BPlusTree.delete(fileName);
+            WriteAheadLog.discard(tmpName);
+            WriteAheadLog.discard(fileName);
+            LockManager.reset(fileName);
+            replace(new File(tmpName), new File(fileName));
+            replace(FreeSpaceMap.fileFor(canonical(tmpName)), FreeSpaceMap.fileFor(canonical(fileName)));
+            replace(BPlusTree.fileFor(canonical(tmpName)), BPlusTree.fileFor(canonical(fileName)));
+        } finally {
+            locks.swapWrite().unlock();
+        }
+        return total;
+    }
+
+    /**
+     * from 을 to 자리로 옮기고 두 파일의 페이지를 버퍼 풀에서 버린다. from 이 없으면 to 를 지운다.
+     */
+    private static void replace(File from, File to) throws IOException {
+        BufferPool.getInstance().invalidate(from.getCanonicalPath());
+        BufferPool.getInstance().invalidate(to.getCanonicalPath());
+        if (!from.exists()) {
+            Files.deleteIfExists(to.toPath());
+            return;
+        }
+        Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String canonical(String fileName) throws IOException {
+        return new File(fileName).getCanonicalPath();
+    }
+
+    /**
+     * 파일에 적재한 입력을 DB 테이블에도 넣는다 (파일을 교체한 뒤)
+     * DB 테이블이 없으면 경고만 남기고, 넣다가 실패하면 (마지막 커밋 포함) 던진다.
+     */
+    private static void mirror(String tableName, String inputPath) throws IOException, SQLException {
+        SqlMirrorWriter mirror;
+        try {
+            mirror = new SqlMirrorWriter(tableName);
+        } catch (SQLException e) {
+            Log.warn("DB 테이블 반영 불가, 파일에만 적재했습니다", e);
+            return;
+        }
+
+        try (SqlMirrorWriter writer = mirror;
+             BufferedReader reader = Files.newBufferedReader(Paths.get(inputPath))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    writer.add(Main.recordFormatting(tableName, line.trim()));
+                }
+            }
+        } catch (SQLException e) {
+            throw new SQLException("파일에는 적재했지만 DB 테이블에는 일부만 반영되었을 수 있습니다: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 입력을 메모리 한도만큼씩 읽어 정렬한 run 파일로 내보내고 읽은 레코드 수 반환
+     */
+    private static long writeRuns(String tableName, TableSchema schema, String inputPath, List<File> runs)
+            throws IOException {
+        long count = 0;
+        List<Entry> buffer = new ArrayList<>();
+        long bufferBytes = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(inputPath))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                Record record = Main.recordFormatting(tableName, line.trim());
+                byte[] recordBytes = record.getBytes();
+                Entry entry = new Entry(sortKey(recordBytes, schema), recordBytes);
+                buffer.add(entry);
+                bufferBytes += entry.key.length + recordBytes.length + ENTRY_OVERHEAD;
+                count++;
+
+                if (bufferBytes >= DbConst.BULK_LOAD_MEMORY) {
+                    runs.add(writeRun(tableName, buffer));
+                    buffer.clear();
+                    bufferBytes = 0;
+                }
+            }
+        }
+
+        if (!buffer.isEmpty()) {
+            runs.add(writeRun(tableName, buffer));
+        }
+        return count;
+    }
+
+    private static File writeRun(String tableName, List<Entry> buffer) throws IOException {
+        buffer.sort(ORDER);
+        File run = runFile(tableName);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)))) {
+            for (Entry entry : buffer) {
+                entry.writeTo(out);
+            }
+        }
+        return run;
+    }
+
+    /**
+     * run 들을 fan-in 개씩 묶어 병합한 새 run 목록
+     */
+    private static List<File> mergePass(String tableName, List<File> runs) throws IOException {
+        List<File> merged = new ArrayList<>();
+        for (int from = 0; from < runs.size(); from += DbConst.BULK_LOAD_MERGE_FAN_IN) {
+            List<File> group = runs.subList(from, Math.min(runs.size(), from + DbConst.BULK_LOAD_MERGE_FAN_IN));
+
+            List<Source> sources = new ArrayList<>();
+            for (File run : group) {
+                sources.add(new RunSource(run));
+            }
+
+            File out = runFile(tableName);
+            try (Merger merger = new Merger(sources);
+                 DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(out)))) {
+                Entry entry;
+                while ((entry = merger.next()) != null) {
+                    entry.writeTo(dos);
+                }
+            }
+            for (File run : group) {
+                run.delete();
+            }
+            merged.add(out);
+        }
+        return merged;
+    }
+
+    /**
+     * 병합한 레코드를 블록 순서대로 채워 새 파일 쓰기, 전체 레코드 수 반환
+     *
+     * 다음 레코드가 들어갈 위치는 현재 블록의 남은 공간으로 미리 알 수 있으므로,
+     * 레코드 하나를 앞서 읽어 두고 포인터를 채운 뒤 쓰면 이미 쓴 블록을 다시 고칠 일이 없다.
+     */
+    private static long writeSequential(String tmpName, TableSchema schema, FileHeader.Probe probe, Merger merger)
+            throws IOException {
+        int blockSize = probe.pageSize;
+        byte[] header = FileHeader.create(schema, blockSize, probe.storageMode);
+
+        long count = 0;
+        try (FileOutputStream fos = new FileOutputStream(tmpName);
+             BufferedOutputStream out = new BufferedOutputStream(fos, blockSize * 16)) {
+            long pageNo = header.length / blockSize;
+            byte[] block = new byte[blockSize];
+            SlottedPage.init(block);
+
+            Entry current = merger.next();
+            if (current != null) {
+                FileHeader.putInt(header, FileHeader.FIRST_RECORD_POS, SlottedPage.rid(pageNo, 0));
+            }
+            out.write(header);
+
+            while (current != null) {
+                // 현재 블록에 들어가지 않으면 블록을 내보내고 다음 블록에 쓴다
+                if (current.recordBytes.length + SlottedPage.SLOT_SIZE > SlottedPage.freeSpace(block)) {
+                    out.write(block);
+                    block = new byte[blockSize];
+                    SlottedPage.init(block);
+                    pageNo++;
+                }
+
+                Entry next = merger.next();
+                int pointer = 0;
+                if (next != null) {
+                    int freeAfter = SlottedPage.freeSpace(block) - current.recordBytes.length - SlottedPage.SLOT_SIZE;
+                    boolean fits = next.recordBytes.length + SlottedPage.SLOT_SIZE <= freeAfter
+                            && SlottedPage.slotCount(block) + 1 < SlottedPage.MAX_SLOTS;
+                    pointer = fits
+                            ? SlottedPage.rid(pageNo, SlottedPage.slotCount(block) + 1)
+                            : SlottedPage.rid(pageNo + 1, 0);
+                }
+
+                byte[] recordBytes = current.recordBytes;
+                FileHeader.putInt(recordBytes, recordBytes.length - 4, pointer);
+                SlottedPage.insert(block, recordBytes);
+                count++;
+
+                current = next;
+            }
+
+            if (SlottedPage.slotCount(block) > 0) {
+                out.write(block);
+            }
+            out.flush();
+
+            // 순서대로 썼으므로 모든 링크가 클러스터링되어 있다
+            FileHeader.putInt(header, FileHeader.RECORD_COUNT_POS, (int) count);
+            FileHeader.putInt(header, FileHeader.CLUSTERED_LINKS_POS, (int) Math.max(0, count - 1));
+            fos.getChannel().write(ByteBuffer.wrap(header), 0);
+
+            fos.getChannel().force(true);
+        } finally {
+            merger.close();
+        }
+        return count;
+    }
+
+    /**
+     * 체인 비교와 같은 순서가 되도록 필드에 저장된 search key 바이트(공백 포함)를 정렬 키로 쓴다.
+     * null 은 빈 키로 모든 값보다 앞에 온다.
+     */
+    private static byte[] sortKey(byte[] recordBytes, TableSchema schema) {
+        byte nullBitMap = recordBytes[0];
+        if (TableSchema.isNull(nullBitMap, 0)) {
+            return new byte[0];
+        }
+        int keyPos = schema.fieldOffset(nullBitMap, 0);
+        return Arrays.copyOfRange(recordBytes, keyPos, keyPos + schema.getFieldSize(0));
+    }
+
+    /**
+     * 테이블 파일과 같은 디렉터리에 만드는 run 파일 (f1.123.run)
+     */
+    private static File runFile(String tableName) throws IOException {
+        return File.createTempFile(tableName + ".", ".run", new File(tableName).getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * 정렬 키와 레코드 바이트 (포인터는 쓸 때 채운다)
+     */
+    private static class Entry {
+        final byte[] key;
+        final byte[] recordBytes;
+
+        Entry(byte[] key, byte[] recordBytes) {
+            this.key = key;
+            this.recordBytes = recordBytes;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeShort(key.length);
+            out.write(key);
+            out.writeShort(recordBytes.length);
+            out.write(recordBytes);
+        }
+    }
+
+    /**
+     * 정렬된 항목을 차례로 내주는 입력
+     */
+    private interface Source extends AutoCloseable {
+        Entry next() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static class RunSource implements Source {
+        private final DataInputStream in;
+
+        RunSource(File run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+        }
+
+        @Override
+        public Entry next() throws IOException {
+            byte[] key;
+            try {
+                key = new byte[in.readUnsignedShort()];
+            } catch (EOFException e) {
+                return null;
+            }
+            in.readFully(key);
+            byte[] recordBytes = new byte[in.readUnsignedShort()];
+            in.readFully(recordBytes);
+            return new Entry(key, recordBytes);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * 기존 파일의 포인터 체인, 레코드는 rid 의 페이지에서 바로 잘라낸다.
+     */
+    private static class ChainSource implements Source {
+        private final BlockFile file;
+        private final TableSchema schema;
+        private final long maxRecords;
+        private long current;
+        private long count;
+
+        ChainSource(BlockFile file, TableSchema schema) throws IOException {
+            this.file = file;
+            this.schema = schema;
+            this.current = file.length() < file.getBlockSize() ? -1 : file.readInt(FileHeader.FIRST_RECORD_POS);
+            // 레코드는 슬롯까지 최소 9바이트(비트맵 + 포인터 + 슬롯)이므로 이보다 많이 따라가면 순환 참조
+            this.maxRecords = file.length() / (5 + SlottedPage.SLOT_SIZE);
+        }
+
+        @Override
+        public Entry next() throws IOException {
+            if (current == 0 || current == -1) {
+                return null;
+            }
+            if (++count > maxRecords) {
+                throw new IOException("레코드 체인에 순환 참조가 감지되었습니다.");
+            }
+
+            // 블록 전체가 아니라 레코드만 복사해 온다
+            byte[] recordBytes = file.readSlot(current, null);
+            current = FileHeader.getInt(recordBytes, schema.pointerOffset(recordBytes[0]));
+            return new Entry(sortKey(recordBytes, schema), recordBytes);
+        }
+
+        @Override
+        public void close() {
+            // 파일은 호출한 쪽에서 닫는다
+        }
+    }
+
+    /**
+     * 여러 입력을 키 순서로 병합, 키가 같으면 앞쪽 입력(기존 체인)부터 내준다.
+     */
+    private static class Merger implements AutoCloseable {
+        private final List<Source> sources;
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(
+                Comparator.<Head, Entry>comparing(h -> h.entry, ORDER).thenComparingInt(h -> h.sourceNo));
+
+        Merger(List<Source> sources) throws IOException {
+            this.sources = sources;
+            for (int i = 0; i < sources.size(); i++) {
+                Entry entry = sources.get(i).next();
+                if (entry != null) {
+                    heads.add(new Head(entry, i));
+                }
+            }
+        }
+
+        Entry next() throws IOException {
+            Head head = heads.poll();
+            if (head == null) {
+                return null;
+            }
+            Entry following = sources.get(head.sourceNo).next();
+            if (following != null) {
+                heads.add(new Head(following, head.sourceNo));
+            }
+            return head.entry;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Source source : sources) {
+                source.close();
+            }
+        }
+    }
+
+    private static class Head {
+        final Entry entry;
+        final int sourceNo;
+
+        Head(Entry entry, int sourceNo) {
+            this.entry = entry;
+            this.sourceNo = sourceNo;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package dbSystem;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 크기가 제한된 JDBC 커넥션 풀
+ *
+ * 빌린 커넥션은 PooledConnection.close() 로 반납한다.
+ * 반납되지 않고 leakThresholdMillis 이상 빌려간 커넥션은 빌려간 위치와 함께 경고를 출력한다.
+ * leakThresholdMillis 가 0 이하면 누수 검사를 하지 않고, 빌려간 위치도 기록하지 않는다.
+ */
+public class ConnectionPool {
+
+    private static ConnectionPool instance;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Map<PooledConnection, Lease> leases = new ConcurrentHashMap<>();
+    // 누수 검사를 하지 않으면 null
+    private final ScheduledExecutorService leakDetector;
+    private final LongAdder leaks = new LongAdder();
+
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String password,
+                          int maxSize, long leakThresholdMillis, int statementCacheSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        if (leakThresholdMillis > 0) {
+            this.leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "connection-leak-detector");
+                t.setDaemon(true);
+                return t;
+            });
+            leakDetector.scheduleAtFixedRate(this::detectLeaks,
+                    leakThresholdMillis, leakThresholdMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.leakDetector = null;
+        }
+    }
+
+    /**
+     * DbConst 설정으로 만든 공용 풀
+     */
+    public static synchronized ConnectionPool getInstance() {
+        if (instance == null) {
+            instance = new ConnectionPool(DbConst.DB_URL, DbConst.USER, DbConst.PASS,
+                    DbConst.POOL_SIZE, DbConst.POOL_LEAK_THRESHOLD_MS, DbConst.STATEMENT_CACHE_SIZE);
+        }
+        return instance;
+    }
+
+    /**
+     * 커넥션 빌리기, 풀이 가득 차 있으면 POOL_BORROW_TIMEOUT_MS 까지 기다린다.
+     * close() 한 풀에서는 빌릴 수 없다.
+     */
+    public PooledConnection borrow() throws SQLException {
+        return borrow(DbConst.POOL_BORROW_TIMEOUT_MS);
+    }
+
+    public PooledConnection borrow(long timeoutMillis) throws SQLException {
+        checkOpen();
+        Metrics.increment(Metrics.Counter.JDBC_BORROWS);
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("커넥션 풀이 가득 찼습니다 (최대 " + maxSize + "개, " + timeoutMillis + "ms 대기)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("커넥션 대기 중 인터럽트", e);
+        }
+
+        try {
+            // 기다리는 동안 닫혔을 수 있다
+            checkOpen();
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                Connection raw = DriverManager.getConnection(url, user, password);
+                pooled = new PooledConnection(this, raw, statementCacheSize);
+            }
+
+            Throwable borrowSite = leakDetector == null ? null : new Throwable("커넥션을 빌려간 위치");
+            leases.put(pooled, new Lease(Thread.currentThread().getName(), borrowSite));
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("닫힌 커넥션 풀입니다");
+        }
+    }
+
+    /**
+     * 사용 가능한 유휴 커넥션 꺼내기, 끊어진 커넥션은 버린다.
+     */
+    private PooledConnection takeIdle() {
+        while (true) {
+            PooledConnection pooled;
+            synchronized (idle) {
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) {
+                return null;
+            }
+            if (pooled.isUsable()) {
+                return pooled;
+            }
+            pooled.closePhysical();
+        }
+    }
+
+    /**
+     * PooledConnection.close() 에서 호출
+     */
+    void release(PooledConnection pooled) {
+        if (leases.remove(pooled) == null) {
+            return; // 이미 반납된 커넥션
+        }
+
+        boolean returned = false;
+        if (!closed && pooled.resetForReuse()) {
+            synchronized (idle) {
+                // 그 사이 close() 가 유휴 커넥션을 정리했으면 다시 넣지 않는다
+                if (!closed) {
+                    idle.addFirst(pooled);
+                    returned = true;
+                }
+            }
+        }
+        if (!returned) {
+            pooled.closePhysical();
+        }
+        permits.release();
+    }
+
+    public int getActiveCount() {
+        return leases.size();
+    }
+
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 지금까지 누수로 보고한 커넥션 수
+     */
+    public long getLeakCount() {
+        return leaks.sum();
+    }
+
+    /**
+     * 유휴 커넥션을 모두 닫는다. 빌려간 커넥션은 반납될 때 닫힌다.
+     */
+    public void close() {
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+
+        List<PooledConnection> toClose;
+        synchronized (idle) {
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        }
+        for (PooledConnection pooled : toClose) {
+            pooled.closePhysical();
+        }
+    }
+
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+
+        for (Lease lease : leases.values()) {
+            if (!lease.reported && now - lease.borrowedAt >= leakThresholdMillis) {
+                lease.reported = true;
+                leaks.increment();
+                Log.warn("경고: 커넥션이 " + (now - lease.borrowedAt) + "ms 동안 반납되지 않았습니다 (스레드: "
+                        + lease.threadName + ")", lease.borrowSite);
+            }
+        }
+    }
+
+    private static class Lease {
+        final long borrowedAt = System.currentTimeMillis();
+        final String threadName;
+        // 누수 검사를 하지 않으면 null
+        final Throwable borrowSite;
+        volatile boolean reported;
+
+        Lease(String threadName, Throwable borrowSite) {
+            this.threadName = threadName;
+            this.borrowSite = borrowSite;
+        }
+    }
+}
@@ -3,13 +3,79 @@ package dbSystem;
 public class DbConst {
 
     // DB 관련 상수들 정리
+    // -DdbSystem.url=... 처럼 시스템 프로퍼티로 바꿀 수 있다 (예: 내장 DB 로 테스트할 때)
 
-    public static final String DB_URL = "jdbc:mysql://localhost/db_system?useUnicode=true&useJDBCCompliantTimezoneShift"
-            + "=true&useLegacyDatetimeCode=false&serverTimezone=UTC";
-    public static final String USER = "root";
-    public static final String PASS = "1234";
+    public static final String DB_URL = System.getProperty("dbSystem.url",
+            "jdbc:mysql://localhost/db_system?useUnicode=true&useJDBCCompliantTimezoneShift"
+            + "=true&useLegacyDatetimeCode=false&serverTimezone=UTC");
+    public static final String USER = System.getProperty("dbSystem.user", "root");
+    public static final String PASS = System.getProperty("dbSystem.password", "1234");
 
-    public static final String schema = "db_system";
+    public static final String schema = System.getProperty("dbSystem.schema", "db_system");
     public static final String tableName = "test_table";
 
+    // 커넥션 풀 설정
+    public static final int POOL_SIZE = Integer.getInteger("dbSystem.pool.size", 4);
+    public static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("dbSystem.pool.borrowTimeoutMs", 5000);
+    public static final long POOL_LEAK_THRESHOLD_MS = Long.getLong("dbSystem.pool.leakThresholdMs", 30000);
+    public static final int STATEMENT_CACHE_SIZE = Integer.getInteger("dbSystem.pool.statementCacheSize", 32);
+
+    // DB 테이블 반영 (insertRecord) 배치 설정
+    public static final int MIRROR_BATCH_SIZE = Integer.getInteger("dbSystem.mirror.batchSize", 100);
+    public static final int MIRROR_COMMIT_INTERVAL = Integer.getInteger("dbSystem.mirror.commitInterval", 1000);
+
+    // 버퍼 풀에 올릴 수 있는 페이지 수
+    public static final int BUFFER_POOL_PAGES = Integer.getInteger("dbSystem.bufferPool.pages", 1024);
+
+    // 새 파일의 저장 방식 (raf | mmap) 과 매핑 단위
+    public static final StorageMode STORAGE_MODE = StorageMode.parse(System.getProperty("dbSystem.storage", "raf"));
+    public static final int MMAP_CHUNK_SIZE = Integer.getInteger("dbSystem.mmap.chunkSize", 16 * 1024 * 1024);
+
+    // 대량 적재(BulkLoader) 정렬에 쓰는 메모리와 한 번에 병합하는 run 수
+    public static final long BULK_LOAD_MEMORY = Long.getLong("dbSystem.bulkLoad.memory", 16L * 1024 * 1024);
+    public static final int BULK_LOAD_MERGE_FAN_IN = Integer.getInteger("dbSystem.bulkLoad.mergeFanIn", 64);
+
+    // 클러스터링 비율이 threshold 아래로 내려가면 자동 재구성 (레코드가 minRecords 개 이상일 때, 0 이하면 끔)
+    public static final double REORG_THRESHOLD = Double.parseDouble(System.getProperty("dbSystem.reorg.threshold", "0.5"));
+    public static final int REORG_MIN_RECORDS = Integer.getInteger("dbSystem.reorg.minRecords", 1000);
+
+    // 체인 순회 중 순차 접근이 trigger 번 이어지면 다음 blocks 개 블록을 미리 읽는다 (0 이면 끔)
+    public static final int PREFETCH_BLOCKS = Integer.getInteger("dbSystem.prefetch.blocks", 16);
+    public static final int PREFETCH_TRIGGER = Integer.getInteger("dbSystem.prefetch.trigger", 2);
+    public static final int PREFETCH_THREADS = Integer.getInteger("dbSystem.prefetch.threads", 1);
+
+    // 조인이 메모리에 둘 수 있는 크기 (merge join 의 같은 key 묶음, hash join 의 해시 테이블), 넘으면 임시 파일로 내보낸다
+    public static final long JOIN_MEMORY = Long.getLong("dbSystem.join.memory", 4L * 1024 * 1024);
+    // hash join 이 메모리를 넘을 때 나누는 partition 수
+    public static final int HASH_JOIN_PARTITIONS = Integer.getInteger("dbSystem.join.partitions", 16);
+    // 조인이 임시 파일을 쓰는 곳, 조인마다 이 아래에 디렉터리를 하나씩 만들고 끝나면 지운다
+    public static final String JOIN_SPILL_DIR = System.getProperty("dbSystem.join.spillDir",
+            System.getProperty("java.io.tmpdir"));
+    // 조인 방법을 고를 때 인덱스로 한 블록씩 찾아 읽는 비용 (순차로 한 블록 읽는 비용 = 1)
+    public static final double RANDOM_READ_COST = Double.parseDouble(System.getProperty("dbSystem.join.randomReadCost", "4.0"));
+
+    // 병렬 범위 검색(ParallelRangeScan)에 쓰는 스레드 수
+    public static final int SCAN_PARALLELISM = Integer.getInteger("dbSystem.scan.parallelism",
+            Runtime.getRuntime().availableProcessors());
+
+    // 삽입 로그(WAL)를 fsync 하는 방식 (per_op | batched | none), batched 는 batchMs 마다 또는 커밋 batchOps 개마다
+    public static final WriteAheadLog.Durability WAL_DURABILITY =
+            WriteAheadLog.Durability.parse(System.getProperty("dbSystem.wal.durability", "batched"));
+    public static final long WAL_BATCH_MS = Long.getLong("dbSystem.wal.batchMs", 10);
+    public static final int WAL_BATCH_OPS = Integer.getInteger("dbSystem.wal.batchOps", 64);
+    // 로그가 이 크기를 넘으면 데이터 파일을 fsync 하고 로그를 비운다
+    public static final long WAL_CHECKPOINT_BYTES = Long.getLong("dbSystem.wal.checkpointBytes", 4L * 1024 * 1024);
+
+    // FSM 리프 페이지 잠금을 나누는 수 (동시에 삽입하는 스레드가 서로 다른 리프를 고칠 때 기다리지 않게)
+    public static final int FSM_LOCK_STRIPES = Integer.getInteger("dbSystem.fsm.lockStripes", 16);
+
+    // 서버 모드(QueryServer)가 받는 포트 (127.0.0.1 에서만 받는다)
+    public static final int SERVER_PORT = Integer.getInteger("dbSystem.server.port", 7070);
+    // true 면 서버에서도 삽입, 검색 중에 System.out 으로 찍는 메시지를 그대로 출력한다 (Log 의 메시지는 항상 찍는다)
+    public static final boolean SERVER_ECHO = Boolean.getBoolean("dbSystem.server.echo");
+
+    // 엔진 메시지의 로그 레벨 (off | error | warn | info | debug), 삽입 한 건마다의 메시지는 debug
+    public static final Log.Level LOG_LEVEL = Log.Level.parse(System.getProperty("dbSystem.log.level", "info"));
+    // 비어 있지 않으면 종료할 때 동작 통계(Metrics)를 이 파일에 Prometheus 텍스트 형식으로 쓴다
+    public static final String METRICS_EXPORT = System.getProperty("dbSystem.metrics.export", "");
 }
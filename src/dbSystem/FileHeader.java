@@ -0,0 +1,245 @@
+package dbSystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 순차 파일의 헤더 영역
+ *
+ * 0~3   : 첫 레코드 오프셋 (레코드가 없으면 -1)
+ * 4~7   : 매직 넘버
+ * 8~11  : 헤더 영역이 차지하는 블록 수
+ * 12~15 : 카탈로그 길이 (바이트)
+ * 16~19 : 페이지 크기
+ * 20~23 : 파일 형식 버전
+ * 24~27 : 저장 방식 (StorageMode)
+ * 28~31 : 레코드 수
+ * 32~35 : 클러스터링된 링크 수 (체인에서 다음 레코드가 같은 블록이나 바로 다음 블록에 있는 경우)
+ * 36~63 : 예약
+ * 64~   : 카탈로그 (스키마 버전, 컬럼 수, 컬럼 이름/길이)
+ *
+ * 형식 버전 3 부터 데이터 블록은 SlottedPage 이고 레코드 포인터는 rid 이다.
+ * 그 전 형식의 파일은 레코드를 블록에 이어 붙이고 포인터가 파일 오프셋이며, 읽기 전용으로만 열 수 있다.
+ * 버전 2 는 헤더가 지금과 같고, 매직 넘버가 없는 파일(버전 0)은 헤더가 첫 레코드 오프셋뿐이며,
+ * "SEQF" 파일(버전 1)은 16바이트부터 카탈로그가 있다. 버전 0, 1 은 40바이트 블록을 쓴다.
+ */
+public class FileHeader {
+
+    public static final int MAGIC = 0x53455150; // "SEQP"
+    public static final int LEGACY_MAGIC = 0x53455146; // "SEQF"
+
+    public static final int LEGACY_BLOCK_SIZE = 40;
+    public static final int FORMAT_VERSION = 3;
+
+    public static final int MIN_PAGE_SIZE = 512;
+    public static final int MAX_PAGE_SIZE = 65536;
+
+    public static final int FIRST_RECORD_POS = 0;
+    private static final int MAGIC_POS = 4;
+    private static final int HEADER_BLOCKS_POS = 8;
+    private static final int CATALOG_LENGTH_POS = 12;
+    private static final int PAGE_SIZE_POS = 16;
+    private static final int FORMAT_VERSION_POS = 20;
+    private static final int STORAGE_MODE_POS = 24;
+    public static final int RECORD_COUNT_POS = 28;
+    public static final int CLUSTERED_LINKS_POS = 32;
+    private static final int CATALOG_POS = 64;
+    private static final int LEGACY_CATALOG_POS = 16;
+
+    /**
+     * 스키마를 담은 새 헤더 영역 생성 (pageSize 의 배수 크기)
+     */
+    public static byte[] create(TableSchema schema, int pageSize) {
+        return create(schema, pageSize, StorageMode.RANDOM_ACCESS);
+    }
+
+    public static byte[] create(TableSchema schema, int pageSize, StorageMode storageMode) {
+        checkPageSize(pageSize);
+        byte[] catalog = encodeCatalog(schema);
+
+        int length = CATALOG_POS + catalog.length;
+        int headerBlocks = (length + pageSize - 1) / pageSize;
+        byte[] header = new byte[headerBlocks * pageSize];
+
+        putInt(header, FIRST_RECORD_POS, -1);
+        putInt(header, MAGIC_POS, MAGIC);
+        putInt(header, HEADER_BLOCKS_POS, headerBlocks);
+        putInt(header, CATALOG_LENGTH_POS, catalog.length);
+        putInt(header, PAGE_SIZE_POS, pageSize);
+        putInt(header, FORMAT_VERSION_POS, FORMAT_VERSION);
+        putInt(header, STORAGE_MODE_POS, storageMode.getCode());
+        System.arraycopy(catalog, 0, header, CATALOG_POS, catalog.length);
+
+        return header;
+    }
+
+    /**
+     * 페이지 크기는 2의 거듭제곱이어야 OS 페이지(4KiB)와 경계가 어긋나지 않는다.
+     */
+    public static void checkPageSize(int pageSize) {
+        if (pageSize < MIN_PAGE_SIZE || pageSize > MAX_PAGE_SIZE || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("페이지 크기는 " + MIN_PAGE_SIZE + "~" + MAX_PAGE_SIZE
+                    + " 사이의 2의 거듭제곱이어야 합니다: " + pageSize);
+        }
+    }
+
+    public static boolean hasMagic(byte[] headerBlock) {
+        return headerBlock.length >= LEGACY_CATALOG_POS && getInt(headerBlock, MAGIC_POS) == MAGIC;
+    }
+
+    private static boolean hasLegacyMagic(byte[] headerBlock) {
+        return headerBlock.length >= LEGACY_CATALOG_POS && getInt(headerBlock, MAGIC_POS) == LEGACY_MAGIC;
+    }
+
+    /**
+     * 파일을 열기 전에 헤더만 직접 읽어 페이지 크기, 저장 방식, 형식 버전 확인
+     * 매직 넘버가 없는 예전 형식이면 LEGACY_BLOCK_SIZE, RANDOM_ACCESS 이다.
+     */
+    public static Probe probe(String fileName) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(new File(fileName), "r")) {
+            byte[] fixed = new byte[STORAGE_MODE_POS + 4];
+            if (raf.length() < fixed.length) {
+                return new Probe(LEGACY_BLOCK_SIZE, StorageMode.RANDOM_ACCESS, 0);
+            }
+            raf.readFully(fixed);
+            if (hasLegacyMagic(fixed)) {
+                return new Probe(LEGACY_BLOCK_SIZE, StorageMode.RANDOM_ACCESS, 1);
+            }
+            if (!hasMagic(fixed)) {
+                return new Probe(LEGACY_BLOCK_SIZE, StorageMode.RANDOM_ACCESS, 0);
+            }
+            return new Probe(getInt(fixed, PAGE_SIZE_POS), StorageMode.fromCode(getInt(fixed, STORAGE_MODE_POS)),
+                    getInt(fixed, FORMAT_VERSION_POS));
+        }
+    }
+
+    /**
+     * 첫 번째 데이터 블록의 오프셋
+     * 매직 넘버가 없는 예전 형식의 파일은 헤더가 한 블록이다.
+     */
+    public static long getDataStart(byte[] headerBlock, int blockSize) {
+        if (!hasMagic(headerBlock) && !hasLegacyMagic(headerBlock)) {
+            return blockSize;
+        }
+        return (long) getInt(headerBlock, HEADER_BLOCKS_POS) * blockSize;
+    }
+
+    /**
+     * 체인의 링크 중 클러스터링된 링크의 비율, 레코드가 1개 이하면 1
+     */
+    public static double clusteringRatio(int recordCount, int clusteredLinks) {
+        if (recordCount <= 1) {
+            return 1.0;
+        }
+        return (double) clusteredLinks / (recordCount - 1);
+    }
+
+    /**
+     * 파일 헤더에 기록된 카탈로그 읽기, 카탈로그가 없는 파일이면 null
+     */
+    public static TableSchema readSchema(BlockFile file, String tableName) throws IOException {
+        int blockSize = file.getBlockSize();
+        if (file.length() < blockSize) {
+            return null;
+        }
+
+        byte[] headerBlock = file.readBlock(0);
+        int catalogPos;
+        if (hasMagic(headerBlock)) {
+            catalogPos = CATALOG_POS;
+        } else if (hasLegacyMagic(headerBlock)) {
+            catalogPos = LEGACY_CATALOG_POS;
+        } else {
+            return null;
+        }
+
+        // 카탈로그가 여러 헤더 블록에 걸쳐 있으면 이어 붙인다
+        int catalogLength = getInt(headerBlock, CATALOG_LENGTH_POS);
+        byte[] header = new byte[catalogPos + catalogLength];
+        for (int pos = 0; pos < header.length; pos += blockSize) {
+            byte[] block = pos == 0 ? headerBlock : file.readBlock(pos);
+            System.arraycopy(block, 0, header, pos, Math.min(blockSize, header.length - pos));
+        }
+
+        byte[] catalog = Arrays.copyOfRange(header, catalogPos, header.length);
+        return decodeCatalog(tableName, catalog);
+    }
+
+    private static byte[] encodeCatalog(TableSchema schema) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(bos)) {
+            dos.writeInt(schema.getVersion());
+            dos.writeShort(schema.getColumnCount());
+
+            for (int i = 0; i < schema.getColumnCount(); i++) {
+                byte[] name = schema.getColumnName(i).getBytes(StandardCharsets.UTF_8);
+                dos.writeShort(name.length);
+                dos.write(name);
+                dos.writeInt(schema.getFieldSize(i));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("카탈로그 변환 실패", e);
+        }
+        return bos.toByteArray();
+    }
+
+    private static TableSchema decodeCatalog(String tableName, byte[] catalog) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(catalog))) {
+            int version = dis.readInt();
+            int count = dis.readShort();
+
+            List<String> names = new ArrayList<>();
+            List<Integer> sizes = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[dis.readShort()];
+                dis.readFully(name);
+                names.add(new String(name, StandardCharsets.UTF_8));
+                sizes.add(dis.readInt());
+            }
+
+            return new TableSchema(tableName, version, names, sizes);
+        }
+    }
+
+    static int getInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) |
+                ((data[offset + 1] & 0xFF) << 16) |
+                ((data[offset + 2] & 0xFF) << 8) |
+                (data[offset + 3] & 0xFF);
+    }
+
+    static void putInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >> 24);
+        data[offset + 1] = (byte) (value >> 16);
+        data[offset + 2] = (byte) (value >> 8);
+        data[offset + 3] = (byte) value;
+    }
+
+    /**
+     * 파일을 열기 전에 확인한 헤더 정보
+     */
+    public static class Probe {
+        public final int pageSize;
+        public final StorageMode storageMode;
+        public final int formatVersion;
+
+        Probe(int pageSize, StorageMode storageMode, int formatVersion) {
+            this.pageSize = pageSize;
+            this.storageMode = storageMode;
+            this.formatVersion = formatVersion;
+        }
+
+        public boolean isCurrent() {
+            return formatVersion == FORMAT_VERSION;
+        }
+    }
+}
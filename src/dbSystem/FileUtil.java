@@ -1,5 +1,6 @@
 package dbSystem;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -21,4 +22,14 @@ public class FileUtil {
 
     }
 
+    /**
+     * 데이터 파일 옆에 두는 부속 파일 (f1.txt, "fsm" → f1.fsm)
+     */
+    public static File companionFile(String dataFilePath, String extension) {
+        String base = dataFilePath.endsWith(".txt")
+                ? dataFilePath.substring(0, dataFilePath.length() - 4)
+                : dataFilePath;
+        return new File(base + "." + extension);
+    }
+
 }
@@ -0,0 +1,202 @@
+package dbSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+
+/**
+ * 데이터 블록마다 남은 공간을 기록하는 free space map (FSM)
+ *
+ * 데이터 파일 옆의 별도 파일(테이블 이름.fsm)에 저장하며, 페이지 크기는 데이터 파일과 같다.
+ * 0번 페이지(루트)는 리프 페이지마다 가장 큰 여유 공간 등급을,
+ * 1번 페이지부터(리프)는 데이터 블록마다 여유 공간 등급을 1바이트씩 기록한다.
+ * 등급은 여유 공간을 (페이지 크기 / 256) 단위로 내림한 값이므로,
+ * 등급이 충분한 블록에는 항상 레코드가 들어간다.
+ *
+ * 삽입할 블록은 루트 한 페이지와 리프 한 페이지만 보고 찾는다.
+ * FSM 파일이 없으면 데이터 블록의 슬롯 디렉터리를 한 번 훑어서 만든다.
+ *
+ * 여러 스레드가 각자 연 FSM 으로 같은 파일을 고친다. 리프 페이지는 FSM_LOCK_STRIPES 개로 나눈 잠금으로,
+ * 루트 페이지는 별도 잠금으로 고치므로 서로 다른 리프의 블록을 기록하는 삽입은 리프에서 기다리지 않는다.
+ * 찾는 쪽은 잠그지 않는다 (등급은 힌트일 뿐이고 실제 공간은 페이지에서 다시 확인한다).
+ */
+public class FreeSpaceMap implements AutoCloseable {
+
+    private static final int ROOT_PAGE = 0;
+
+    // FSM 파일마다 리프 잠금 (FSM_LOCK_STRIPES 개) + 루트 잠금 (마지막 칸)
+    private static final ConcurrentMap<String, ReentrantLock[]> STRIPES = new ConcurrentHashMap<>();
+    // FSM 파일을 만들거나 지우는 동안 (다시 만들면서 리프 잠금을 기다리므로 synchronized 를 쓰지 않는다)
+    private static final ReentrantLock OPEN_LOCK = new ReentrantLock();
+
+    private final BlockFile dataFile;
+    private final BlockFile fsmFile;
+    private final int pageSize;
+    private final int categoryUnit;
+    private final ReentrantLock[] stripes;
+
+    private FreeSpaceMap(BlockFile dataFile, BlockFile fsmFile) {
+        this.dataFile = dataFile;
+        this.fsmFile = fsmFile;
+        this.pageSize = dataFile.getBlockSize();
+        this.categoryUnit = pageSize / 256;
+        this.stripes = STRIPES.computeIfAbsent(fsmFile.getFileId(), id -> {
+            ReentrantLock[] locks = new ReentrantLock[DbConst.FSM_LOCK_STRIPES + 1];
+            for (int i = 0; i < locks.length; i++) {
+                locks[i] = new ReentrantLock();
+            }
+            return locks;
+        });
+    }
+
+    /**
+     * 데이터 파일의 FSM 열기, 없으면 데이터 블록을 훑어서 새로 만든다.
+     */
+    public static FreeSpaceMap open(BlockFile dataFile, long dataStart) throws IOException {
+        OPEN_LOCK.lock();
+        try {
+            File file = fileFor(dataFile.getFileId());
+            boolean exists = file.exists() && file.length() > 0;
+
+            BlockFile fsmFile = new BlockFile(file.getPath(), "rw", dataFile.getBlockSize());
+            FreeSpaceMap fsm = new FreeSpaceMap(dataFile, fsmFile);
+            // 다른 스레드가 만든 FSM 이 아직 버퍼 풀에만 있으면 파일은 비어 있다 (그 페이지를 버리지 않는다)
+            exists = exists || BufferPool.getInstance().hasPages(fsmFile.getFileId());
+
+            if (!exists) {
+                BufferPool.getInstance().invalidate(fsmFile.getFileId());
+                fsm.rebuild(dataStart);
+            }
+            return fsm;
+        } finally {
+            OPEN_LOCK.unlock();
+        }
+    }
+
+    /**
+     * 데이터 파일 경로에 대응하는 FSM 파일 (f1.txt → f1.fsm)
+     */
+    public static File fileFor(String dataFilePath) {
+        return FileUtil.companionFile(dataFilePath, "fsm");
+    }
+
+    /**
+     * 데이터 파일을 새로 만들거나 교체했을 때 예전 FSM 삭제 (다음에 열 때 다시 만든다)
+     */
+    public static void delete(String dataFileName) throws IOException {
+        OPEN_LOCK.lock();
+        try {
+            File file = fileFor(new File(dataFileName).getCanonicalPath());
+            BufferPool.getInstance().invalidate(file.getCanonicalPath());
+            if (file.exists() && !file.delete()) {
+                throw new IOException("FSM 파일 삭제 실패: " + file);
+            }
+        } finally {
+            OPEN_LOCK.unlock();
+        }
+    }
+
+    /**
+     * needed 바이트가 들어갈 블록의 오프셋, 없으면 -1
+     */
+    public long findBlock(int needed) throws IOException {
+        return findBlock(needed, blockOffset -> true);
+    }
+
+    /**
+     * needed 바이트가 들어갈 블록 중 claim 이 true 를 돌려준 첫 블록의 오프셋, 없으면 -1
+     * claim 으로 다른 트랜잭션이 쓰고 있는 블록을 건너뛴다.
+     */
+    public long findBlock(int needed, LongPredicate claim) throws IOException {
+        int category = (needed + categoryUnit - 1) / categoryUnit;
+
+        byte[] root = fsmFile.readBlock((long) ROOT_PAGE * pageSize);
+        for (int leaf = 0; leaf < pageSize; leaf++) {
+            if ((root[leaf] & 0xFF) < category) {
+                continue;
+            }
+
+            byte[] leafPage = fsmFile.readBlock(leafOffset(leaf));
+            for (int i = 0; i < pageSize; i++) {
+                long blockOffset = ((long) leaf * pageSize + i) * pageSize;
+                if ((leafPage[i] & 0xFF) >= category && claim.test(blockOffset)) {
+                    return blockOffset;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 블록의 남은 공간 기록
+     */
+    public void update(long blockOffset, int freeSpace) throws IOException {
+        long blockNo = blockOffset / pageSize;
+        int leaf = (int) (blockNo / pageSize);
+        int index = (int) (blockNo % pageSize);
+        if (leaf >= pageSize) {
+            throw new IOException("FSM 이 관리할 수 있는 블록 수를 넘었습니다: " + blockNo);
+        }
+
+        int category = Math.min(255, Math.max(0, freeSpace) / categoryUnit);
+
+        ReentrantLock leafLock = stripes[leaf % DbConst.FSM_LOCK_STRIPES];
+        leafLock.lock();
+        try {
+            byte[] leafPage = fsmFile.readBlock(leafOffset(leaf));
+            int old = leafPage[index] & 0xFF;
+            if (old == category) {
+                return;
+            }
+            leafPage[index] = (byte) category;
+            fsmFile.writeBlock(leafOffset(leaf), leafPage);
+
+            // 루트에는 리프의 최대 등급을 유지 (루트의 이 리프 칸은 리프 잠금을 잡은 쪽만 바꾼다)
+            ReentrantLock rootLock = stripes[DbConst.FSM_LOCK_STRIPES];
+            rootLock.lock();
+            try {
+                byte[] root = fsmFile.readBlock((long) ROOT_PAGE * pageSize);
+                int rootCategory = root[leaf] & 0xFF;
+                if (category > rootCategory) {
+                    root[leaf] = (byte) category;
+                } else if (old == rootCategory) {
+                    int max = 0;
+                    for (byte b : leafPage) {
+                        max = Math.max(max, b & 0xFF);
+                    }
+                    root[leaf] = (byte) max;
+                } else {
+                    return;
+                }
+                fsmFile.writeBlock((long) ROOT_PAGE * pageSize, root);
+            } finally {
+                rootLock.unlock();
+            }
+        } finally {
+            leafLock.unlock();
+        }
+    }
+
+    /**
+     * 데이터 블록의 남은 공간을 읽어서 FSM 다시 만들기
+     */
+    public void rebuild(long dataStart) throws IOException {
+        fsmFile.writeBlock((long) ROOT_PAGE * pageSize, new byte[pageSize]);
+
+        for (long offset = dataStart; offset < dataFile.length(); offset += pageSize) {
+            update(offset, SlottedPage.freeSpace(dataFile.readBlock(offset)));
+        }
+    }
+
+    private long leafOffset(int leaf) {
+        return (long) (leaf + 1) * pageSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fsmFile.close();
+    }
+}
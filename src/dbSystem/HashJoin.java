@@ -0,0 +1,364 @@
+package dbSystem;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 아무 컬럼으로나 조인할 수 있는 hybrid hash join (left.keyField = right.keyField)
+ *
+ * 레코드 수가 적은 쪽(build)으로 메모리에 해시 테이블을 만들고 다른 쪽(probe)을 한 번 읽으면서 찾는다.
+ * build 가 메모리 한도를 넘으면 key 의 해시로 partitions 개로 나눠서, 0번 partition 만 메모리에 남기고
+ * 나머지는 임시 파일(조인마다 만드는 SpillDirectory 안)로 내보낸다. probe 레코드도 같은 해시로 나눠서 0번은 바로 찾고 나머지는 파일에 쓴 뒤,
+ * partition 마다 같은 방법으로 다시 조인한다 (grace). partition 이 여전히 크면 다른 해시로 한 번 더 나누고,
+ * 한 key 에 레코드가 몰려서 나눌 수 없으면 build 를 한도만큼씩 잘라 probe 를 여러 번 읽는다.
+ *
+ * 커서는 정렬되어 있지 않아도 되고, key 가 null 인 레코드는 조인되지 않는다.
+ * key 는 저장된 필드 바이트 그대로 KeyComparator 로 비교한다 (해시도 뒤를 채운 공백을 빼고 바이트로 구한다).
+ * partition 파일에는 그 바이트를 행 끝의 컬럼 하나에 담아 둔다.
+ */
+public class HashJoin {
+
+    // 이 깊이까지 나눠도 한도를 넘으면 build 를 잘라서 조인한다
+    private static final int MAX_DEPTH = 3;
+
+    /**
+     * key 가 null 이 아닌 행과 그 key 를 받는 곳, 넘기는 배열은 다음 행에서 다시 쓴다
+     */
+    private interface KeyedRowConsumer {
+        void accept(Key key, String[] row) throws IOException;
+    }
+
+    /**
+     * 행 묶음을 처음부터 한 번 읽어서 넘겨주는 곳 (커서 또는 partition 파일)
+     */
+    private interface RowSource {
+        void forEach(KeyedRowConsumer consumer) throws IOException;
+    }
+
+    private final long memoryLimit;
+    private final int partitions;
+
+    private boolean buildIsLeft;
+    private int buildWidth;
+    private int probeWidth;
+    private SpillDirectory spillDir;
+    private JoinSink sink;
+
+    private long joinCount;
+    private int spilledPartitions;
+    private int maxDepth;
+
+    public HashJoin() {
+        this(DbConst.JOIN_MEMORY, DbConst.HASH_JOIN_PARTITIONS);
+    }
+
+    public HashJoin(long memoryLimit, int partitions) {
+        if (partitions < 2) {
+            throw new IllegalArgumentException("partition 수는 2 이상이어야 합니다: " + partitions);
+        }
+        this.memoryLimit = memoryLimit;
+        this.partitions = partitions;
+    }
+
+    /**
+     * 두 커서를 각자의 key 필드로 조인하고 결과 쌍의 수 반환, 커서는 호출한 쪽에서 닫는다.
+     */
+    public long join(RangeCursor left, RangeCursor right, JoinSink sink) throws IOException {
+        JfrEvents.Join event = new JfrEvents.Join();
+        event.begin();
+        long start = System.nanoTime();
+
+        // 레코드 수를 모르면 (예전 형식 파일) 왼쪽을 build 로 쓴다
+        long leftCount = left.getTableRecordCount();
+        long rightCount = right.getTableRecordCount();
+        buildIsLeft = leftCount < 0 || rightCount < 0 || leftCount <= rightCount;
+
+        RangeCursor build = buildIsLeft ? left : right;
+        RangeCursor probe = buildIsLeft ? right : left;
+        buildWidth = build.getSchema().getColumnCount();
+        probeWidth = probe.getSchema().getColumnCount();
+        this.sink = sink;
+        joinCount = 0;
+        spilledPartitions = 0;
+        maxDepth = 0;
+
+        sink.begin(MergeJoin.qualifiedColumns(left.getSchema()), MergeJoin.qualifiedColumns(right.getSchema()));
+        try (SpillDirectory spill = new SpillDirectory(build.getSchema().getTableName() + ".hash")) {
+            spillDir = spill;
+            join(cursorSource(build, buildWidth), cursorSource(probe, probeWidth), 0);
+        } finally {
+            spillDir = null;
+        }
+        sink.end(joinCount);
+        Metrics.recordJoin(JoinPlanner.Method.HASH, left, right, joinCount, start, event);
+        return joinCount;
+    }
+
+    /**
+     * 임시 파일로 내보낸 partition 수 (하위 partition 포함)
+     */
+    public int getSpilledPartitions() {
+        return spilledPartitions;
+    }
+
+    /**
+     * 가장 깊게 나눈 단계 (0 이면 메모리 안에서 끝남)
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    private void join(RowSource build, RowSource probe, int depth) throws IOException {
+        maxDepth = Math.max(maxDepth, depth);
+        if (depth > MAX_DEPTH) {
+            chunkedJoin(build, probe);
+            return;
+        }
+
+        HashTable table = new HashTable();
+        RowBuffer[] buildParts = new RowBuffer[partitions];
+        RowBuffer[] probeParts = new RowBuffer[partitions];
+        // 메모리에 남아 있는 partition (-1 이면 모두 파일로 내보냄, partitions 면 아직 나누지 않음)
+        int[] resident = {partitions};
+
+        try {
+            build.forEach((key, row) -> {
+                int part = resident[0] == partitions ? -1 : partitionOf(key, depth);
+                if (part != -1 && part != resident[0]) {
+                    spill(buildParts, part, buildWidth, key, row);
+                    return;
+                }
+
+                table.add(key, row);
+                if (table.memoryUsed <= memoryLimit) {
+                    return;
+                }
+                if (resident[0] == partitions) {
+                    // 처음 한도를 넘었다: 0번 partition 만 남기고 나머지를 파일로
+                    resident[0] = 0;
+                    table.evict(buildParts, depth, 0);
+                }
+                if (table.memoryUsed > memoryLimit) {
+                    // 0번 partition 만으로도 넘으면 그것도 파일로
+                    resident[0] = -1;
+                    table.evict(buildParts, depth, -1);
+                }
+            });
+
+            // probe: 메모리에 있는 partition 은 바로 찾고, 나머지는 같은 partition 파일에 쓴다
+            probe.forEach((key, row) -> {
+                int part = resident[0] == partitions ? -1 : partitionOf(key, depth);
+                if (part == -1 || part == resident[0]) {
+                    probeRow(table, key, row);
+                } else if (buildParts[part] != null) {
+                    spill(probeParts, part, probeWidth, key, row);
+                }
+            });
+            table.clear();
+
+            for (int p = 0; p < partitions; p++) {
+                if (buildParts[p] == null || probeParts[p] == null) {
+                    continue;
+                }
+                spilledPartitions++;
+                join(partitionSource(buildParts[p], buildWidth), partitionSource(probeParts[p], probeWidth), depth + 1);
+                buildParts[p].clear();
+                probeParts[p].clear();
+            }
+        } finally {
+            closeAll(buildParts);
+            closeAll(probeParts);
+        }
+    }
+
+    /**
+     * 해시로 더 나눌 수 없을 때: build 를 한도만큼씩 메모리에 올리고 그때마다 probe 를 처음부터 읽는다.
+     */
+    private void chunkedJoin(RowSource build, RowSource probe) throws IOException {
+        HashTable table = new HashTable();
+        KeyedRowConsumer probeAll = (key, row) -> probeRow(table, key, row);
+
+        build.forEach((key, row) -> {
+            table.add(key, row);
+            if (table.memoryUsed > memoryLimit) {
+                probe.forEach(probeAll);
+                table.clear();
+            }
+        });
+        if (table.size > 0) {
+            probe.forEach(probeAll);
+        }
+    }
+
+    private void probeRow(HashTable table, Key key, String[] probeRow) throws IOException {
+        List<String[]> matches = table.rows.get(key);
+        if (matches == null) {
+            return;
+        }
+        for (String[] buildRow : matches) {
+            if (buildIsLeft) {
+                sink.accept(buildRow, probeRow);
+            } else {
+                sink.accept(probeRow, buildRow);
+            }
+        }
+        joinCount += matches.size();
+    }
+
+    /**
+     * partition 파일에 행을 쓴다, key 바이트는 행 끝의 컬럼 하나에 담는다
+     */
+    private void spill(RowBuffer[] parts, int part, int width, Key key, String[] row) throws IOException {
+        if (parts[part] == null) {
+            // 한도 0: 첫 행부터 파일에 쓴다
+            parts[part] = new RowBuffer(width + 1, 0, spillDir, "part" + part);
+        }
+        String[] keyed = Arrays.copyOf(row, width + 1);
+        keyed[width] = key.toColumn();
+        parts[part].add(keyed);
+    }
+
+    /**
+     * 단계마다 다른 해시를 써야 한 번 더 나눌 때 다시 고르게 퍼진다
+     */
+    private int partitionOf(Key key, int depth) {
+        int h = key.hash ^ (depth * 0x9E3779B9);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, partitions);
+    }
+
+    /**
+     * 커서의 행, key 는 레코드에 저장된 필드 바이트 (null 이면 건너뛴다)
+     */
+    private static RowSource cursorSource(RangeCursor cursor, int width) {
+        int keyField = cursor.getKeyFieldIndex();
+        String[] row = new String[width];
+        return consumer -> {
+            while (cursor.next()) {
+                byte[] key = cursor.row().binary().copyField(keyField);
+                if (key == null) {
+                    continue;
+                }
+                cursor.row().copyTo(row);
+                consumer.accept(new Key(key), row);
+            }
+        };
+    }
+
+    /**
+     * spill 로 쓴 partition 파일의 행, 끝의 key 컬럼을 떼어서 넘긴다
+     */
+    private static RowSource partitionSource(RowBuffer buffer, int width) {
+        String[] row = new String[width];
+        return consumer -> buffer.forEach(keyed -> {
+            System.arraycopy(keyed, 0, row, 0, width);
+            consumer.accept(Key.fromColumn(keyed[width]), row);
+        });
+    }
+
+    private static void closeAll(RowBuffer[] buffers) throws IOException {
+        for (RowBuffer buffer : buffers) {
+            if (buffer != null) {
+                buffer.close();
+            }
+        }
+    }
+
+    /**
+     * 조인 key, 저장된 필드 바이트 (길이가 다른 필드끼리도 뒤를 채운 공백을 빼고 같으면 같다)
+     */
+    private static final class Key {
+        final byte[] bytes;
+        final int hash;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            int h = 1;
+            for (int i = 0, n = KeyComparator.trimmedLength(bytes, 0, bytes.length); i < n; i++) {
+                h = 31 * h + bytes[i];
+            }
+            this.hash = h;
+        }
+
+        /**
+         * partition 파일의 컬럼으로 (바이트 하나를 글자 하나로, 다시 읽을 때 그대로 돌아온다)
+         */
+        String toColumn() {
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        static Key fromColumn(String column) {
+            return new Key(column.getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && KeyComparator.compare(bytes, ((Key) o).bytes) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * key → build 행 목록, 들어 있는 행의 크기를 어림해서 센다
+     */
+    private class HashTable {
+        final Map<Key, List<String[]>> rows = new HashMap<>();
+        long memoryUsed;
+        int size;
+
+        void add(Key key, String[] row) {
+            List<String[]> list = rows.get(key);
+            if (list == null) {
+                list = new ArrayList<>(1);
+                rows.put(key, list);
+                memoryUsed += 64 + key.bytes.length;
+            }
+            list.add(row.clone());
+            memoryUsed += RowBuffer.estimateSize(row);
+            size++;
+        }
+
+        /**
+         * keep 이 아닌 partition 의 행을 모두 파일로 옮긴다 (keep 이 -1 이면 전부)
+         */
+        void evict(RowBuffer[] parts, int depth, int keep) throws IOException {
+            List<Key> moved = new ArrayList<>();
+            for (Map.Entry<Key, List<String[]>> entry : rows.entrySet()) {
+                Key key = entry.getKey();
+                int part = partitionOf(key, depth);
+                if (part == keep) {
+                    continue;
+                }
+                for (String[] row : entry.getValue()) {
+                    spill(parts, part, buildWidth, key, row);
+                    memoryUsed -= RowBuffer.estimateSize(row);
+                    size--;
+                }
+                memoryUsed -= 64 + key.bytes.length;
+                moved.add(key);
+            }
+            for (Key key : moved) {
+                rows.remove(key);
+            }
+        }
+
+        void clear() {
+            rows.clear();
+            memoryUsed = 0;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dbSystem;
+
+import java.io.IOException;
+
+/**
+ * 바깥(outer) 테이블의 레코드마다 안쪽(inner) 테이블의 search key 인덱스로 같은 key 를 찾는 조인
+ *
+ * outer 를 한 번 읽고, inner 는 outer 레코드마다 인덱스로 key 위치에 가서 같은 key 의 레코드만 읽는다.
+ * outer 가 inner 보다 훨씬 작으면 inner 전체를 읽는 대신 |outer| × (인덱스 높이 + 1) 블록만 읽는다.
+ * key 가 null 인 레코드는 조인되지 않는다.
+ */
+public class IndexNestedLoopJoin {
+
+    /**
+     * outer 의 key 필드와 inner 의 search key 로 조인하고 결과 쌍의 수 반환, 커서는 호출한 쪽에서 닫는다.
+     * outerIsLeft 가 false 면 sink 에는 (inner, outer) 순서로 넘긴다.
+     */
+    public static long join(RangeCursor outer, RangeCursor inner, boolean outerIsLeft, JoinSink sink)
+            throws IOException {
+        if (inner.getIndexHeight() < 0) {
+            throw new IllegalArgumentException(inner.getSchema().getTableName()
+                    + " 테이블에 조인 key 의 인덱스가 없어 index nested loop join 을 할 수 없습니다.");
+        }
+        JfrEvents.Join event = new JfrEvents.Join();
+        event.begin();
+        long start = System.nanoTime();
+
+        TableSchema outerSchema = outer.getSchema();
+        TableSchema innerSchema = inner.getSchema();
+        int outerKey = outer.getKeyFieldIndex();
+        String[] outerValues = new String[outerSchema.getColumnCount()];
+        String[] innerValues = new String[innerSchema.getColumnCount()];
+
+        if (outerIsLeft) {
+            sink.begin(MergeJoin.qualifiedColumns(outerSchema), MergeJoin.qualifiedColumns(innerSchema));
+        } else {
+            sink.begin(MergeJoin.qualifiedColumns(innerSchema), MergeJoin.qualifiedColumns(outerSchema));
+        }
+
+        long joinCount = 0;
+        while (outer.next()) {
+            String key = outer.row().get(outerKey);
+            if (key == null) {
+                continue;
+            }
+            outer.row().copyTo(outerValues);
+
+            inner.seek(key, key);
+            while (inner.next()) {
+                inner.row().copyTo(innerValues);
+                if (outerIsLeft) {
+                    sink.accept(outerValues, innerValues);
+                } else {
+                    sink.accept(innerValues, outerValues);
+                }
+                joinCount++;
+            }
+        }
+
+        sink.end(joinCount);
+        Metrics.recordJoin(JoinPlanner.Method.INDEX_NESTED_LOOP, outer, inner, joinCount, start, event);
+        return joinCount;
+    }
+}
@@ -0,0 +1,123 @@
+package dbSystem;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR(Java Flight Recorder) 이벤트, 기록 중일 때만 남는다.
+ *
+ * 예: java -XX:StartFlightRecording=filename=db.jfr ... 로 실행한 뒤 jfr print --categories dbSystem db.jfr
+ * 기록하지 않을 때는 shouldCommit 이 false 라 필드를 채우지 않는다.
+ * 블록 I/O 는 건수가 많아 기본으로 1 ms 이상 걸린 것만 남긴다 (설정 파일의 threshold 로 바꿀 수 있다).
+ */
+final class JfrEvents {
+
+    private JfrEvents() {
+    }
+
+    @Name("dbSystem.BlockRead")
+    @Label("Block Read")
+    @Category("dbSystem")
+    @Description("버퍼 풀이 디스크에서 블록 읽기")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static class BlockRead extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Block")
+        long blockNo;
+
+        @Label("Bytes")
+        @DataAmount
+        int bytes;
+    }
+
+    @Name("dbSystem.BlockWrite")
+    @Label("Block Write")
+    @Category("dbSystem")
+    @Description("버퍼 풀이 dirty 페이지를 디스크에 쓰기")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static class BlockWrite extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Block")
+        long blockNo;
+
+        @Label("Bytes")
+        @DataAmount
+        int bytes;
+    }
+
+    @Name("dbSystem.MetadataLoad")
+    @Label("Metadata Load")
+    @Category("dbSystem")
+    @Description("캐시에 없는 테이블 스키마 로드")
+    static class MetadataLoad extends Event {
+        @Label("Table")
+        String table;
+
+        @Label("Source")
+        @Description("file (파일 헤더) 또는 database (JDBC 메타데이터)")
+        String source;
+    }
+
+    @Name("dbSystem.Insert")
+    @Label("Sorted Insert")
+    @Category("dbSystem")
+    @StackTrace(false)
+    static class Insert extends Event {
+        @Label("Table")
+        String table;
+
+        @Label("Rid")
+        long rid;
+
+        @Label("Chain Hops")
+        @Description("삽입 위치를 찾으며 따라간 레코드 수")
+        int chainHops;
+    }
+
+    @Name("dbSystem.RangeScan")
+    @Label("Range Scan")
+    @Category("dbSystem")
+    @Description("RangeCursor 를 열고 닫을 때까지")
+    static class RangeScan extends Event {
+        @Label("Table")
+        String table;
+
+        @Label("Key Field")
+        String keyField;
+
+        @Label("Examined")
+        long examined;
+
+        @Label("Returned")
+        long returned;
+    }
+
+    @Name("dbSystem.Join")
+    @Label("Join")
+    @Category("dbSystem")
+    static class Join extends Event {
+        @Label("Method")
+        String method;
+
+        @Label("Left")
+        String left;
+
+        @Label("Right")
+        String right;
+
+        @Label("Rows")
+        long rows;
+    }
+}
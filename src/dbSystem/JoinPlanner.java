@@ -0,0 +1,111 @@
+package dbSystem;
+
+import java.io.IOException;
+
+/**
+ * 두 커서의 조인 방법을 읽을 블록 수로 어림해서 고른다
+ *
+ * merge join, hash join : 양쪽 전체를 한 번씩 읽는다. merge join 은 양쪽이 key 순서일 때만 쓸 수 있다.
+ * index nested loop join : outer 전체 + outer 레코드 수 × (inner 인덱스 높이 + 1) 블록을 한 블록씩 찾아 읽는다.
+ *                          inner 의 조인 key 가 search key 이고 인덱스가 있어야 하며, 양쪽 방향을 모두 따져 본다.
+ * 한 블록씩 찾아 읽는 비용은 RANDOM_READ_COST 배로 친다.
+ */
+public class JoinPlanner {
+
+    public enum Method {
+        INDEX_NESTED_LOOP("Index Nested Loop Join"),
+        MERGE("Sort-Merge Join"),
+        HASH("Hash Join");
+
+        private final String displayName;
+
+        Method(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 고른 조인 방법과 어림한 비용
+     */
+    public static class Plan {
+        private final Method method;
+        // index nested loop join 에서 왼쪽 테이블이 outer 인지
+        private final boolean outerIsLeft;
+        private final double cost;
+        private final double scanCost;
+
+        Plan(Method method, boolean outerIsLeft, double cost, double scanCost) {
+            this.method = method;
+            this.outerIsLeft = outerIsLeft;
+            this.cost = cost;
+            this.scanCost = scanCost;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        public boolean isOuterLeft() {
+            return outerIsLeft;
+        }
+
+        public double getCost() {
+            return cost;
+        }
+
+        @Override
+        public String toString() {
+            String text = String.format("%s (예상 비용 %.0f, 양쪽 전체 읽기 %.0f)", method.getDisplayName(), cost, scanCost);
+            return method == Method.INDEX_NESTED_LOOP ? text + ", outer: " + (outerIsLeft ? "왼쪽" : "오른쪽") : text;
+        }
+    }
+
+    /**
+     * left.key = right.key 조인의 방법 고르기
+     */
+    public static Plan plan(RangeCursor left, RangeCursor right) throws IOException {
+        double scanCost = left.getPageCount() + right.getPageCount();
+        Plan best = new Plan(left.isSorted() && right.isSorted() ? Method.MERGE : Method.HASH, true, scanCost, scanCost);
+
+        Plan leftOuter = indexNestedLoop(left, right, true, scanCost);
+        if (leftOuter != null && leftOuter.cost < best.cost) {
+            best = leftOuter;
+        }
+        Plan rightOuter = indexNestedLoop(right, left, false, scanCost);
+        if (rightOuter != null && rightOuter.cost < best.cost) {
+            best = rightOuter;
+        }
+        return best;
+    }
+
+    /**
+     * 고른 방법으로 조인하고 결과 쌍의 수 반환
+     */
+    public static long execute(Plan plan, RangeCursor left, RangeCursor right, JoinSink sink) throws IOException {
+        switch (plan.method) {
+            case INDEX_NESTED_LOOP:
+                return plan.outerIsLeft
+                        ? IndexNestedLoopJoin.join(left, right, true, sink)
+                        : IndexNestedLoopJoin.join(right, left, false, sink);
+            case MERGE:
+                return MergeJoin.join(left, right, sink);
+            default:
+                return new HashJoin().join(left, right, sink);
+        }
+    }
+
+    private static Plan indexNestedLoop(RangeCursor outer, RangeCursor inner, boolean outerIsLeft, double scanCost)
+            throws IOException {
+        long outerRecords = outer.getTableRecordCount();
+        int innerHeight = inner.getIndexHeight();
+        if (outerRecords < 0 || innerHeight < 0) {
+            return null;
+        }
+        double cost = outer.getPageCount() + outerRecords * (innerHeight + 1) * DbConst.RANDOM_READ_COST;
+        return new Plan(Method.INDEX_NESTED_LOOP, outerIsLeft, cost, scanCost);
+    }
+}
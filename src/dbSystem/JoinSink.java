@@ -0,0 +1,29 @@
+package dbSystem;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 조인 결과를 한 쌍씩 받는 곳 (출력, 파일, 집계 등)
+ *
+ * accept 로 넘기는 배열은 조인 연산자가 다시 쓰므로, 보관하려면 복사해야 한다.
+ */
+public interface JoinSink {
+
+    /**
+     * 첫 결과보다 먼저 한 번 호출, 양쪽 테이블의 컬럼 이름 ("테이블.컬럼")
+     */
+    default void begin(List<String> leftColumns, List<String> rightColumns) throws IOException {
+    }
+
+    /**
+     * 조인 조건을 만족하는 레코드 한 쌍, 값은 컬럼 순서대로이고 null 은 null
+     */
+    void accept(String[] left, String[] right) throws IOException;
+
+    /**
+     * 마지막 결과 다음에 한 번 호출
+     */
+    default void end(long joinCount) throws IOException {
+    }
+}
@@ -0,0 +1,93 @@
+package dbSystem;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * char(n) 필드 값을 디코딩하지 않고 저장된 바이트 그대로 비교하는 비교기
+ *
+ * 필드는 CHARSET 으로 인코딩하고 뒤를 공백(0x20)으로 채워 저장한다. 비교는 부호 없는 바이트 순(memcmp)이고,
+ * 길이가 다르면 짧은 쪽 뒤에 공백이 있는 것으로 본다 (SQL 의 PAD SPACE). 그래서 "ab" 와 "ab   " 는 같고,
+ * 공백으로 채운 B+ 트리 키끼리의 비교와 순서가 같다. 앞쪽 공백은 값의 일부로 비교한다.
+ *
+ * 배열, 시작 위치, 길이로 받으므로 버퍼 풀 페이지나 레코드 버퍼 안의 필드를 복사 없이 비교할 수 있다.
+ * UTF-8 은 바이트 순서가 코드 포인트 순서와 같으므로, 한글 값도 JVM 의 기본 charset 과 상관없이 같은 순서가 된다.
+ */
+public final class KeyComparator {
+
+    /**
+     * char(n) 필드의 인코딩 (JVM 기본값을 쓰지 않는다)
+     */
+    public static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    public static final byte PAD = ' ';
+
+    public static final Comparator<byte[]> ORDER = KeyComparator::compare;
+
+    private KeyComparator() {
+    }
+
+    /**
+     * a[aOffset, aOffset + aLength) 와 b[bOffset, bOffset + bLength) 비교
+     */
+    public static int compare(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength) {
+        int n = Math.min(aLength, bLength);
+        int i = Arrays.mismatch(a, aOffset, aOffset + n, b, bOffset, bOffset + n);
+        if (i >= 0) {
+            return (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+        }
+        // 공통 부분이 같으면 긴 쪽의 나머지를 공백과 비교한다
+        if (aLength > n) {
+            return comparePad(a, aOffset + n, aLength - n);
+        }
+        if (bLength > n) {
+            return -comparePad(b, bOffset + n, bLength - n);
+        }
+        return 0;
+    }
+
+    public static int compare(byte[] a, byte[] b) {
+        return compare(a, 0, a.length, b, 0, b.length);
+    }
+
+    public static boolean equals(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength) {
+        return compare(a, aOffset, aLength, b, bOffset, bLength) == 0;
+    }
+
+    /**
+     * 필드에 저장할 바이트 (null 이면 빈 배열, 공백으로 채우지 않는다)
+     */
+    public static byte[] encode(String value) {
+        return value == null ? new byte[0] : value.getBytes(CHARSET);
+    }
+
+    /**
+     * 필드 바이트를 값으로 (뒤를 채운 PAD 만 제거, 앞쪽 공백은 값의 일부라 남긴다)
+     */
+    public static String decode(byte[] bytes, int offset, int length) {
+        return new String(bytes, offset, trimmedLength(bytes, offset, length), CHARSET);
+    }
+
+    /**
+     * 뒤를 채운 PAD 를 뺀 길이 (UTF-8 의 여러 바이트 문자는 0x80 이상이라 잘리지 않는다)
+     */
+    public static int trimmedLength(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        while (end > offset && bytes[end - 1] == PAD) {
+            end--;
+        }
+        return end - offset;
+    }
+
+    private static int comparePad(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            int diff = (bytes[i] & 0xFF) - PAD;
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+}
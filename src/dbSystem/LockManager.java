@@ -0,0 +1,159 @@
+package dbSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 데이터 파일마다 하나씩 있는, 삽입 트랜잭션끼리의 잠금 (같은 JVM 안에서만 유효)
+ *
+ * key  : 앞 레코드의 rid (HEAD 는 헤더의 첫 레코드 포인터). 새 레코드를 그 뒤에 연결하는 삽입끼리만 기다린다.
+ * page : 트랜잭션이 바꾸는 데이터 페이지. 로그에는 페이지 전체 이미지를 쓰므로 커밋할 때까지 한 트랜잭션만 바꾼다.
+ * commit : 헤더(레코드 수, 첫 레코드 포인터)를 바꾸고 로그에 쓰는 짧은 구간
+ *
+ * 잠그는 순서는 key → 앞 레코드의 page → 레코드를 넣을 page(tryLock 만) → commit 이다.
+ * 기다리면서 잡는 잠금은 key 와 앞 레코드의 page 하나씩뿐이므로 교착 상태가 생기지 않는다.
+ * 잠금은 키마다 ReentrantLock 을 만들고, 쓰는 스레드가 없어지면 표에서 지운다.
+ */
+public class LockManager {
+
+    public static final long HEAD = -1;
+
+    private static final ConcurrentMap<String, LockManager> MANAGERS = new ConcurrentHashMap<>();
+
+    private final Map<Long, Entry> keys = new HashMap<>();
+    private final Map<Long, Entry> pages = new HashMap<>();
+    private final ReentrantLock commit = new ReentrantLock();
+    // 로그를 쓰지 않는 파일(MAPPED)은 삽입을 한 번에 하나씩
+    private final ReentrantLock serial = new ReentrantLock();
+    // MAPPED 파일을 늘리는 구간 (그 파일의 모든 핸들이 같이 쓴다)
+    private final ReentrantLock extend = new ReentrantLock();
+
+    // 아직 커밋하지 않은 트랜잭션이 파일 끝에 새로 잡은 블록까지의 길이
+    private long reservedEnd;
+
+    // 통계
+    private long keyWaits;
+    private long pageWaits;
+
+    public static LockManager of(String fileId) {
+        return MANAGERS.computeIfAbsent(fileId, id -> new LockManager());
+    }
+
+    /**
+     * 파일을 새로 만들거나 교체했을 때 호출 (writer 잠금 안에서), 예약한 블록 위치를 잊는다.
+     */
+    public static void reset(String dataFileName) throws IOException {
+        LockManager manager = MANAGERS.get(new File(dataFileName).getCanonicalPath());
+        if (manager != null) {
+            synchronized (manager) {
+                manager.reservedEnd = 0;
+            }
+        }
+    }
+
+    public void lockKey(long rid) {
+        acquire(keys, rid, true);
+    }
+
+    public void unlockKey(long rid) {
+        release(keys, rid);
+    }
+
+    public void lockPage(long blockNo) {
+        acquire(pages, blockNo, true);
+    }
+
+    /**
+     * 다른 트랜잭션이 잡고 있으면 기다리지 않고 false
+     */
+    public boolean tryLockPage(long blockNo) {
+        return acquire(pages, blockNo, false);
+    }
+
+    public void unlockPage(long blockNo) {
+        release(pages, blockNo);
+    }
+
+    ReentrantLock commitLock() {
+        return commit;
+    }
+
+    ReentrantLock serialLock() {
+        return serial;
+    }
+
+    ReentrantLock extendLock() {
+        return extend;
+    }
+
+    /**
+     * 파일 끝에 새 블록 하나를 예약하고 그 오프셋 반환, end 는 호출한 쪽이 아는 파일 길이(블록 경계)
+     */
+    synchronized long reserveBlock(long end, int blockSize) {
+        long offset = Math.max(end, reservedEnd);
+        reservedEnd = offset + blockSize;
+        return offset;
+    }
+
+    public synchronized long getKeyWaits() {
+        return keyWaits;
+    }
+
+    public synchronized long getPageWaits() {
+        return pageWaits;
+    }
+
+    private boolean acquire(Map<Long, Entry> table, long id, boolean wait) {
+        Entry entry;
+        synchronized (this) {
+            entry = table.computeIfAbsent(id, k -> new Entry());
+            entry.users++;
+        }
+        if (entry.lock.tryLock()) {
+            return true;
+        }
+        if (wait) {
+            synchronized (this) {
+                if (table == keys) {
+                    keyWaits++;
+                } else {
+                    pageWaits++;
+                }
+            }
+            entry.lock.lock();
+            return true;
+        }
+        synchronized (this) {
+            leave(table, id, entry);
+        }
+        return false;
+    }
+
+    private void release(Map<Long, Entry> table, long id) {
+        synchronized (this) {
+            Entry entry = table.get(id);
+            if (entry == null || !entry.lock.isHeldByCurrentThread()) {
+                throw new IllegalStateException("잡지 않은 잠금을 풀려고 합니다: " + id);
+            }
+            entry.lock.unlock();
+            leave(table, id, entry);
+        }
+    }
+
+    private void leave(Map<Long, Entry> table, long id, Entry entry) {
+        if (--entry.users == 0) {
+            table.remove(id);
+        }
+    }
+
+    private static final class Entry {
+        final ReentrantLock lock = new ReentrantLock();
+        // 잡고 있거나 기다리는 횟수 (재진입 포함), 0 이 되면 표에서 지운다
+        int users;
+    }
+}
@@ -0,0 +1,88 @@
+package dbSystem;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * 엔진이 찍는 진행, 경고 메시지 (메뉴나 검색 결과처럼 사용자에게 보여 주는 출력은 여기로 보내지 않는다)
+ *
+ * 레벨은 -DdbSystem.log.level=debug 처럼 정하고 기본은 INFO 다.
+ * 삽입 한 건마다 찍던 메시지는 DEBUG 라서 기본으로는 문자열도 만들지 않는다.
+ * 레벨이 static final 이라 isDebugEnabled 로 감싼 코드는 JIT 가 지운다.
+ * 기본으로는 System.out 에 찍고, 서버 모드처럼 System.out 을 바꾸는 쪽은 그 전에 setOutput 으로 출력을 정한다.
+ */
+public final class Log {
+
+    public enum Level {
+        OFF, ERROR, WARN, INFO, DEBUG;
+
+        /**
+         * "info", "debug" 같은 설정 값 해석
+         */
+        public static Level parse(String value) {
+            for (Level level : values()) {
+                if (level.name().equalsIgnoreCase(value)) {
+                    return level;
+                }
+            }
+            throw new IllegalArgumentException("알 수 없는 로그 레벨: " + value);
+        }
+    }
+
+    private static volatile PrintStream output = System.out;
+
+    private Log() {
+    }
+
+    /**
+     * 메시지를 찍을 곳 바꾸기 (이후에 System.out 을 바꿔도 따라가지 않는다)
+     */
+    public static void setOutput(PrintStream stream) {
+        output = stream;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(DbConst.LOG_LEVEL) <= 0 && level != Level.OFF;
+    }
+
+    public static boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    /**
+     * 삽입, 검색 한 건마다 찍는 메시지, 호출하는 쪽에서 isDebugEnabled 로 감싼다.
+     */
+    public static void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    /**
+     * 메시지 다음에 cause 의 스택 트레이스를 붙여서 찍는다
+     */
+    public static void warn(String message, Throwable cause) {
+        if (isEnabled(Level.WARN)) {
+            StringWriter trace = new StringWriter();
+            cause.printStackTrace(new PrintWriter(trace));
+            log(Level.WARN, message + System.lineSeparator() + trace.toString().stripTrailing());
+        }
+    }
+
+    public static void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    private static void log(Level level, String message) {
+        if (isEnabled(level)) {
+            output.println(message);
+        }
+    }
+}
@@ -1,13 +1,11 @@
 package dbSystem;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.sql.*;
 import java.util.*;
 
@@ -16,22 +14,18 @@ import static dbSystem.DbConst.*;
 import javax.swing.plaf.nimbus.State;
 
 public class Main {
-    private static Connection con = null;
     public static Scanner scanner = new Scanner(System.in);
 
-    // 블록 크기 상수 정의
-    private static final int BLOCK_SIZE = 40;
+    // 새 파일의 기본 페이지 크기 (-DdbSystem.pageSize 로 변경)
+    static final int DEFAULT_PAGE_SIZE = Integer.getInteger("dbSystem.pageSize", 4096);
 
-    private static byte[] readBlock(RandomAccessFile raf, long blockOffset) throws IOException {
-        byte[] blockData = new byte[BLOCK_SIZE];
-        raf.seek(blockOffset);
-        raf.read(blockData);
-        return blockData;
+    // 블록 읽기/쓰기는 모두 공용 버퍼 풀을 거친다
+    private static byte[] readBlock(BlockFile file, long blockOffset) throws IOException {
+        return file.readBlock(blockOffset);
     }
 
-    private static void writeBlock(RandomAccessFile raf, long blockOffset, byte[] blockData) throws IOException {
-        raf.seek(blockOffset);
-        raf.write(blockData);
+    private static void writeBlock(BlockFile file, long blockOffset, byte[] blockData) throws IOException {
+        file.writeBlock(blockOffset, blockData);
     }
 
     /**
@@ -54,8 +48,11 @@ public class Main {
         blockData[offset + 3] = (byte) value;
     }
 
-    public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DbConst.DB_URL, DbConst.USER, DbConst.PASS);
+    /**
+     * 공용 커넥션 풀에서 커넥션 빌리기, 사용 후 close() 로 반납
+     */
+    public static PooledConnection getConnection() throws SQLException {
+        return ConnectionPool.getInstance().borrow();
     }
 
     // 순차파일 생성
@@ -64,7 +61,6 @@ public class Main {
         String inputText = scanner.next();
 
         String[] splitResult = inputText.split(",");
-        String fileName = splitResult[0] + ".txt";
 
         LinkedHashMap<String, Integer> map = new LinkedHashMap<>();
         int half = (splitResult.length - 1) / 2;
@@ -77,44 +73,91 @@ public class Main {
             System.out.println(i + ". " + key + " (길이: " + value + ")");
         }
 
-        // 파일 생성하기
+        try {
+            createSequentialFile(splitResult[0], map, DEFAULT_PAGE_SIZE, DbConst.STORAGE_MODE);
+        } catch (RuntimeException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * 주어진 컬럼 구성, 페이지 크기, 저장 방식으로 순차 파일과 테이블 생성
+     * 파일이나 DB 테이블을 만들지 못하면 RuntimeException 을 던진다.
+     */
+    public static void createSequentialFile(String tableName, LinkedHashMap<String, Integer> map,
+                                            int pageSize, StorageMode storageMode) {
+        String fileName = tableName + ".txt";
+        FileHeader.checkPageSize(pageSize);
+
+        // 기존 카탈로그 무효화 후 새 스키마 구성
+        int version = SchemaCatalog.invalidate(tableName);
+        TableSchema tableSchema = new TableSchema(tableName, version,
+                new ArrayList<>(map.keySet()), new ArrayList<>(map.values()));
+
+        // 레코드는 슬롯 하나와 함께 한 페이지 안에 들어가야 한다
+        int maxRecordLength = tableSchema.recordLength((byte) 0);
+        if (maxRecordLength > pageSize - SlottedPage.HEADER_SIZE - SlottedPage.SLOT_SIZE) {
+            throw new IllegalArgumentException("레코드 최대 길이(" + maxRecordLength + ")가 페이지 크기("
+                    + pageSize + ")보다 큽니다.");
+        }
+        System.out.println("페이지 크기: " + pageSize + " 바이트, 저장 방식: " + storageMode);
+
+        // 파일을 새로 만드는 동안에는 쓰기와 읽기 모두 기다리게 한다
+        TableLocks locks = TableLocks.of(tableName);
+        locks.writer().lock();
+        locks.swapWrite().lock();
+
+        // 파일 생성하기 (예전 파일의 로그는 버린다)
+        try {
+            WriteAheadLog.discard(fileName);
+            LockManager.reset(fileName);
+        } catch (IOException e) {
+            System.out.println("로그 삭제 중 오류 발생: " + e.getMessage());
+        }
         FileUtil.createTxtFile(fileName);
 
         // 블록 I/O로 헤더 블록 초기화
-        try (RandomAccessFile raf = new RandomAccessFile(fileName, "rw")) {
-            // 헤더 블록 생성 (40바이트)
-            byte[] headerBlock = new byte[BLOCK_SIZE];
+        try (BlockFile file = new BlockFile(fileName, "rw", pageSize, storageMode)) {
+            // 예전 파일의 페이지가 버퍼 풀에 남아 있으면 버리고, 예전 FSM 과 인덱스도 삭제
+            BufferPool.getInstance().invalidate(file.getFileId());
+            FreeSpaceMap.delete(fileName);
+            BPlusTree.delete(fileName);
 
-            // 첫 4바이트에 -1 삽입 (첫 레코드 오프셋)
-            putIntToBlock(headerBlock, 0, -1);
+            // 헤더 영역 생성 (첫 레코드 오프셋 -1, 페이지 크기, 저장 방식, 카탈로그 포함)
+            byte[] headerBlock = FileHeader.create(tableSchema, pageSize, storageMode);
 
             // 헤더 블록 쓰기
-            writeBlock(raf, 0, headerBlock);
+            writeBlock(file, 0, headerBlock);
+
+            // 잠금을 놓기 전에 캐시를 새 스키마로 바꾼다 (그 사이 예전 헤더를 캐시한 조회가 있어도 덮어쓴다)
+            SchemaCatalog.publish(tableSchema);
 
             System.out.println("헤더 블록 초기화 성공");
 
         } catch (IOException e) {
             throw new RuntimeException("헤더 블록 초기화 실패", e);
+        } finally {
+            locks.swapWrite().unlock();
+            locks.writer().unlock();
         }
 
         // LinkedHashMap 기반으로 테이블 생성
-        try {
-            con = getConnection();
-            Statement stmt = con.createStatement();
+        try (PooledConnection con = getConnection();
+             Statement stmt = con.createStatement()) {
 
             // 기존 테이블 삭제
-            String tmp = "DROP TABLE IF EXISTS " + splitResult[0];
+            String tmp = "DROP TABLE IF EXISTS " + tableName;
             stmt.execute(tmp);
 
             // 테이블 생성
-            String sql = createTableSql(splitResult[0], map);
+            String sql = createTableSql(tableName, map);
             stmt.execute(sql);
 
             System.out.println("테이블 생성 완료");
-            System.out.println("첫 번째 필드 '" + splitResult[1] + "'가 자동으로 search key로 사용됩니다.");
+            System.out.println("첫 번째 필드 '" + tableSchema.getSearchKey() + "'가 자동으로 search key로 사용됩니다.");
 
         } catch (SQLException e) {
-            System.out.println("테이블 생성 실패: " + e.getMessage());
+            throw new RuntimeException("테이블 생성 실패: " + e.getMessage(), e);
         }
     }
 
@@ -154,7 +197,10 @@ public class Main {
         System.out.println("삽입할 레코드의 개수를 선택하세요");
         int count = scanner.nextInt();
 
-        // 각 레코드 삽입
+        long fileNanos = 0;
+        List<Record> inserted = new ArrayList<>(count);
+
+        // 각 레코드 삽입 (입력을 기다리는 동안 DB 커넥션을 잡고 있지 않도록 DB 반영은 끝난 뒤에 한꺼번에)
         for (int i = 0; i < count; i++) {
             System.out.println("레코드 " + (i+1) + " 입력 (세미콜론으로 필드 구분, 예: 00001;John;A)");
             String inputRecord = scanner.next(); // 사용자가 입력한 레코드 스트링
@@ -164,45 +210,37 @@ public class Main {
             Record formatted = recordFormatting(targetFile, inputRecord);
 
             // search key 기반으로 정렬된 위치에 삽입
+            long start = System.nanoTime();
             insertRecordSorted(targetFile, formatted, searchKeyField);
+            fileNanos += System.nanoTime() - start;
+            inserted.add(formatted);
+        }
 
-            // 위과정은 파일에 삽입하는 과정이었음. 이제, 실제 db 에도 insert 문 날린다.
-            try{
-                con = getConnection();
-                Statement stmt = con.createStatement();
-                StringBuilder sql = new StringBuilder("insert into " + targetFile + " values(");
-
-                LinkedHashMap<String, String> recordMap = formatted.getRecordMap();
-                int j = 0;
-
-                for (Map.Entry<String, String> entry : recordMap.entrySet()) {
-                    String value = entry.getValue();
-                    // null 처리
-                    if (value == null){
-                        sql.append("NULL");
-                    } else {
-                        sql.append("'").append(value).append("'");
-                    }
-
-                    if (j < recordMap.size() - 1){
-                        sql.append(", ");
-                    }
-
-                    j++;
-                }
-
-                sql.append(")");
-
-                System.out.println("실행할 SQL: " + sql.toString());
-                stmt.executeUpdate(sql.toString());
-                System.out.println("DB 테이블에 레코드 삽입 완료");
-
+        System.out.printf("파일에 %d개 레코드 삽입 완료 (%.1f records/sec)%n",
+                count, fileNanos == 0 ? 0 : count * 1_000_000_000.0 / fileNanos);
 
-            } catch (SQLException e) {
-                e.printStackTrace();
+        // 파일에 삽입한 레코드는 실제 db 에도 배치로 insert 한다.
+        try (SqlMirrorWriter mirror = new SqlMirrorWriter(targetFile)) {
+            for (Record record : inserted) {
+                mirror.add(record);
             }
+        } catch (SQLException e) {
+            System.out.println("DB 테이블 반영 실패, 파일에만 삽입되었습니다: " + e.getMessage());
+        }
+    }
 
+    /**
+     * 입력 문자열(세미콜론 구분) 레코드 하나를 파일에 정렬 삽입 (DB 테이블 반영 없음)
+     */
+    public static Record insertRecord(String targetFile, String inputRecord) {
+        String searchKeyField = getFirstColumnName(targetFile);
+        if (searchKeyField == null) {
+            throw new IllegalStateException("테이블 메타데이터를 읽을 수 없습니다: " + targetFile);
         }
+
+        Record formatted = recordFormatting(targetFile, inputRecord);
+        insertRecordSorted(targetFile, formatted, searchKeyField);
+        return formatted;
     }
 
     /**
@@ -210,75 +248,52 @@ public class Main {
      */
     private static String getFirstColumnName(String tableName) {
         try {
-            Connection con = getConnection();
-            DatabaseMetaData meta = con.getMetaData();
-            ResultSet rs = meta.getColumns(null, schema, tableName, "%");
-
-            // ORDINAL_POSITION이 1인 첫 번째 컬럼 찾기
-            String firstName = null;
-            int lowestPosition = Integer.MAX_VALUE;
-
-            while (rs.next()) {
-                String colName = rs.getString("COLUMN_NAME");
-                int position = rs.getInt("ORDINAL_POSITION");
-
-                // 가장 작은 ORDINAL_POSITION을 가진 컬럼 찾기
-                if (position < lowestPosition) {
-                    lowestPosition = position;
-                    firstName = colName;
-                }
-            }
-            rs.close();
-
-            return firstName;
+            return SchemaCatalog.get(tableName).getSearchKey();
         } catch (SQLException e) {
-            System.out.println("테이블 메타데이터 조회 중 오류: " + e.getMessage());
+            Log.error("테이블 메타데이터 조회 중 오류: " + e.getMessage());
             return null;
         }
     }
 
     /**
      * Search Key 기반으로 정렬된 위치에 레코드를 삽입
+     * 진행 메시지는 DEBUG 레벨일 때만 찍고, 걸린 시간과 따라간 레코드 수는 Metrics 와 JFR 이벤트로 남긴다.
      */
     private static void insertRecordSorted(String targetFile, Record record, String searchKeyField) {
-        // 삽입하려는 레코드의 search key 값 가져오기
-        String newKeyValue = record.getRecordMap().get(searchKeyField);
-        if (newKeyValue == null) {
-            System.out.println("경고: 삽입할 레코드에 search key가 null입니다.");
-            newKeyValue = "";  // 빈 문자열은 모든 값보다 작게 비교됨
-        }
+        JfrEvents.Insert event = new JfrEvents.Insert();
+        event.begin();
+        long start = System.nanoTime();
 
-        System.out.println("삽입할 레코드의 " + searchKeyField + " 값: " + newKeyValue);
+        // 삽입하려는 레코드에 저장된 search key 바이트 (체인의 레코드와 같은 형식으로 비교한다)
+        byte[] newKeyBytes = record.getRow().copyField(0);
+        if (newKeyBytes == null) {
+            Log.warn("경고: 삽입할 레코드에 search key가 null입니다.");
+            newKeyBytes = new byte[0];  // 빈 키는 모든 값보다 작게 비교됨
+        }
 
-        // 레코드 바이트 구성
-        byte[] recordBytes = buildRecordBytes(targetFile, record);
-        System.out.println("레코드 크기: " + recordBytes.length + " 바이트");
+        // 레코드 바이트
+        byte[] recordBytes = record.getBytes();
+        if (Log.isDebugEnabled()) {
+            Log.debug("삽입할 레코드의 " + searchKeyField + " 값: " + record.getValue(0));
+            Log.debug("레코드 크기: " + recordBytes.length + " 바이트");
+        }
 
         String fileName = targetFile + ".txt";
-        try (RandomAccessFile raf = new RandomAccessFile(fileName, "rw")) {
-            if (raf.length() < BLOCK_SIZE) {
+        int[] stats = new int[2];
+
+        // 재구성이나 대량 적재 중이면 끝날 때까지 기다린다. 삽입끼리는 같은 앞 레코드나 같은 페이지를 바꿀 때만 기다린다
+        TableLocks locks = TableLocks.of(targetFile);
+        locks.insert().lock();
+        try (BlockFile file = BlockFile.open(fileName, "rw")) {
+            if (file.length() < file.getBlockSize()) {
                 throw new IOException("파일이 너무 작습니다.");
             }
+            // 이 삽입이 바꾸는 페이지는 커밋할 때 로그에 한 번에 쓴다 (중간에 실패하면 close 가 되돌린다)
+            file.beginTransaction();
 
             // 블록 I/O로 헤더 블록 읽기
-            byte[] headerBlock = readBlock(raf, 0);
-            int firstRecOffset = getIntFromBlock(headerBlock, 0);
-
-            // 파일에 아직 레코드가 없는 경우
-            if (firstRecOffset == -1) {
-                // 첫 번째 레코드 삽입
-                long newRecOffset = writeRecordToBlock(raf, recordBytes);
-
-                // 헤더 블록 업데이트
-                putIntToBlock(headerBlock, 0, (int)newRecOffset);
-                writeBlock(raf, 0, headerBlock);
-
-                // 포인터 필드는 0 (마지막 레코드)
-                writePointerField(raf, newRecOffset, targetFile, 0);
-
-                System.out.println("첫 번째 레코드 삽입 완료, 오프셋: " + newRecOffset);
-                return;
-            }
+            byte[] headerBlock = readBlock(file, 0);
+            long dataStart = FileHeader.getDataStart(headerBlock, file.getBlockSize());
 
             // search key 필드의 인덱스 찾기
             int searchKeyIndex = findFieldIndex(targetFile, searchKeyField);
@@ -287,755 +302,478 @@ public class Main {
             }
 
             // 삽입 위치 찾기
-            long prevOffset = -1;
-            long currOffset = firstRecOffset;
-            boolean positionFound = false;
-            Set<Long> visitedOffsets = new HashSet<>();
-
-            while (currOffset != 0 && !positionFound) {
-                if (visitedOffsets.contains(currOffset)) {
-                    System.out.println("경고: 포인터 체인에 순환 참조 감지됨!");
-                    break;
+            // 인덱스로 새 키보다 작은 마지막 레코드를 찾아서 거기서부터 체인을 따라간다 (-1 이면 맨 앞)
+            BPlusTree index = file.getIndex(SchemaCatalog.get(targetFile));
+            // 인덱스 키는 필드 길이만큼 공백으로 채운 바이트, 저장된 필드 그대로다
+            byte[] indexKey = index == null ? null
+                    : record.getRow().isNull(0) ? index.encodeKey(null) : newKeyBytes;
+            long prevOffset = index == null ? -1 : index.findPredecessor(indexKey);
+            long currOffset;
+            RecordDecoder keyDecoder = new RecordDecoder(SchemaCatalog.get(targetFile), searchKeyIndex);
+            RowView row = keyDecoder.newRow();
+            byte[] recordBuffer = null;
+            int hops = 0;
+            file.startPrefetch();
+
+            while (true) {
+                // 잠그지 않고 체인을 따라가며 새 키보다 작은 마지막 레코드 찾기
+                currOffset = nextOffset(file, prevOffset, targetFile);
+                Set<Long> visitedOffsets = new HashSet<>();
+                while (currOffset != 0 && currOffset != -1) {
+                    if (!visitedOffsets.add(currOffset)) {
+                        Log.warn("경고: 포인터 체인에 순환 참조 감지됨!");
+                        break;
+                    }
+
+                    // 현재 레코드의 search key 값과 다음 레코드 주소를 한 번에 읽기
+                    recordBuffer = readRecordBytes(file, currOffset, targetFile, recordBuffer);
+                    hops++;
+                    BinaryRow curr = keyDecoder.decode(recordBuffer, row).binary();
+                    if (!curr.isNull(searchKeyIndex) && curr.compareField(searchKeyIndex, newKeyBytes) >= 0) {
+                        break;
+                    }
+                    prevOffset = currOffset;
+                    currOffset = row.getPointer();
                 }
-                visitedOffsets.add(currOffset);
 
-                // 현재 레코드의 search key 값 읽기
-                String currKeyValue = readFieldValue(raf, currOffset, searchKeyIndex, targetFile);
+                // 앞 레코드(맨 앞이면 헤더의 첫 레코드 포인터)와 그 페이지를 커밋할 때까지 잠근다
+                file.lockKey(prevOffset == -1 ? LockManager.HEAD : prevOffset);
+                if (prevOffset != -1) {
+                    file.lockPage(SlottedPage.pageOf(prevOffset));
+                }
 
-                if (currKeyValue != null && currKeyValue.compareTo(newKeyValue) >= 0) {
-                    positionFound = true;
-                } else {
-                    prevOffset = currOffset;
-                    int nextOffset = readPointerField(raf, currOffset, targetFile);
-                    currOffset = nextOffset;
+                // 잠그기 전에 다른 삽입이 앞 레코드 뒤에 레코드를 넣었으면, 그 레코드가 새 키보다 작을 때만 다시 찾는다
+                long next = nextOffset(file, prevOffset, targetFile);
+                if (next == currOffset) {
+                    break;
                 }
+                recordBuffer = readRecordBytes(file, next, targetFile, recordBuffer);
+                BinaryRow inserted = keyDecoder.decode(recordBuffer, row).binary();
+                if (!inserted.isNull(searchKeyIndex) && inserted.compareField(searchKeyIndex, newKeyBytes) >= 0) {
+                    currOffset = next;
+                    break;
+                }
+                if (prevOffset != -1) {
+                    file.unlockPage(SlottedPage.pageOf(prevOffset));
+                }
+                file.unlockKey(prevOffset == -1 ? LockManager.HEAD : prevOffset);
             }
 
-            // 레코드 파일에 기록
-            long newRecOffset = writeRecordToBlock(raf, recordBytes);
+            // 레코드 파일에 기록 (다른 삽입이 바꾸고 있지 않은 블록에)
+            long newRecOffset = writeRecordToBlock(file, dataStart, recordBytes);
 
-            // 포인터 체인 업데이트
+            // 새 레코드의 포인터를 먼저 쓰고 앞 레코드의 포인터를 바꾼다 (체인을 읽는 쪽이 끊긴 링크를 보지 않게)
+            // 바뀐 링크만큼 클러스터링된 링크 수도 조정
+            writePointerField(file, newRecOffset, targetFile, currOffset == -1 ? 0 : (int) currOffset);
+            int clusteredDelta;
+            String message;
             if (prevOffset == -1) {
-                // 첫 번째 레코드 앞에 삽입
-                writePointerField(raf, newRecOffset, targetFile, firstRecOffset);
-
-                // 헤더 블록 업데이트
-                putIntToBlock(headerBlock, 0, (int)newRecOffset);
-                writeBlock(raf, 0, headerBlock);
-
-                System.out.println("첫 번째 레코드 앞에 삽입 완료, 오프셋: " + newRecOffset);
+                // 첫 번째 레코드 앞에 삽입, 헤더의 첫 레코드 포인터는 커밋할 때 바꾼다
+                clusteredDelta = currOffset == -1 ? 0 : clustered(newRecOffset, currOffset);
+                message = currOffset == -1 ? "첫 번째 레코드 삽입 완료" : "첫 번째 레코드 앞에 삽입 완료";
             } else if (currOffset == 0) {
                 // 마지막 레코드 뒤에 삽입
-                writePointerField(raf, prevOffset, targetFile, (int)newRecOffset);
-                writePointerField(raf, newRecOffset, targetFile, 0);
-                System.out.println("마지막 레코드 뒤에 삽입 완료, 오프셋: " + newRecOffset);
+                writePointerField(file, prevOffset, targetFile, (int) newRecOffset);
+                clusteredDelta = clustered(prevOffset, newRecOffset);
+                message = "마지막 레코드 뒤에 삽입 완료";
             } else {
                 // 중간에 삽입
-                writePointerField(raf, prevOffset, targetFile, (int)newRecOffset);
-                writePointerField(raf, newRecOffset, targetFile, (int)currOffset);
-                System.out.println("중간에 삽입 완료, 오프셋: " + newRecOffset);
+                writePointerField(file, prevOffset, targetFile, (int) newRecOffset);
+                clusteredDelta = clustered(prevOffset, newRecOffset) + clustered(newRecOffset, currOffset)
+                        - clustered(prevOffset, currOffset);
+                message = "중간에 삽입 완료";
+            }
+
+            // 헤더는 모든 삽입이 같이 바꾸므로 커밋 구간 안에서 바꾼다
+            boolean head = prevOffset == -1;
+            file.commit(() -> {
+                if (head) {
+                    file.writeInt(FileHeader.FIRST_RECORD_POS, (int) newRecOffset);
+                }
+                int[] updated = updateStats(file, clusteredDelta);
+                stats[0] = updated[0];
+                stats[1] = updated[1];
+            });
+            if (Log.isDebugEnabled()) {
+                Log.debug(message + ", 오프셋: " + newRecOffset);
+            }
+
+            // 인덱스는 로그를 쓰지 않는다 (깨끗이 닫지 않았으면 다음에 열 때 데이터 파일로 다시 만든다)
+            if (index != null) {
+                index.insert(indexKey, newRecOffset);
+            }
+
+            Metrics.increment(Metrics.Counter.INSERTS);
+            Metrics.recordChainHops(hops);
+            Metrics.record(Metrics.Operation.INSERT, start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.table = targetFile;
+                event.rid = newRecOffset;
+                event.chainHops = hops;
+                event.commit();
             }
 
         } catch (IOException | SQLException e) {
             throw new RuntimeException("정렬 삽입 중 오류 발생: " + e.getMessage(), e);
+        } finally {
+            locks.insert().unlock();
         }
+
+        // 체인 순서와 블록 순서가 많이 어긋났으면 백그라운드에서 재구성
+        Reorganizer.maybeStart(targetFile, stats[0], stats[1]);
     }
 
     /**
-     * 블록 I/O 방식으로 레코드 읽기
+     * rid 다음 레코드의 주소, rid 가 -1 이면 첫 레코드의 주소 (레코드가 없으면 -1)
      */
-    private static String readFieldValue(RandomAccessFile raf, long recordOffset, int fieldIndex, String tableName)
-            throws IOException, SQLException {
-        // 해당 레코드가 어느 블록에 있는지 계산
-        long blockOffset = (recordOffset / BLOCK_SIZE) * BLOCK_SIZE;
-        int offsetInBlock = (int)(recordOffset % BLOCK_SIZE);
+    private static long nextOffset(BlockFile file, long rid, String tableName) throws IOException, SQLException {
+        return rid == -1 ? file.readInt(FileHeader.FIRST_RECORD_POS) : readPointerField(file, rid, tableName);
+    }
 
-        // 블록 읽기
-        byte[] block = readBlock(raf, blockOffset);
+    private static int clustered(long fromRid, long toRid) {
+        return Reorganizer.isClustered(fromRid, toRid) ? 1 : 0;
+    }
 
-        // Null 비트맵 읽기
-        byte nullBitMap = block[offsetInBlock];
+    /**
+     * 레코드 하나를 삽입한 뒤 헤더의 레코드 수와 클러스터링된 링크 수 갱신, {레코드 수, 링크 수} 반환
+     */
+    private static int[] updateStats(BlockFile file, int clusteredDelta) throws IOException {
+        int recordCount = file.readInt(FileHeader.RECORD_COUNT_POS) + 1;
+        int clusteredLinks = Math.max(0, file.readInt(FileHeader.CLUSTERED_LINKS_POS) + clusteredDelta);
+        file.writeInt(FileHeader.RECORD_COUNT_POS, recordCount);
+        file.writeInt(FileHeader.CLUSTERED_LINKS_POS, clusteredLinks);
+        return new int[] {recordCount, clusteredLinks};
+    }
 
-        // null 여부 확인
-        int bitIndex = 7 - fieldIndex;
-        boolean isNull = ((nullBitMap >> bitIndex) & 1) == 1;
+    /**
+     * 예전 형식(40바이트 블록, 슬롯 페이지 이전)의 파일을 현재 형식으로 변환 (오프라인)
+     * 포인터 체인 순서대로 레코드를 옮기고, 원본 파일은 .bak 으로 남긴다.
+     */
+    public static void upgradeFile(String tableName, int pageSize) {
+        String fileName = tableName + ".txt";
+        String tmpName = fileName + ".upgrade";
+        String backupName = fileName + ".bak";
 
-        if (isNull) {
-            return null;
-        }
+        TableLocks locks = TableLocks.of(tableName);
+        locks.writer().lock();
+        try {
+            FileHeader.Probe probe = FileHeader.probe(fileName);
+            if (probe.isCurrent()) {
+                System.out.println(fileName + " 은(는) 이미 새 형식입니다.");
+                return;
+            }
 
-        // 필드 위치 계산을 위해 메타데이터 가져오기
-        List<Integer> fieldSizes = getFieldSizes(tableName);
+            TableSchema tableSchema = SchemaCatalog.get(tableName);
+            FileHeader.checkPageSize(pageSize);
+            FileUtil.createTxtFile(tmpName);
+
+            int count = 0;
+            int clusteredLinks = 0;
+            String srcId;
+            String dstId;
+            try (BlockFile src = BlockFile.open(fileName, "r");
+                 BlockFile dst = new BlockFile(tmpName, "rw", pageSize, probe.storageMode)) {
+                src.startPrefetch();
+                srcId = src.getFileId();
+                dstId = dst.getFileId();
+                BufferPool.getInstance().invalidate(dstId);
+
+                byte[] headerBlock = FileHeader.create(tableSchema, pageSize, probe.storageMode);
+                long dataStart = FileHeader.getDataStart(headerBlock, pageSize);
+
+                // 포인터 체인 순서대로 옮긴다
+                long srcOffset = getIntFromBlock(readBlock(src, 0), 0);
+                long prevOffset = -1;
+                Set<Long> visitedOffsets = new HashSet<>();
+
+                while (srcOffset != 0 && srcOffset != -1) {
+                    if (!visitedOffsets.add(srcOffset)) {
+                        System.out.println("경고: 레코드 체인에 순환 참조가 감지되었습니다!");
+                        break;
+                    }
 
-        // 필드 위치 계산
-        int fieldOffset = offsetInBlock + 1; // nullBitMap 다음부터
+                    // 레코드 형식은 같으므로 바이트를 그대로 옮기고 포인터만 다시 쓴다
+                    Record record = new Record(tableSchema, readRecordBytes(src, srcOffset, tableName));
+                    srcOffset = record.getPointerField();
+                    record.setPointerField(0);
+                    long newOffset = writeRecordToBlock(dst, dataStart, record.getBytes());
 
-        for (int i = 0; i < fieldIndex; i++) {
-            int precedingBitIndex = 7 - i;
-            boolean precedingFieldIsNull = ((nullBitMap >> precedingBitIndex) & 1) == 1;
+                    if (prevOffset == -1) {
+                        putIntToBlock(headerBlock, 0, (int) newOffset);
+                    } else {
+                        writePointerField(dst, prevOffset, tableName, (int) newOffset);
+                        clusteredLinks += clustered(prevOffset, newOffset);
+                    }
+                    prevOffset = newOffset;
+                    count++;
+                }
 
-            if (!precedingFieldIsNull) {
-                fieldOffset += fieldSizes.get(i);
+                putIntToBlock(headerBlock, FileHeader.RECORD_COUNT_POS, count);
+                putIntToBlock(headerBlock, FileHeader.CLUSTERED_LINKS_POS, clusteredLinks);
+                writeBlock(dst, 0, headerBlock);
             }
-        }
 
-        // 필드가 블록 경계를 넘는지 확인
-        int fieldSize = fieldSizes.get(fieldIndex);
+            // 원본은 백업으로 남기고 새 파일로 교체
+            locks.swapWrite().lock();
+            try {
+                Files.move(Paths.get(fileName), Paths.get(backupName), StandardCopyOption.REPLACE_EXISTING);
+                Files.move(Paths.get(tmpName), Paths.get(fileName), StandardCopyOption.ATOMIC_MOVE);
+                BufferPool.getInstance().invalidate(srcId);
+                BufferPool.getInstance().invalidate(dstId);
+                FreeSpaceMap.delete(tmpName);
+                FreeSpaceMap.delete(fileName);
+                BPlusTree.delete(fileName);
+            } finally {
+                locks.swapWrite().unlock();
+            }
 
-        if (fieldOffset + fieldSize <= BLOCK_SIZE) {
-            // 필드가 현재 블록 내에 있는 경우
-            byte[] fieldData = Arrays.copyOfRange(block, fieldOffset, fieldOffset + fieldSize);
-            return new String(fieldData).trim();
-        } else {
-            // 필드가 블록 경계를 넘는 경우
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            System.out.println(fileName + " 업그레이드 완료: 레코드 " + count + "개, 페이지 크기 " + pageSize
+                    + " 바이트 (원본: " + backupName + ")");
 
-            // 현재 블록에서 읽을 수 있는 만큼 읽기
-            int bytesInCurrentBlock = BLOCK_SIZE - fieldOffset;
-            bos.write(block, fieldOffset, bytesInCurrentBlock);
+        } catch (IOException | SQLException e) {
+            System.out.println("파일 업그레이드 중 오류 발생: " + e.getMessage());
+        } finally {
+            locks.writer().unlock();
+        }
+    }
 
-            // 다음 블록에서 나머지 읽기
-            byte[] nextBlock = readBlock(raf, blockOffset + BLOCK_SIZE);
-            bos.write(nextBlock, 0, fieldSize - bytesInCurrentBlock);
+    /**
+     * 레코드 바이트 읽기 (비트맵부터 포인터 필드까지)
+     */
+    static byte[] readRecordBytes(BlockFile file, long address, String tableName)
+            throws IOException, SQLException {
+        return readRecordBytes(file, address, tableName, null);
+    }
 
-            return new String(bos.toByteArray()).trim();
-        }
+    /**
+     * 레코드 바이트를 buffer 앞쪽에 읽기, buffer 가 null 이거나 작으면 레코드 크기의 새 배열을 만들어 반환
+     * 슬롯 페이지 파일은 rid 의 페이지 하나만 읽고, 예전 형식 파일은 오프셋부터 블록 경계를 넘어 이어 읽는다.
+     * 레코드 길이는 Null 비트맵으로 정해지므로, 같은 buffer 를 계속 넘기면 레코드마다 배열을 만들지 않는다.
+     */
+    static byte[] readRecordBytes(BlockFile file, long address, String tableName, byte[] buffer)
+            throws IOException, SQLException {
+        if (file.isSlotted()) {
+            return file.readSlot(address, buffer);
+        }
+
+        // 예전 형식: 레코드 길이는 Null 비트맵으로 정해진다
+        int blockSize = file.getBlockSize();
+        byte nullBitMap = file.readByte(address);
+        int length = SchemaCatalog.get(tableName).recordLength(nullBitMap);
+        byte[] recordBytes = buffer == null || buffer.length < length ? new byte[length] : buffer;
+        int copied = 0;
+        while (copied < length) {
+            long pos = address + copied;
+            byte[] block = readBlock(file, pos / blockSize * blockSize);
+            int offsetInBlock = (int) (pos % blockSize);
+            int n = Math.min(length - copied, blockSize - offsetInBlock);
+            System.arraycopy(block, offsetInBlock, recordBytes, copied, n);
+            copied += n;
+        }
+        return recordBytes;
     }
 
     /**
      * 테이블의 필드 크기 목록 가져오기
      */
     private static List<Integer> getFieldSizes(String tableName) throws SQLException {
-        Connection con = getConnection();
-        DatabaseMetaData meta = con.getMetaData();
-        ResultSet rs = meta.getColumns(null, schema, tableName, "%");
-
-        Map<Integer, Integer> sizesByPosition = new TreeMap<>();
-        while (rs.next()) {
-            int position = rs.getInt("ORDINAL_POSITION");
-            int size = rs.getInt("COLUMN_SIZE");
-            sizesByPosition.put(position, size);
-        }
-        rs.close();
-
-        return new ArrayList<>(sizesByPosition.values());
+        return SchemaCatalog.get(tableName).getFieldSizes();
     }
 
     /**
-     * 블록 I/O 방식으로 포인터 필드 읽기
+     * 블록 I/O 방식으로 포인터 필드 읽기 (다음 레코드의 주소)
      */
-    private static int readPointerField(RandomAccessFile raf, long recordOffset, String tableName)
+    static int readPointerField(BlockFile file, long address, String tableName)
             throws IOException, SQLException {
-        // 포인터 위치 계산
-        long pointerPos = findPointerPos(raf, recordOffset, tableName);
-
-        // 포인터가 위치한 블록 계산
-        long blockOffset = (pointerPos / BLOCK_SIZE) * BLOCK_SIZE;
-        int offsetInBlock = (int)(pointerPos % BLOCK_SIZE);
-
-        // 블록 읽기
-        byte[] block = readBlock(raf, blockOffset);
-
-        // 블록 경계를 넘는지 확인
-        if (offsetInBlock + 4 <= BLOCK_SIZE) {
-            // 포인터가 현재 블록 내에 있는 경우
-            return getIntFromBlock(block, offsetInBlock);
-        } else {
-            // 포인터가 블록 경계를 넘는 경우
-            ByteBuffer buffer = ByteBuffer.allocate(4);
-
-            // 현재 블록에서 읽을 수 있는 만큼 읽기
-            int bytesInCurrentBlock = BLOCK_SIZE - offsetInBlock;
-            buffer.put(Arrays.copyOfRange(block, offsetInBlock, BLOCK_SIZE));
-
-            // 다음 블록에서 나머지 읽기
-            byte[] nextBlock = readBlock(raf, blockOffset + BLOCK_SIZE);
-            buffer.put(nextBlock, 0, 4 - bytesInCurrentBlock);
-
-            buffer.flip();
-            return buffer.getInt();
-        }
+        byte[] recordBytes = readRecordBytes(file, address, tableName);
+        return getIntFromBlock(recordBytes, recordBytes.length - 4);
     }
 
     /**
      * 블록 I/O 방식으로 포인터 필드 위치 찾기
      */
-    private static long findPointerPos(RandomAccessFile raf, long recordOffset, String tableName)
+    private static long findPointerPos(BlockFile file, long address, String tableName)
             throws IOException, SQLException {
-        // 레코드가 위치한 블록 계산
-        long blockOffset = (recordOffset / BLOCK_SIZE) * BLOCK_SIZE;
-        int offsetInBlock = (int)(recordOffset % BLOCK_SIZE);
-
-        // 블록 읽기
-        byte[] block = readBlock(raf, blockOffset);
-
-        // Null 비트맵 읽기
-        byte nullBitMap = block[offsetInBlock];
-
-        // 필드 크기 목록 가져오기
-        List<Integer> fieldSizes = getFieldSizes(tableName);
-
-        // 포인터 위치 계산
-        long pointerPos = recordOffset + 1; // nullBitMap 다음부터
-
-        for (int i = 0; i < fieldSizes.size(); i++) {
-            int bitIndex = 7 - i;
-            boolean isNull = ((nullBitMap >> bitIndex) & 1) == 1;
-
-            if (!isNull) {
-                pointerPos += fieldSizes.get(i);
-            }
+        long recordPos = address;
+        if (file.isSlotted()) {
+            long blockOffset = SlottedPage.pageOf(address) * file.getBlockSize();
+            recordPos = blockOffset + SlottedPage.recordPosition(readBlock(file, blockOffset), SlottedPage.slotOf(address));
         }
 
-        return pointerPos;
+        // 카탈로그에 미리 계산된 오프셋으로 포인터 위치 계산
+        return recordPos + SchemaCatalog.get(tableName).pointerOffset(file.readByte(recordPos));
     }
 
     /**
      * 블록 I/O 방식으로 포인터 필드 쓰기
      */
-    private static void writePointerField(RandomAccessFile raf, long recordOffset, String tableName, int newPointer)
+    private static void writePointerField(BlockFile file, long address, String tableName, int newPointer)
             throws IOException, SQLException {
         // 포인터 위치 계산
-        long pointerPos = findPointerPos(raf, recordOffset, tableName);
-
-        // 포인터가 위치한 블록 계산
-        long blockOffset = (pointerPos / BLOCK_SIZE) * BLOCK_SIZE;
-        int offsetInBlock = (int)(pointerPos % BLOCK_SIZE);
-
-        // 블록 읽기
-        byte[] block = readBlock(raf, blockOffset);
-
-        // 블록 경계를 넘는지 확인
-        if (offsetInBlock + 4 <= BLOCK_SIZE) {
-            // 포인터가 현재 블록 내에 있는 경우
-            putIntToBlock(block, offsetInBlock, newPointer);
-            writeBlock(raf, blockOffset, block);
-        } else {
-            // 포인터가 블록 경계를 넘는 경우
-            ByteBuffer buffer = ByteBuffer.allocate(4);
-            buffer.putInt(newPointer);
-            buffer.flip();
-
-            // 현재 블록에 일부 쓰기
-            int bytesInCurrentBlock = BLOCK_SIZE - offsetInBlock;
-            for (int i = 0; i < bytesInCurrentBlock; i++) {
-                block[offsetInBlock + i] = buffer.get();
-            }
-            writeBlock(raf, blockOffset, block);
+        long pointerPos = findPointerPos(file, address, tableName);
 
-            // 다음 블록에 나머지 쓰기
-            byte[] nextBlock = readBlock(raf, blockOffset + BLOCK_SIZE);
-            for (int i = 0; i < 4 - bytesInCurrentBlock; i++) {
-                nextBlock[i] = buffer.get();
-            }
-            writeBlock(raf, blockOffset + BLOCK_SIZE, nextBlock);
-        }
+        file.writeInt(pointerPos, newPointer);
     }
 
     /**
-     * 블록 I/O 방식으로 레코드 쓰기
+     * 블록 I/O 방식으로 레코드 쓰고 rid 반환
+     * 들어갈 블록은 free space map 에서 찾고, 없으면 파일 끝에 새 블록을 만든다.
+     * 트랜잭션 중이면 고른 블록은 커밋할 때까지 잠긴다.
      */
-    private static long writeRecordToBlock(RandomAccessFile raf, byte[] recordBytes) throws IOException {
-        // 적합한 블록 찾기
-        long currentBlockOffset = BLOCK_SIZE; // 첫 번째 데이터 블록 시작
-
-        while (true) {
-            // 파일 크기를 초과하면 새 블록 생성
-            if (currentBlockOffset >= raf.length()) {
-                byte[] newBlock = new byte[BLOCK_SIZE];
-                putIntToBlock(newBlock, 0, 0); // usedSpace 초기화
-                writeBlock(raf, currentBlockOffset, newBlock);
-            }
-
-            // 블록 읽기
-            byte[] block = readBlock(raf, currentBlockOffset);
-
-            // 블록의 사용 공간 읽기
-            int usedSpace = getIntFromBlock(block, 0);
-
-            // 남은 공간 계산
-            int leftOver = BLOCK_SIZE - 4 - usedSpace;
-
-            // 충분한 공간이 있으면 삽입
-            if (recordBytes.length <= leftOver) {
-                // 레코드 삽입 위치 계산
-                long newRecOffset = currentBlockOffset + 4 + usedSpace;
-                int offsetInBlock = 4 + usedSpace;
-
-                // 블록 경계를 넘는지 확인
-                if (offsetInBlock + recordBytes.length <= BLOCK_SIZE) {
-                    // 현재 블록 내에 있는 경우
-                    System.arraycopy(recordBytes, 0, block, offsetInBlock, recordBytes.length);
-                } else {
-                    // 블록 경계를 넘는 경우
-                    int bytesInCurrentBlock = BLOCK_SIZE - offsetInBlock;
-                    System.arraycopy(recordBytes, 0, block, offsetInBlock, bytesInCurrentBlock);
-
-                    // 다음 블록에 나머지 쓰기
-                    byte[] nextBlock = new byte[BLOCK_SIZE];
-                    if (currentBlockOffset + BLOCK_SIZE < raf.length()) {
-                        nextBlock = readBlock(raf, currentBlockOffset + BLOCK_SIZE);
-                    }
-
-                    System.arraycopy(recordBytes, bytesInCurrentBlock, nextBlock, 0, recordBytes.length - bytesInCurrentBlock);
-                    writeBlock(raf, currentBlockOffset + BLOCK_SIZE, nextBlock);
-                }
-
-                // usedSpace 업데이트
-                usedSpace += recordBytes.length;
-                putIntToBlock(block, 0, usedSpace);
-                writeBlock(raf, currentBlockOffset, block);
-
-                System.out.println("블록 " + (currentBlockOffset / BLOCK_SIZE) + "에 레코드 삽입, 오프셋: " + newRecOffset);
-                return newRecOffset;
-            } else {
-                // 다음 블록으로 이동
-                currentBlockOffset += BLOCK_SIZE;
-            }
+    private static int writeRecordToBlock(BlockFile file, long dataStart, byte[] recordBytes) throws IOException {
+        int blockSize = file.getBlockSize();
+        int needed = recordBytes.length + SlottedPage.SLOT_SIZE;
+        if (needed > blockSize - SlottedPage.HEADER_SIZE) {
+            throw new IOException("레코드(" + recordBytes.length + "바이트)가 블록 크기(" + blockSize + ")보다 큽니다.");
         }
-    }
-
-    private static byte[] buildRecordBytes(String targetFile, Record rec) {
-        // Null BitMap
-        byte nullMap = rec.getNullBitMap();
 
-        // 필드 메타데이터
-        List<String> fieldNames = new ArrayList<>();
-        List<Integer> fieldSizes = new ArrayList<>();
+        FreeSpaceMap fsm = file.getFreeSpaceMap(dataStart);
 
-        try {
-            Connection con = getConnection();
-            DatabaseMetaData meta = con.getMetaData();
-            ResultSet rs = meta.getColumns(null, schema, targetFile, "%");
-
-            while (rs.next()) {
-                fieldNames.add(rs.getString("COLUMN_NAME"));
-                fieldSizes.add(rs.getInt("COLUMN_SIZE"));
+        while (true) {
+            // 적합한 블록 찾기 (다른 삽입이 바꾸고 있는 블록은 건너뛴다)
+            long currentBlockOffset = fsm.findBlock(needed, offset -> file.tryLockPage(offset / blockSize));
+
+            byte[] block;
+            if (currentBlockOffset < 0) {
+                // 여유 공간이 있는 블록이 없으면 파일 끝에 새 블록 생성
+                currentBlockOffset = file.allocateBlock(dataStart);
+                block = new byte[blockSize];
+                SlottedPage.init(block);
+            } else {
+                block = readBlock(file, currentBlockOffset);
             }
-            rs.close();
-        } catch (SQLException e) {
-            throw new RuntimeException("메타데이터 로드 실패", e);
-        }
-
-        // 레코드 바이트 구성
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        try {
-            // Null BitMap 쓰기
-            bos.write(nullMap);
 
-            // 필드 값 쓰기
-            LinkedHashMap<String, String> map = rec.getRecordMap();
-
-            for (int i = 0; i < fieldNames.size(); i++) {
-                String columnName = fieldNames.get(i);
-                int len = fieldSizes.get(i);
-                String value = map.get(columnName);
-
-                int bitIndex = 7 - i;
-                boolean isNull = ((nullMap >> bitIndex) & 1) == 1;
+            // 페이지 끝쪽 레코드 영역에 쓰고 슬롯 디렉터리에 추가
+            int slot = SlottedPage.insert(block, recordBytes);
+            if (slot >= 0) {
+                long pageNo = currentBlockOffset / blockSize;
+                if (pageNo >= SlottedPage.MAX_PAGES) {
+                    throw new IOException("rid 로 나타낼 수 있는 페이지 수(" + SlottedPage.MAX_PAGES + ")를 넘었습니다.");
+                }
+                writeBlock(file, currentBlockOffset, block);
+                fsm.update(currentBlockOffset, SlottedPage.freeSpace(block));
 
-                if (!isNull && value != null) {
-                    String padded = padRight(value, len);
-                    bos.write(padded.getBytes());
+                if (Log.isDebugEnabled()) {
+                    Log.debug("블록 " + pageNo + " 슬롯 " + slot + "에 레코드 삽입");
                 }
+                return SlottedPage.rid(pageNo, slot);
             }
 
-            // 포인터 필드 (4바이트)
-            int pointer = (rec.getPointerField() == null) ? 0 : rec.getPointerField();
-            DataOutputStream dos = new DataOutputStream(bos);
-            dos.writeInt(pointer);
-
-            return bos.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("레코드 바이트 변환 실패", e);
+            // FSM 이 실제보다 크게 기록되어 있으면 바로잡고 다시 찾는다
+            fsm.update(currentBlockOffset, SlottedPage.freeSpace(block));
+            file.unlockPage(currentBlockOffset / blockSize);
         }
     }
 
-    // 길이 부족하면 오른쪽에 공백을 채우기
-    private static String padRight(String str, int size) {
-        if (str.length() >= size) return str.substring(0, size);
-        return str + " ".repeat(size - str.length());
-    }
-
-    private static Record recordFormatting(String targetFile, String inputRecord) {
-        Record record = new Record();
-        record.setPointerField(0);
-
-        String[] split = inputRecord.split(";");
-        LinkedHashMap<String, String> recordMap = new LinkedHashMap<>();
-
-        try {
-            // 테이블 메타데이터 조회
-            Map<Integer, String> columnsByPosition = new TreeMap<>();
-            Connection con = getConnection();
-            DatabaseMetaData metaData = con.getMetaData();
-            ResultSet columnRs = metaData.getColumns(null, schema, targetFile, "%");
-
-            while (columnRs.next()) {
-                String columnName = columnRs.getString("COLUMN_NAME");
-                int position = columnRs.getInt("ORDINAL_POSITION");
-                columnsByPosition.put(position, columnName);
-            }
-            columnRs.close();
-
-            // 입력 값 매핑
-            int i = 0;
-            for (String columnName : columnsByPosition.values()) {
-                if (i < split.length) {
-                    String val = split[i];
-                    recordMap.put(columnName, val.equalsIgnoreCase("null") ? null : val);
-                    i++;
-                } else {
-                    recordMap.put(columnName, null);
-                }
-            }
-
-            record.setRecordMap(recordMap);
-
-            // Null BitMap 생성
-            StringBuilder bitString = new StringBuilder();
-            for (String value : recordMap.values()) {
-                bitString.append(value == null ? "1" : "0");
+    /**
+     * 세미콜론으로 구분된 입력 문자열을 레코드 바이트로 ("null" 은 null 값)
+     */
+    static Record recordFormatting(String targetFile, String inputRecord) {
+        String[] values = inputRecord.split(";");
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equalsIgnoreCase("null")) {
+                values[i] = null;
             }
+        }
 
-            record.setNullBitMap(toNullBitMap(bitString.toString()));
-
+        try {
+            return Record.of(SchemaCatalog.get(targetFile), values);
         } catch (SQLException e) {
             throw new RuntimeException("메타데이터 로드 실패", e);
         }
-
-        return record;
-    }
-
-    private static byte toNullBitMap(String bitString) {
-        byte result = 0;
-
-        for (int i = 0; i < bitString.length(); i++) {
-            if (bitString.charAt(i) == '1') {
-                result |= (1 << (7 - i));
-            }
-        }
-
-        return result;
     }
 
     /**
      * 블록 I/O 방식으로 필드 검색
      */
     public static void searchField(String fileName, String fieldName) {
-        String filePath = fileName + ".txt";
         System.out.println("🔍 " + fileName + " 파일의 " + fieldName + " 필드 검색 결과:");
 
-        try (RandomAccessFile raf = new RandomAccessFile(filePath, "r")) {
-            if (raf.length() < BLOCK_SIZE) {
-                System.out.println("파일이 존재하지 않거나 너무 작습니다.");
-                return;
-            }
-
-            // 헤더 블록 읽기
-            byte[] headerBlock = readBlock(raf, 0);
-            int firstRecOffset = getIntFromBlock(headerBlock, 0);
-
-            if (firstRecOffset == -1) {
+        // 범위 없이 전체 레코드를 체인 순서로 읽고, 필요한 필드 하나만 디코딩한다
+        try (RangeCursor cursor = RangeCursor.open(fileName, fieldName, null, null, fieldName)) {
+            if (cursor.isTableEmpty()) {
                 System.out.println("파일에 레코드가 없습니다.");
                 return;
             }
 
-            // 필드 정보 로드
-            Map<Integer, ColumnInfo> columnsByPosition = getTableColumns(fileName);
-            List<String> fieldNames = new ArrayList<>();
-            List<Integer> fieldSizes = new ArrayList<>();
-            int targetFieldIndex = -1;
-            int index = 0;
-
-            for (Map.Entry<Integer, ColumnInfo> entry : columnsByPosition.entrySet()) {
-                ColumnInfo info = entry.getValue();
-                fieldNames.add(info.name);
-                fieldSizes.add(info.size);
-
-                if (info.name.equalsIgnoreCase(fieldName)) {
-                    targetFieldIndex = index;
-                }
-                index++;
-            }
-
-            if (targetFieldIndex == -1) {
-                System.out.println("'" + fieldName + "' 필드가 테이블에 존재하지 않습니다.");
-                return;
-            }
-
             // 결과 출력 헤더
             System.out.println("-------------------------------------------");
             System.out.println("| 레코드 번호 | 오프셋 | " + fieldName + " 값    |");
             System.out.println("-------------------------------------------");
 
-            // 레코드 순회
-            long currentOffset = firstRecOffset;
-            int recordCount = 0;
-            Set<Long> visitedOffsets = new HashSet<>();
-
-            while (currentOffset != 0 && currentOffset != -1) {
-                if (visitedOffsets.contains(currentOffset)) {
-                    System.out.println("경고: 레코드 체인에 순환 참조가 감지되었습니다!");
-                    break;
-                }
-                visitedOffsets.add(currentOffset);
-                recordCount++;
-
-                // 필드 값 읽기
-                String fieldValue = readFieldValue(raf, currentOffset, targetFieldIndex, fileName);
-
+            while (cursor.next()) {
+                String fieldValue = cursor.row().get(fieldName);
                 if (fieldValue == null) {
-                    System.out.printf("| %-11d | %-6d | NULL       |\n", recordCount, currentOffset);
+                    System.out.printf("| %-11d | %-6d | NULL       |\n", cursor.getMatchedCount(), cursor.address());
                 } else {
-                    System.out.printf("| %-11d | %-6d | %-10s |\n", recordCount, currentOffset, fieldValue);
+                    System.out.printf("| %-11d | %-6d | %-10s |\n", cursor.getMatchedCount(), cursor.address(), fieldValue);
                 }
-
-                // 다음 레코드로 이동
-                int nextOffset = readPointerField(raf, currentOffset, fileName);
-                currentOffset = nextOffset;
             }
 
             System.out.println("-------------------------------------------");
-            System.out.println("총 " + recordCount + "개 레코드 검색 완료");
+            System.out.println("총 " + cursor.getMatchedCount() + "개 레코드 검색 완료");
 
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
         } catch (IOException | SQLException e) {
             System.out.println("필드 검색 중 오류 발생: " + e.getMessage());
         }
     }
 
     /**
-     * 블록 I/O 방식으로 범위 검색
+     * keyField 값이 startValue ~ endValue 인 레코드를 체인 순서로 읽는 커서, 호출하는 쪽에서 닫는다.
+     * 결과를 모아 두지 않으므로 범위가 넓어도 메모리는 한 블록만큼만 쓴다.
      */
-    public static List<Map<String, String>> rangeSearchRecord(String fileName, String keyField, String startValue, String endValue) {
-        String filePath = fileName + ".txt";
-        System.out.println("\n🔍 " + fileName + " 테이블에서 " + keyField + " 값이 '" + startValue + "'에서 '" + endValue + "'까지인 레코드 검색");
-
-        // 검색 결과를 저장할 리스트
-        List<Map<String, String>> searchResults = new ArrayList<>();
-
-        try (RandomAccessFile raf = new RandomAccessFile(filePath, "r")) {
-            if (raf.length() < BLOCK_SIZE) {
-                System.out.println("파일이 존재하지 않거나 너무 작습니다.");
-                return searchResults;
-            }
+    public static RangeCursor rangeSearchRecord(String fileName, String keyField, String startValue, String endValue)
+            throws IOException, SQLException {
+        return RangeCursor.open(fileName, keyField, startValue, endValue);
+    }
 
-            // 헤더 블록 읽기
-            byte[] headerBlock = readBlock(raf, 0);
-            int firstRecOffset = getIntFromBlock(headerBlock, 0);
+    /**
+     * 범위 검색 결과를 읽는 대로 한 줄씩 출력
+     */
+    public static void printRangeSearch(String fileName, String keyField, String startValue, String endValue) {
+        System.out.println("\n🔍 " + fileName + " 테이블에서 " + keyField + " 값이 '" + startValue + "'에서 '" + endValue + "'까지인 레코드 검색");
 
-            if (firstRecOffset == -1) {
+        try (RangeCursor cursor = rangeSearchRecord(fileName, keyField, startValue, endValue)) {
+            if (cursor.isTableEmpty()) {
                 System.out.println("파일에 레코드가 없습니다.");
-                return searchResults;
-            }
-
-            // 필드 정보 로드
-            Map<Integer, ColumnInfo> columnsByPosition = getTableColumns(fileName);
-            int keyFieldIndex = findFieldIndex(fileName, keyField);
-
-            // 필드 이름 목록 생성
-            List<String> fieldNames = new ArrayList<>();
-            for (ColumnInfo info : columnsByPosition.values()) {
-                fieldNames.add(info.name);
+                return;
             }
 
             // 결과 출력 헤더
             System.out.println("\n검색 결과:");
-            StringBuilder headerBuilder = new StringBuilder("| 번호 | ");
-            StringBuilder separatorBuilder = new StringBuilder("|------|");
+            TablePrinter printer = new TablePrinter(cursor.getSchema().getColumnNames(), 15);
+            printer.printHeader();
 
-            for (String name : fieldNames) {
-                headerBuilder.append(String.format(" %-15s |", name));
-                separatorBuilder.append("-----------------|");
+            while (cursor.next()) {
+                printer.printRow(cursor.getMatchedCount(), cursor.row());
             }
 
-            String header = headerBuilder.toString();
-            String separator = separatorBuilder.toString();
-
-            System.out.println(separator);
-            System.out.println(header);
-            System.out.println(separator);
-
-            // 레코드 순회
-            long currentOffset = firstRecOffset;
-            int recordCount = 0;
-            int resultCount = 0;
-            Set<Long> visitedOffsets = new HashSet<>();
-
-            while (currentOffset != 0 && currentOffset != -1) {
-                if (visitedOffsets.contains(currentOffset)) {
-                    System.out.println("경고: 레코드 체인에 순환 참조가 감지되었습니다!");
-                    break;
-                }
-                visitedOffsets.add(currentOffset);
-                recordCount++;
-
-                // search key 값 읽기
-                String keyValue = readFieldValue(raf, currentOffset, keyFieldIndex, fileName);
-                // 범위 체크
-                if (keyValue != null) {
-                    // 정렬된 체인이므로 범위를 초과하면 검색 종료
-                    if (keyValue.compareTo(endValue) > 0) {
-                        break;
-                    }
-                    // 범위 내인 경우
-                    if (keyValue.compareTo(startValue) >= 0) {
-                        resultCount++;
-
-                        // 레코드의 모든 필드 값 읽기
-                        Map<String, String> recordValues = readRecordValues(raf, currentOffset, fileName);
-
-                        // 검색 결과에 추가
-                        searchResults.add(recordValues);
-
-                        // 결과 행 출력
-                        StringBuilder rowBuilder = new StringBuilder(String.format("| %-4d |", resultCount));
-
-                        for (String name : fieldNames) {
-                            String value = recordValues.getOrDefault(name, "NULL");
-                            rowBuilder.append(String.format(" %-15s |", value));
-                        }
-                        System.out.println(rowBuilder.toString());
-                    }
-                }
-                // 다음 레코드로 이동
-                int nextOffset = readPointerField(raf, currentOffset, fileName);
-                currentOffset = nextOffset;
-            }
-
-            System.out.println(separator);
-            System.out.println("검색된 레코드 수: " + resultCount + " / 전체 검사한 레코드 수: " + recordCount);
+            printer.printFooter();
+            System.out.println("검색된 레코드 수: " + cursor.getMatchedCount() + " / 전체 검사한 레코드 수: " + cursor.getExaminedCount());
 
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
         } catch (IOException | SQLException e) {
             System.out.println("범위 검색 중 오류 발생: " + e.getMessage());
         }
-
-        // 검색 결과 반환
-        return searchResults;
-    }
-
-    /**
-     * 블록 I/O 방식으로 레코드의 모든 필드 값 읽기
-     */
-    private static Map<String, String> readRecordValues(RandomAccessFile raf, long recordOffset, String tableName)
-            throws IOException, SQLException {
-        // 필드 정보 가져오기
-        Map<Integer, ColumnInfo> columnsByPosition = getTableColumns(tableName);
-
-        // 필드 이름과 크기 목록 생성
-        List<String> fieldNames = new ArrayList<>();
-        List<Integer> fieldSizes = new ArrayList<>();
-
-        for (ColumnInfo info : columnsByPosition.values()) {
-            fieldNames.add(info.name);
-            fieldSizes.add(info.size);
-        }
-
-        // 레코드가 위치한 블록 계산
-        long blockOffset = (recordOffset / BLOCK_SIZE) * BLOCK_SIZE;
-        int offsetInBlock = (int)(recordOffset % BLOCK_SIZE);
-
-        // 블록 읽기
-        byte[] block = readBlock(raf, blockOffset);
-
-        // Null 비트맵 읽기
-        byte nullBitMap = block[offsetInBlock];
-
-        // 결과 맵 초기화
-        Map<String, String> result = new LinkedHashMap<>();
-
-        // 필드 값 읽기
-        long fieldOffset = recordOffset + 1; // nullBitMap 다음부터
-
-        for (int i = 0; i < fieldNames.size(); i++) {
-            String fieldName = fieldNames.get(i);
-            int fieldSize = fieldSizes.get(i);
-
-            int bitIndex = 7 - i;
-            boolean isNull = ((nullBitMap >> bitIndex) & 1) == 1;
-
-            if (isNull) {
-                result.put(fieldName, null);
-            } else {
-                String fieldValue = readFieldValue(raf, recordOffset, i, tableName);
-                result.put(fieldName, fieldValue);
-
-                // 다음 필드 오프셋 계산
-                fieldOffset += fieldSize;
-            }
-        }
-
-        return result;
-    }
-
-    private static Map<Integer, ColumnInfo> getTableColumns(String tableName) {
-        Map<Integer, ColumnInfo> columnsByPosition = new TreeMap<>();
-
-        try {
-            Connection con = getConnection();
-            DatabaseMetaData meta = con.getMetaData();
-            ResultSet rs = meta.getColumns(null, schema, tableName, "%");
-
-            while (rs.next()) {
-                String colName = rs.getString("COLUMN_NAME");
-                int colSize = rs.getInt("COLUMN_SIZE");
-                int position = rs.getInt("ORDINAL_POSITION");
-
-                columnsByPosition.put(position, new ColumnInfo(colName, colSize));
-            }
-            rs.close();
-
-        } catch (SQLException e) {
-            System.out.println("테이블 컬럼 정보 조회 중 오류: " + e.getMessage());
-        }
-
-        return columnsByPosition;
     }
 
     private static int findFieldIndex(String tableName, String fieldName) {
         try {
-            Connection con = getConnection();
-            DatabaseMetaData meta = con.getMetaData();
-            ResultSet rs = meta.getColumns(null, schema, tableName, "%");
-
-            // ORDINAL_POSITION 기준으로 정렬된 필드 목록
-            Map<Integer, String> fieldsByPosition = new TreeMap<>();
-            while (rs.next()) {
-                String colName = rs.getString("COLUMN_NAME");
-                int position = rs.getInt("ORDINAL_POSITION");
-                fieldsByPosition.put(position, colName);
-            }
-            rs.close();
-
-            // 필드 인덱스 찾기
-            int index = 0;
-            for (String colName : fieldsByPosition.values()) {
-                if (colName.equalsIgnoreCase(fieldName)) {
-                    return index;
-                }
-                index++;
-            }
-
-            return -1; // 필드 없음
+            // 필드 인덱스 찾기, 없으면 -1
+            return SchemaCatalog.get(tableName).indexOf(fieldName);
         } catch (SQLException e) {
             throw new RuntimeException("필드 인덱스 조회 중 오류: " + e.getMessage(), e);
         }
     }
 
-    static class ColumnInfo {
-        String name;
-        int size;
-
-        public ColumnInfo(String name, int size) {
-            this.name = name;
-            this.size = size;
-        }
-    }
-
     public static void main(String[] args) {
         System.out.println("========== 순차 파일 관리 시스템 ==========");
         System.out.println("원하는 동작을 선택해주세요");
-        System.out.println("1. 화일 생성 | 2. 레코드 삽입 | 3. 조인 질의");
+        System.out.println("1. 화일 생성 | 2. 레코드 삽입 | 3. 조인 질의 | 5. 화일 업그레이드 | 6. 대량 적재 | 7. 화일 재구성 | 8. 해시 조인 | 9. 서버 모드");
 
         int menuSelect = scanner.nextInt();
 
@@ -1056,7 +794,7 @@ public class Main {
                 //     System.out.println("잘못된 입력 형식입니다. '파일명,필드명' 형식으로 입력하세요.");
                 // }
 
-                System.out.println("merge join 으로 join 질의 결과를 확인합니다");
+                System.out.println("search key 로 join 질의 결과를 확인합니다 (조인 방법은 테이블 크기로 고릅니다)");
                 System.out.println("join 의 대상이 될 테이블 두개를 입력해주세요 : ");
                 String twoTable = scanner.next();
                 String[] tables = twoTable.split(",");
@@ -1070,19 +808,67 @@ public class Main {
                 // String rangeInput = scanner.next();
                 // String[] rangeParts = rangeInput.split(",");
                 // if (rangeParts.length == 4) {
-                //     rangeSearchRecord(rangeParts[0], rangeParts[1], rangeParts[2], rangeParts[3]);
+                //     printRangeSearch(rangeParts[0], rangeParts[1], rangeParts[2], rangeParts[3]);
                 //     // file, key, start, end
                 // } else {
                 //     System.out.println("잘못된 입력 형식입니다. '파일명,필드명,시작값,끝값' 형식으로 입력하세요.");
                 // }
                 break;
             case 5 :
-
-
+                System.out.println("예전 형식에서 업그레이드할 파일 이름을 입력해주세요 : ");
+                upgradeFile(scanner.next(), DEFAULT_PAGE_SIZE);
+                break;
+            case 6:
+                System.out.println("적재할 테이블 이름과 입력 파일 경로를 입력해주세요 (예: f1,records.txt) : ");
+                String[] loadInput = scanner.next().split(",");
+                try {
+                    BulkLoader.load(loadInput[0], loadInput[1]);
+                } catch (IOException | SQLException e) {
+                    System.out.println("대량 적재 중 오류 발생: " + e.getMessage());
+                }
+                break;
+            case 7:
+                System.out.println("재구성할 파일 이름을 입력해주세요 : ");
+                try {
+                    Reorganizer.reorganize(scanner.next());
+                } catch (IOException | SQLException e) {
+                    System.out.println("재구성 중 오류 발생: " + e.getMessage());
+                }
+                break;
+            case 8:
+                System.out.println("hash join 할 테이블과 컬럼을 입력해주세요 (예: f1,DEPT,f2,DEPT) : ");
+                String[] joinInput = scanner.next().split(",");
+                if (joinInput.length == 4) {
+                    printHashJoinResult(joinInput[0], joinInput[1], joinInput[2], joinInput[3]);
+                } else {
+                    System.out.println("잘못된 입력 형식입니다. '테이블,컬럼,테이블,컬럼' 형식으로 입력하세요.");
+                }
+                break;
+            case 9:
+                // 종료할 때까지 요청을 받는다 (포트는 -DdbSystem.server.port)
+                try {
+                    QueryServer.run(DbConst.SERVER_PORT);
+                } catch (IOException e) {
+                    System.out.println("서버 실행 중 오류 발생: " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                break;
             default:
                 System.out.println("잘못된 메뉴 선택입니다.");
                 break;
         }
+
+        // 버퍼 풀이 절약한 물리 I/O 확인
+        System.out.println(BufferPool.getInstance());
+        System.out.println(Metrics.snapshot());
+        if (!METRICS_EXPORT.isEmpty()) {
+            try {
+                Metrics.export(Paths.get(METRICS_EXPORT));
+            } catch (IOException e) {
+                System.out.println("동작 통계 내보내기 실패: " + e.getMessage());
+            }
+        }
     }
 
     private static void printSQLJoinResult(String table1, String table2) {
@@ -1094,11 +880,10 @@ public class Main {
             + " WHERE " + table1 + "." + rSearchKey + "=" + table2 + "." + sSearchKey
             + " ORDER BY " + table1 + "." + rSearchKey);
 
-        try {
-            Connection con = getConnection();
-            Statement stmt = con.createStatement();
+        try (PooledConnection con = getConnection();
+             Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery(sql.toString())) {
 
-            ResultSet rs = stmt.executeQuery(sql.toString());
             ResultSetMetaData metaData = rs.getMetaData();
             int columnCount = metaData.getColumnCount();
 
@@ -1126,11 +911,6 @@ public class Main {
 
             System.out.println("총 " + rowCount + "개 레코드 조회됨");
 
-            // 리소스 해제
-            rs.close();
-            stmt.close();
-            con.close();
-
         } catch (SQLException e) {
             System.out.println("SQL 조인 실행 중 오류 발생: " + e.getMessage());
             e.printStackTrace();
@@ -1139,130 +919,51 @@ public class Main {
     }
 
     private static void printJoinResult(String table1, String table2) {
-        System.out.println("\n🔍 " + table1 + "와 " + table2 + " 테이블의 " + " Sort-Merge Join 결과");
-
-        // 두 테이블에서 조인 키 범위 전체 검색
-        // 테이블1의 searchkey
-        String rSearchKey = getFirstColumnName(table1);
-        String sSearchKey = getFirstColumnName(table2);
-        List<Map<String, String>> rTable = rangeSearchRecord(table1, rSearchKey, "00001", "99999");
-        List<Map<String, String>> sTable = rangeSearchRecord(table2, sSearchKey, "00001", "99999");
-
-        // 결과가 없는 경우 처리
-        if (rTable.isEmpty() || sTable.isEmpty()) {
-            System.out.println("조인 결과가 없습니다. 하나 이상의 테이블에 레코드가 없습니다.");
-            return;
-        }
-
-        // 모든 컬럼 이름 가져오기
-        Set<String> allColumns = new LinkedHashSet<>();
-
-        // 양쪽 테이블의 필드명 모두 수집 (테이블명과 함께)
-        for (Map<String, String> record : rTable) {
-            for (String field : record.keySet()) {
-                allColumns.add(table1 + "." + field);
-            }
-        }
-
-        for (Map<String, String> record : sTable) {
-            for (String field : record.keySet()) {
-                allColumns.add(table2 + "." + field);
+        System.out.println("\n🔍 " + table1 + "와 " + table2 + " 테이블의 search key 조인 결과");
+
+        // 조인 방법은 두 테이블의 크기로 고르고, 결과는 받는 대로 출력한다
+        try (RangeCursor r = RangeCursor.open(table1, getFirstColumnName(table1), null, null);
+             RangeCursor s = RangeCursor.open(table2, getFirstColumnName(table2), null, null)) {
+            // 결과가 없는 경우 처리
+            if (r.isTableEmpty() || s.isTableEmpty()) {
+                System.out.println("조인 결과가 없습니다. 하나 이상의 테이블에 레코드가 없습니다.");
+                return;
             }
-        }
 
-        // 결과 테이블 헤더 출력
-        System.out.println("\n조인 결과:");
-        StringBuilder headerBuilder = new StringBuilder("| 번호 | ");
-        StringBuilder separatorBuilder = new StringBuilder("|------|");
+            JoinPlanner.Plan plan = JoinPlanner.plan(r, s);
+            System.out.println("실행 계획: " + plan);
+            JoinPlanner.execute(plan, r, s, new PrintingJoinSink());
 
-        for (String column : allColumns) {
-            headerBuilder.append(String.format(" %-20s |", column));
-            separatorBuilder.append("----------------------|");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException | SQLException e) {
+            System.out.println("조인 중 오류 발생: " + e.getMessage());
         }
+    }
 
-        String header = headerBuilder.toString();
-        String separator = separatorBuilder.toString();
-
-        System.out.println(separator);
-        System.out.println(header);
-        System.out.println(separator);
-
-        // Sort-Merge Join 알고리즘 구현
-        int joinCount = 0;
-        int r = 0;  // r 포인터
-        int s = 0;  // s 포인터
-        Integer mark = null;  // 블록 시작 위치 표시
-
-
-        while (r < rTable.size() && s < sTable.size()) {
-            String rKey = rTable.get(r).get(rSearchKey);
-            String sKey = sTable.get(s).get(sSearchKey);
+    /**
+     * 아무 컬럼으로나 조인 (hash join), 결과는 받는 대로 출력한다
+     */
+    private static void printHashJoinResult(String table1, String field1, String table2, String field2) {
+        System.out.println("\n🔍 " + table1 + "." + field1 + " = " + table2 + "." + field2 + " Hash Join 결과");
 
-            // null 값 처리
-            if (rKey == null) {
-                r++;
-                continue;
-            }
-            if (sKey == null) {
-                s++;
-                continue;
+        try (RangeCursor r = RangeCursor.open(table1, field1, null, null);
+             RangeCursor s = RangeCursor.open(table2, field2, null, null)) {
+            if (r.isTableEmpty() || s.isTableEmpty()) {
+                System.out.println("조인 결과가 없습니다. 하나 이상의 테이블에 레코드가 없습니다.");
+                return;
             }
 
-            // R < S인 경우 R 포인터 증가
-            if (rKey.compareTo(sKey) < 0) {
-                r++;
+            HashJoin hashJoin = new HashJoin();
+            hashJoin.join(r, s, new PrintingJoinSink());
+            if (hashJoin.getSpilledPartitions() > 0) {
+                System.out.println("메모리 한도를 넘어 " + hashJoin.getSpilledPartitions() + "개 partition 을 임시 파일로 나눠 조인했습니다.");
             }
-            // R > S인 경우 S 포인터 증가
-            else if (rKey.compareTo(sKey) > 0) {
-                s++;
-            }
-            // R = S인 경우 (조인 조건 만족)
-            else {
-                // 블록 시작점 표시가 없으면 현재 S 위치 저장
-                if (mark == null) {
-                    mark = s;
-                }
-
-                // 조인 결과 생성 및 출력
-                joinCount++;
-                StringBuilder rowBuilder = new StringBuilder(String.format("| %-4d |", joinCount));
-
-                // 조인 결과에 모든 필드 추가
-                Map<String, String> joinedRecord = new LinkedHashMap<>();
-
-                // table1의 레코드 필드
-                for (Map.Entry<String, String> entry : rTable.get(r).entrySet()) {
-                    joinedRecord.put(table1 + "." + entry.getKey(), entry.getValue());
-                }
-
-                // table2의 레코드 필드
-                for (Map.Entry<String, String> entry : sTable.get(s).entrySet()) {
-                    joinedRecord.put(table2 + "." + entry.getKey(), entry.getValue());
-                }
-
-                // 출력 행 구성
-                for (String column : allColumns) {
-                    String value = joinedRecord.getOrDefault(column, "NULL");
-                    rowBuilder.append(String.format(" %-20s |", value));
-                }
-                System.out.println(rowBuilder.toString());
 
-                // S 포인터 증가
-                s++;
-
-                // S 포인터가 끝에 도달하거나 키가 변경된 경우
-                if (s >= sTable.size() || !sTable.get(s).get(sSearchKey).equals(rKey)) {
-                    // R 포인터 증가
-                    r++;
-                    // S 포인터를 블록 시작점으로 리셋
-                    s = mark;
-                    // 새로운 블록의 시작을 위해 mark 초기화
-                    mark = null;
-                }
-            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException | SQLException e) {
+            System.out.println("조인 중 오류 발생: " + e.getMessage());
         }
-
-        System.out.println(separator);
-        System.out.println("조인된 레코드 수: " + joinCount);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,217 @@
+package dbSystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 파일을 chunkSize 단위로 나눠 메모리에 매핑한 영역
+ *
+ * 매핑은 파일 크기까지만 한다 (파일보다 크게 매핑하면 파일이 늘어난다). 파일 크기가 곧 모든 핸들이 같이 보는
+ * 파일 길이라서, 쓰기는 파일 끝을 넘기 전에 extendLock 안에서 필요한 만큼만 파일을 늘리고 다시 매핑한다.
+ * 다른 핸들이 늘린 부분을 읽으려 하면 그때 파일 크기를 다시 읽어 매핑을 넓힌다. 파일을 줄이지는 않는다.
+ */
+class MappedRegion {
+
+    private final FileChannel channel;
+    private final boolean readOnly;
+    private final int chunkSize;
+    // 같은 파일의 모든 핸들이 같이 쓰는, 파일을 늘리는 잠금
+    private final ReentrantLock extendLock;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+
+    MappedRegion(FileChannel channel, boolean readOnly, int chunkSize, ReentrantLock extendLock) throws IOException {
+        this.channel = channel;
+        this.readOnly = readOnly;
+        this.chunkSize = chunkSize;
+        this.extendLock = extendLock;
+        remap(channel.size());
+    }
+
+    /**
+     * 파일 크기 (다른 핸들이 늘린 것까지)
+     */
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * 파일 끝(블록 경계, dataStart 이상)에 새 블록 하나를 잡고 오프셋 반환
+     * 파일을 그 블록 끝까지 늘려 두므로 다른 핸들이 같은 블록을 잡지 않는다.
+     */
+    synchronized long allocate(long dataStart, int blockSize) throws IOException {
+        extendLock.lock();
+        try {
+            long size = channel.size();
+            long offset = Math.max(dataStart, (size + blockSize - 1) / blockSize * blockSize);
+            extend(offset + blockSize);
+            return offset;
+        } finally {
+            extendLock.unlock();
+        }
+    }
+
+    /**
+     * pos 부터 len 바이트 읽기, 매핑되지 않은 부분은 0
+     */
+    synchronized void read(long pos, byte[] dst, int off, int len) throws IOException {
+        refreshFor(pos + len);
+        while (len > 0) {
+            int index = (int) (pos / chunkSize);
+            int inChunk = (int) (pos % chunkSize);
+            int n = Math.min(len, chunkSize - inChunk);
+
+            if (index < chunks.size() && inChunk < chunks.get(index).limit()) {
+                MappedByteBuffer chunk = chunks.get(index);
+                int available = Math.min(n, chunk.limit() - inChunk);
+                chunk.get(inChunk, dst, off, available);
+                fill(dst, off + available, n - available);
+            } else {
+                fill(dst, off, n);
+            }
+
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    synchronized void write(long pos, byte[] src, int off, int len) throws IOException {
+        ensureWritable(pos + len);
+        while (len > 0) {
+            int inChunk = (int) (pos % chunkSize);
+            int n = Math.min(len, chunkSize - inChunk);
+
+            chunkFor(pos).put(inChunk, src, off, n);
+
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    synchronized byte getByte(long pos) throws IOException {
+        refreshFor(pos + 1);
+        int index = (int) (pos / chunkSize);
+        int inChunk = (int) (pos % chunkSize);
+        if (index >= chunks.size() || inChunk >= chunks.get(index).limit()) {
+            return 0;
+        }
+        return chunks.get(index).get(inChunk);
+    }
+
+    synchronized int getInt(long pos) throws IOException {
+        refreshFor(pos + 4);
+        int inChunk = (int) (pos % chunkSize);
+        int index = (int) (pos / chunkSize);
+        if (inChunk + 4 <= chunkSize && index < chunks.size() && inChunk + 4 <= chunks.get(index).limit()) {
+            return chunks.get(index).getInt(inChunk);
+        }
+
+        // chunk 경계를 넘는 경우
+        byte[] bytes = new byte[4];
+        read(pos, bytes, 0, 4);
+        return FileHeader.getInt(bytes, 0);
+    }
+
+    synchronized void putInt(long pos, int value) throws IOException {
+        ensureWritable(pos + 4);
+        int inChunk = (int) (pos % chunkSize);
+        if (inChunk + 4 <= chunkSize) {
+            chunkFor(pos).putInt(inChunk, value);
+        } else {
+            byte[] bytes = new byte[4];
+            FileHeader.putInt(bytes, 0, value);
+            write(pos, bytes, 0, 4);
+        }
+    }
+
+    /**
+     * 매핑된 내용을 디스크에 반영
+     */
+    synchronized void force() {
+        if (readOnly) {
+            return;
+        }
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    private MappedByteBuffer chunkFor(long pos) {
+        return chunks.get((int) (pos / chunkSize));
+    }
+
+    /**
+     * end 까지 쓸 수 있게 파일을 늘리고 매핑
+     */
+    private void ensureWritable(long end) throws IOException {
+        if (readOnly) {
+            throw new IOException("읽기 전용 매핑에는 쓸 수 없습니다.");
+        }
+        if (mappedSize() >= end) {
+            return;
+        }
+        extendLock.lock();
+        try {
+            extend(end);
+        } finally {
+            extendLock.unlock();
+        }
+    }
+
+    /**
+     * 파일이 end 보다 작으면 end 까지 늘리고 다시 매핑 (extendLock 안에서 호출)
+     */
+    private void extend(long end) throws IOException {
+        if (channel.size() < end) {
+            // 0 으로 채워진 영역이 생긴다, 파일을 줄이지는 않는다
+            channel.write(ByteBuffer.wrap(new byte[1]), end - 1);
+        }
+        remap(channel.size());
+    }
+
+    /**
+     * end 까지 매핑되어 있지 않으면 다른 핸들이 파일을 늘렸을 수 있으므로 파일 크기를 다시 읽는다
+     */
+    private void refreshFor(long end) throws IOException {
+        if (mappedSize() < end) {
+            remap(channel.size());
+        }
+    }
+
+    /**
+     * size 까지 매핑, 끝이 잘린 마지막 chunk 는 다시 매핑한다
+     */
+    private void remap(long size) throws IOException {
+        FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        for (int index = 0; (long) index * chunkSize < size; index++) {
+            long start = (long) index * chunkSize;
+            int want = (int) Math.min(chunkSize, size - start);
+            if (index < chunks.size()) {
+                if (chunks.get(index).limit() < want) {
+                    chunks.set(index, channel.map(mode, start, want));
+                }
+            } else {
+                chunks.add(channel.map(mode, start, want));
+            }
+        }
+    }
+
+    private long mappedSize() {
+        if (chunks.isEmpty()) {
+            return 0;
+        }
+        return (long) (chunks.size() - 1) * chunkSize + chunks.get(chunks.size() - 1).limit();
+    }
+
+    private static void fill(byte[] dst, int off, int len) {
+        for (int i = 0; i < len; i++) {
+            dst[off + i] = 0;
+        }
+    }
+}
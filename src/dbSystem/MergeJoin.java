@@ -0,0 +1,102 @@
+package dbSystem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * search key 순서로 읽는 두 커서를 그대로 병합하는 sort-merge join (left.key = right.key)
+ *
+ * 양쪽을 한 번씩만 읽고, 메모리에는 오른쪽(inner)의 현재 key 묶음만 둔다.
+ * 같은 key 가 아주 많아 묶음이 JOIN_MEMORY 를 넘으면 임시 파일로 내보내고 왼쪽 레코드마다 다시 읽는다.
+ * 결과는 JoinSink 로 바로 넘기므로 힙보다 큰 테이블끼리도 조인할 수 있다.
+ * key 가 null 인 레코드는 조인되지 않는다.
+ */
+public class MergeJoin {
+
+    /**
+     * 두 커서를 조인하고 결과 쌍의 수 반환, 커서는 호출한 쪽에서 닫는다.
+     */
+    public static long join(RangeCursor left, RangeCursor right, JoinSink sink) throws IOException {
+        return join(left, right, sink, DbConst.JOIN_MEMORY);
+    }
+
+    /**
+     * 같은 key 묶음을 memoryLimit 바이트까지만 메모리에 두고 조인 (테스트에서 임시 파일 경로를 탈 때)
+     */
+    static long join(RangeCursor left, RangeCursor right, JoinSink sink, long memoryLimit) throws IOException {
+        if (!left.isSorted() || !right.isSorted()) {
+            throw new IllegalArgumentException("merge join 은 search key 로 연 커서만 조인할 수 있습니다.");
+        }
+        JfrEvents.Join event = new JfrEvents.Join();
+        event.begin();
+        long start = System.nanoTime();
+
+        TableSchema leftSchema = left.getSchema();
+        TableSchema rightSchema = right.getSchema();
+        int leftKey = left.getKeyFieldIndex();
+        int rightKey = right.getKeyFieldIndex();
+
+        sink.begin(qualifiedColumns(leftSchema), qualifiedColumns(rightSchema));
+
+        String[] leftValues = new String[leftSchema.getColumnCount()];
+        String[] rightValues = new String[rightSchema.getColumnCount()];
+        long joinCount = 0;
+
+        try (SpillDirectory spillDir = new SpillDirectory(rightSchema.getTableName() + ".join");
+             RowBuffer group = new RowBuffer(rightValues.length, memoryLimit, spillDir, "group")) {
+            // 오른쪽의 다음 레코드 (아직 묶음에 넣지 않은 것)
+            boolean rightHas = right.next();
+            byte[] groupKey = null;
+
+            while (left.next()) {
+                // key 는 레코드 바이트끼리 비교하고, String 은 결과로 내보내는 행에만 만든다
+                BinaryRow key = left.row().binary();
+                if (key.isNull(leftKey)) {
+                    continue;
+                }
+
+                if (!key.fieldEquals(leftKey, groupKey)) {
+                    // 새 key: 오른쪽을 key 까지 건너뛰고, 같은 key 의 레코드를 묶음으로 모은다
+                    group.clear();
+                    groupKey = null;
+                    while (rightHas && right.row().binary().compareField(rightKey, key, leftKey) < 0) {
+                        rightHas = right.next();
+                    }
+                    if (!rightHas) {
+                        break;
+                    }
+                    while (rightHas && right.row().binary().compareField(rightKey, key, leftKey) == 0) {
+                        right.row().copyTo(rightValues);
+                        group.add(rightValues);
+                        rightHas = right.next();
+                    }
+                    if (group.size() == 0) {
+                        continue;
+                    }
+                    groupKey = key.copyField(leftKey);
+                }
+
+                // 왼쪽 레코드 하나와 묶음 전체
+                left.row().copyTo(leftValues);
+                group.forEach(row -> sink.accept(leftValues, row));
+                joinCount += group.size();
+            }
+        }
+
+        sink.end(joinCount);
+        Metrics.recordJoin(JoinPlanner.Method.MERGE, left, right, joinCount, start, event);
+        return joinCount;
+    }
+
+    /**
+     * "테이블.컬럼" 형식의 컬럼 이름 목록
+     */
+    static List<String> qualifiedColumns(TableSchema schema) {
+        List<String> columns = new ArrayList<>();
+        for (String column : schema.getColumnNames()) {
+            columns.add(schema.getTableName() + "." + column);
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,300 @@
+package dbSystem;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 동작 단위의 카운터와 지연 시간 분포 (프로세스 전체에서 하나)
+ *
+ * 카운터는 LongAdder 라서 여러 스레드가 같이 올려도 서로 기다리지 않는다.
+ * snapshot 으로 지금 값을 복사해서 출력하거나 Prometheus 텍스트 형식으로 내보낸다.
+ * 같은 지점의 JFR 이벤트는 JfrEvents 에 있다.
+ */
+public final class Metrics {
+
+    public enum Counter {
+        BLOCK_READS("block_reads", "논리 블록 읽기"),
+        BLOCK_WRITES("block_writes", "논리 블록 쓰기"),
+        PHYSICAL_READS("physical_reads", "물리 블록 읽기"),
+        PHYSICAL_WRITES("physical_writes", "물리 블록 쓰기"),
+        BYTES_READ("bytes_read", "디스크에서 읽은 바이트"),
+        BYTES_WRITTEN("bytes_written", "디스크에 쓴 바이트"),
+        METADATA_LOOKUPS("metadata_lookups", "스키마 조회"),
+        METADATA_FILE_LOADS("metadata_file_loads", "파일 헤더에서 스키마 로드"),
+        METADATA_DB_LOADS("metadata_db_loads", "DB 메타데이터에서 스키마 로드"),
+        JDBC_BORROWS("jdbc_borrows", "커넥션 대여"),
+        JDBC_PREPARES("jdbc_prepares", "Statement 준비"),
+        JDBC_BATCHES("jdbc_batches", "배치 실행"),
+        INSERTS("inserts", "정렬 삽입"),
+        INSERT_CHAIN_HOPS("insert_chain_hops", "삽입 위치를 찾으며 따라간 레코드"),
+        SCANS("scans", "범위 검색"),
+        RECORDS_EXAMINED("records_examined", "검사한 레코드"),
+        RECORDS_RETURNED("records_returned", "검색된 레코드"),
+        JOINS("joins", "조인"),
+        JOIN_ROWS("join_rows", "조인 결과 쌍");
+
+        private final String exportName;
+        private final String label;
+
+        Counter(String exportName, String label) {
+            this.exportName = exportName;
+            this.label = label;
+        }
+
+        public String getExportName() {
+            return exportName;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * 지연 시간을 재는 동작
+     */
+    public enum Operation {
+        INSERT("insert", "정렬 삽입"),
+        RANGE_SCAN("range_scan", "범위 검색 (open ~ close)"),
+        MERGE_JOIN("merge_join", "merge join"),
+        HASH_JOIN("hash_join", "hash join"),
+        INDEX_NESTED_LOOP_JOIN("index_nested_loop_join", "index nested loop join"),
+        METADATA_LOAD("metadata_load", "스키마 로드 (캐시에 없을 때)"),
+        PHYSICAL_READ("physical_read", "물리 블록 읽기"),
+        PHYSICAL_WRITE("physical_write", "물리 블록 쓰기"),
+        BULK_LOAD("bulk_load", "대량 적재");
+
+        private final String exportName;
+        private final String label;
+
+        Operation(String exportName, String label) {
+            this.exportName = exportName;
+            this.label = label;
+        }
+
+        public String getExportName() {
+            return exportName;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final LongAdder[] COUNTERS = new LongAdder[Counter.values().length];
+    private static final Histogram[] LATENCIES = new Histogram[Operation.values().length];
+    // 삽입 한 건이 삽입 위치를 찾으며 따라간 레코드 수의 분포
+    private static final Histogram CHAIN_HOPS = new Histogram();
+
+    static {
+        for (int i = 0; i < COUNTERS.length; i++) {
+            COUNTERS[i] = new LongAdder();
+        }
+        for (int i = 0; i < LATENCIES.length; i++) {
+            LATENCIES[i] = new Histogram();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static void increment(Counter counter) {
+        COUNTERS[counter.ordinal()].increment();
+    }
+
+    public static void add(Counter counter, long amount) {
+        COUNTERS[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * startNanos(System.nanoTime) 부터 지금까지를 operation 의 지연 시간으로 기록
+     */
+    public static void record(Operation operation, long startNanos) {
+        LATENCIES[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    static void recordChainHops(int hops) {
+        CHAIN_HOPS.record(hops);
+        add(Counter.INSERT_CHAIN_HOPS, hops);
+    }
+
+    /**
+     * 조인 하나가 끝났을 때 호출, 조인 수와 결과 쌍을 세고 방법별 지연 시간을 기록한 뒤 JFR 이벤트를 커밋한다.
+     */
+    static void recordJoin(JoinPlanner.Method method, RangeCursor left, RangeCursor right, long rows,
+                           long startNanos, JfrEvents.Join event) {
+        increment(Counter.JOINS);
+        add(Counter.JOIN_ROWS, rows);
+        record(joinOperation(method), startNanos);
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = method.getDisplayName();
+            event.left = left.getSchema().getTableName();
+            event.right = right.getSchema().getTableName();
+            event.rows = rows;
+            event.commit();
+        }
+    }
+
+    private static Operation joinOperation(JoinPlanner.Method method) {
+        switch (method) {
+            case INDEX_NESTED_LOOP:
+                return Operation.INDEX_NESTED_LOOP_JOIN;
+            case MERGE:
+                return Operation.MERGE_JOIN;
+            default:
+                return Operation.HASH_JOIN;
+        }
+    }
+
+    public static Snapshot snapshot() {
+        Map<Counter, Long> counters = new EnumMap<>(Counter.class);
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, COUNTERS[counter.ordinal()].sum());
+        }
+        Map<Operation, Histogram.Snapshot> latencies = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, LATENCIES[operation.ordinal()].snapshot());
+        }
+        return new Snapshot(System.currentTimeMillis(), counters, latencies, CHAIN_HOPS.snapshot());
+    }
+
+    /**
+     * 모든 카운터와 분포를 0 으로 (벤치마크 구간을 나눌 때)
+     */
+    public static void reset() {
+        for (LongAdder counter : COUNTERS) {
+            counter.reset();
+        }
+        for (Histogram histogram : LATENCIES) {
+            histogram.reset();
+        }
+        CHAIN_HOPS.reset();
+    }
+
+    /**
+     * 지금 값을 Prometheus 텍스트 형식으로 파일에 쓴다 (있으면 덮어쓴다)
+     */
+    public static void export(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            snapshot().export(writer);
+        }
+    }
+
+    /**
+     * 한 시점의 카운터와 분포 (지연 시간은 ns)
+     */
+    public static class Snapshot {
+        private final long takenAtMillis;
+        private final Map<Counter, Long> counters;
+        private final Map<Operation, Histogram.Snapshot> latencies;
+        private final Histogram.Snapshot chainHops;
+
+        Snapshot(long takenAtMillis, Map<Counter, Long> counters, Map<Operation, Histogram.Snapshot> latencies,
+                 Histogram.Snapshot chainHops) {
+            this.takenAtMillis = takenAtMillis;
+            this.counters = counters;
+            this.latencies = latencies;
+            this.chainHops = chainHops;
+        }
+
+        public long getTakenAtMillis() {
+            return takenAtMillis;
+        }
+
+        public long get(Counter counter) {
+            return counters.get(counter);
+        }
+
+        public Histogram.Snapshot getLatency(Operation operation) {
+            return latencies.get(operation);
+        }
+
+        public Histogram.Snapshot getChainHops() {
+            return chainHops;
+        }
+
+        /**
+         * 검사한 레코드 중 검색된 레코드의 비율, 검사한 레코드가 없으면 0
+         */
+        public double getScanSelectivity() {
+            long examined = get(Counter.RECORDS_EXAMINED);
+            return examined == 0 ? 0 : (double) get(Counter.RECORDS_RETURNED) / examined;
+        }
+
+        /**
+         * Prometheus 텍스트 형식 (카운터는 _total, 지연 시간은 초 단위 summary)
+         */
+        public void export(Appendable out) throws IOException {
+            for (Counter counter : Counter.values()) {
+                String name = "dbsystem_" + counter.getExportName() + "_total";
+                out.append("# HELP ").append(name).append(' ').append(counter.getLabel()).append('\n');
+                out.append("# TYPE ").append(name).append(" counter\n");
+                out.append(name).append(' ').append(Long.toString(get(counter))).append('\n');
+            }
+            for (Operation operation : Operation.values()) {
+                exportSummary(out, "dbsystem_" + operation.getExportName() + "_seconds", operation.getLabel(),
+                        getLatency(operation), 1e-9);
+            }
+            exportSummary(out, "dbsystem_insert_chain_hops", Counter.INSERT_CHAIN_HOPS.getLabel(), chainHops, 1);
+        }
+
+        private static void exportSummary(Appendable out, String name, String help, Histogram.Snapshot histogram,
+                                          double scale) throws IOException {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (double quantile : QUANTILES) {
+                out.append(name).append("{quantile=\"").append(Double.toString(quantile)).append("\"} ")
+                        .append(number(histogram.getPercentile(quantile) * scale)).append('\n');
+            }
+            out.append(name).append("_sum ").append(number(histogram.getSum() * scale)).append('\n');
+            out.append(name).append("_count ").append(Long.toString(histogram.getCount())).append('\n');
+        }
+
+        private static String number(double value) {
+            return value == Math.rint(value) && Math.abs(value) < 1e15
+                    ? Long.toString((long) value)
+                    : String.format(Locale.ROOT, "%.9g", value);
+        }
+
+        /**
+         * 콘솔에 보여 줄 요약 (값이 0 인 항목은 뺀다)
+         */
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder("동작 통계:");
+            for (Counter counter : Counter.values()) {
+                long value = get(counter);
+                if (value != 0) {
+                    text.append(String.format("%n  %,15d  %s", value, counter.getLabel()));
+                }
+            }
+            if (get(Counter.RECORDS_EXAMINED) > 0) {
+                text.append(String.format("%n  검색된 레코드 / 검사한 레코드: %.1f%%", getScanSelectivity() * 100));
+            }
+            if (chainHops.getCount() > 0) {
+                text.append(String.format("%n  삽입당 따라간 레코드: 평균 %.1f, p99 %d, 최대 %d",
+                        chainHops.getMean(), chainHops.getPercentile(0.99), chainHops.getMax()));
+            }
+            for (Operation operation : Operation.values()) {
+                Histogram.Snapshot latency = getLatency(operation);
+                if (latency.getCount() > 0) {
+                    text.append(String.format("%n  %s: %,d회, 평균 %.1f us, p50 %.1f us, p99 %.1f us, 최대 %.1f us",
+                            operation.getLabel(), latency.getCount(), latency.getMean() / 1e3,
+                            latency.getPercentile(0.5) / 1e3, latency.getPercentile(0.99) / 1e3,
+                            latency.getMax() / 1e3));
+                }
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package dbSystem;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * search key 범위를 여러 조각으로 나눠 동시에 읽는 범위 검색
+ *
+ * 조각의 경계는 B+ 트리의 분리 키(fence key)로 정하므로 조각마다 레코드 수가 비슷하다.
+ * 조각마다 자기 RangeCursor(파일 핸들, prefetcher)로 인덱스에서 시작 위치를 찾아 체인을 따라가고,
+ * 조각들은 parallelism 개 스레드의 ForkJoinPool 에서 실행된다 (기본값 SCAN_PARALLELISM).
+ * collect 는 조각 순서대로 이어 붙여 key 순서를 지키고, forEach 는 순서 없이 읽는 대로 넘긴다.
+ *
+ * key 가 null 인 레코드는 포함하지 않는다. 인덱스가 없는 파일(예전 형식)은 한 조각으로 읽는다.
+ */
+public class ParallelRangeScan implements AutoCloseable {
+
+    // 스레드마다 조각을 몇 개씩 나눠 줄지 (조각 크기가 조금씩 달라도 스레드가 놀지 않도록)
+    private static final int PARTS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final int parts;
+
+    /**
+     * 조각 하나에서 읽은 레코드를 받는 곳, 여러 스레드에서 동시에 호출된다.
+     * row 는 호출이 끝나면 다음 레코드로 바뀐다.
+     */
+    public interface RowSink {
+        void accept(RowView row) throws IOException;
+    }
+
+    public ParallelRangeScan() {
+        this(DbConst.SCAN_PARALLELISM);
+    }
+
+    public ParallelRangeScan(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.parts = parallelism * PARTS_PER_THREAD;
+    }
+
+    /**
+     * startValue ~ endValue 의 레코드를 key 순서대로 모아서 반환
+     */
+    public List<Map<String, String>> collect(String tableName, String startValue, String endValue)
+            throws IOException, SQLException {
+        List<String> bounds = split(tableName, startValue, endValue);
+
+        List<ForkJoinTask<List<Map<String, String>>>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            String from = bounds.get(i);
+            String to = bounds.get(i + 1);
+            boolean last = i + 2 == bounds.size();
+            tasks.add(pool.submit(() -> {
+                List<Map<String, String>> rows = new ArrayList<>();
+                scanPart(tableName, from, to, last, row -> rows.add(row.toMap()));
+                return rows;
+            }));
+        }
+
+        List<Map<String, String>> results = new ArrayList<>();
+        for (ForkJoinTask<List<Map<String, String>>> task : tasks) {
+            results.addAll(await(task));
+        }
+        return results;
+    }
+
+    /**
+     * startValue ~ endValue 의 레코드를 순서 없이 sink 로 넘기고 레코드 수 반환
+     */
+    public long forEach(String tableName, String startValue, String endValue, RowSink sink)
+            throws IOException, SQLException {
+        List<String> bounds = split(tableName, startValue, endValue);
+        AtomicLong count = new AtomicLong();
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            String from = bounds.get(i);
+            String to = bounds.get(i + 1);
+            boolean last = i + 2 == bounds.size();
+            tasks.add(pool.submit(() -> {
+                scanPart(tableName, from, to, last, row -> {
+                    sink.accept(row);
+                    count.incrementAndGet();
+                });
+                return null;
+            }));
+        }
+
+        // 하나가 실패해도 나머지가 끝날 때까지 기다린 뒤 첫 오류를 던진다
+        IOException failure = null;
+        for (ForkJoinTask<?> task : tasks) {
+            try {
+                await(task);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return count.get();
+    }
+
+    /**
+     * 조각 경계 목록 [startValue, k1, k2, ..., endValue], 조각 i 는 [경계 i, 경계 i+1) 이고 마지막 조각만 끝을 포함한다.
+     */
+    List<String> split(String tableName, String startValue, String endValue) throws IOException, SQLException {
+        List<String> bounds = new ArrayList<>();
+        bounds.add(startValue);
+
+        TableSchema schema = SchemaCatalog.get(tableName);
+        TableLocks locks = TableLocks.of(tableName);
+        locks.swapRead().lock();
+        try (BlockFile file = BlockFile.open(tableName + ".txt", "r")) {
+            BPlusTree index = parts > 1 && file.length() >= file.getBlockSize() ? file.getIndex(schema) : null;
+            if (index != null) {
+                byte[] lo = startValue == null ? null : index.encodeKey(startValue);
+                byte[] hi = endValue == null ? null : index.encodeKey(endValue);
+                for (byte[] key : index.splitKeys(lo, hi, parts)) {
+                    bounds.add(index.decodeKey(key));
+                }
+            }
+        } finally {
+            locks.swapRead().unlock();
+        }
+
+        bounds.add(endValue);
+        return bounds;
+    }
+
+    /**
+     * [from, to) 조각 읽기 (includeEnd 면 to 포함), null 이면 그쪽은 끝까지
+     */
+    private static void scanPart(String tableName, String from, String to, boolean includeEnd, RowSink sink)
+            throws IOException, SQLException {
+        // 다음 조각의 첫 key 는 레코드 바이트와 직접 비교한다 (레코드마다 String 을 만들지 않는다)
+        byte[] end = includeEnd || to == null ? null : KeyComparator.encode(to);
+        // 시작 key 가 없으면 key 가 null 인 레코드를 건너뛰도록 빈 문자열부터 읽는다
+        try (RangeCursor cursor = RangeCursor.open(tableName, SchemaCatalog.get(tableName).getSearchKey(),
+                from == null ? "" : from, to)) {
+            while (cursor.next()) {
+                RowView row = cursor.row();
+                if (end != null && row.binary().compareField(0, end) >= 0) {
+                    // 다음 조각의 첫 key
+                    break;
+                }
+                sink.accept(row);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static <T> T await(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("병렬 범위 검색이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("병렬 범위 검색 중 오류 발생: " + cause.getMessage(), cause);
+        }
+    }
+}
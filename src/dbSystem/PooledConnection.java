@@ -0,0 +1,139 @@
+package dbSystem;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 풀에서 빌린 커넥션
+ *
+ * close() 는 실제 커넥션을 닫지 않고 풀에 반납한다.
+ * prepareStatement 로 얻은 PreparedStatement 는 커넥션마다 캐싱되므로 호출하는 쪽에서 닫지 않는다.
+ */
+public class PooledConnection implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+
+    // SQL 문자열 → PreparedStatement (LRU)
+    private final Map<String, PreparedStatement> statementCache;
+
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > statementCacheSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public DatabaseMetaData getMetaData() throws SQLException {
+        return connection.getMetaData();
+    }
+
+    /**
+     * 일회성 Statement, 호출하는 쪽에서 닫아야 한다.
+     */
+    public Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    /**
+     * 캐싱된 PreparedStatement 가져오기, 없으면 새로 준비
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        PreparedStatement stmt = statementCache.get(sql);
+        if (stmt == null || stmt.isClosed()) {
+            Metrics.increment(Metrics.Counter.JDBC_PREPARES);
+            stmt = connection.prepareStatement(sql);
+            statementCache.put(sql, stmt);
+        } else {
+            stmt.clearParameters();
+        }
+        return stmt;
+    }
+
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        connection.setAutoCommit(autoCommit);
+    }
+
+    public void commit() throws SQLException {
+        connection.commit();
+    }
+
+    public void rollback() throws SQLException {
+        connection.rollback();
+    }
+
+    /**
+     * 풀에 반납
+     */
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    boolean isUsable() {
+        try {
+            return !connection.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 반납 전에 커밋되지 않은 작업을 되돌리고 autocommit 을 복구
+     */
+    boolean resetForReuse() {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            for (PreparedStatement stmt : statementCache.values()) {
+                stmt.clearBatch();
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysical() {
+        for (PreparedStatement stmt : statementCache.values()) {
+            closeQuietly(stmt);
+        }
+        statementCache.clear();
+
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // 이미 끊어진 커넥션
+        }
+    }
+
+    private static void closeQuietly(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException ignored) {
+            // 닫는 중 오류는 무시
+        }
+    }
+}
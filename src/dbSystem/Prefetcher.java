@@ -0,0 +1,122 @@
+package dbSystem;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 포인터 체인을 따라 읽을 때 앞으로 읽을 블록을 미리 버퍼 풀에 올려두는 read-ahead
+ *
+ * 체인을 따라가며 읽는 블록 번호가 앞으로만 조금씩 나아가면(forward run) 순차 접근으로 보고,
+ * 다음 PREFETCH_BLOCKS 개 블록을 백그라운드 스레드에서 한 번의 읽기로 가져와 버퍼 풀에 넣는다.
+ * 남은 미리 읽은 블록이 절반 아래로 줄면 다음 묶음을 요청하고, 뒤로 돌아가거나 멀리 건너뛰면 멈춘다.
+ *
+ * MAPPED 방식은 운영체제가 매핑 영역을 미리 읽으므로 쓰지 않는다.
+ */
+public class Prefetcher {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(DbConst.PREFETCH_THREADS, r -> {
+        Thread thread = new Thread(r, "prefetcher-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BlockFile file;
+    private final int window;
+
+    private long lastBlock = -1;
+    private int runLength;
+    // 이미 요청한 마지막 블록 번호
+    private long requestedUntil = -1;
+    private Future<?> pending;
+    private boolean closed;
+
+    private Prefetcher(BlockFile file, int window) {
+        this.file = file;
+        this.window = window;
+    }
+
+    /**
+     * 파일에 붙일 prefetcher, 미리 읽을 수 없는 설정이면 null
+     */
+    static Prefetcher create(BlockFile file) {
+        if (DbConst.PREFETCH_BLOCKS <= 0 || file.getStorageMode() == StorageMode.MAPPED) {
+            return null;
+        }
+        // 미리 읽은 블록끼리 버퍼 풀에서 서로 밀어내지 않도록 풀의 1/4 까지만
+        int window = Math.min(DbConst.PREFETCH_BLOCKS, BufferPool.getInstance().getCapacity() / 4);
+        return window < 2 ? null : new Prefetcher(file, window);
+    }
+
+    /**
+     * 블록을 읽을 때마다 호출, 순차 접근이 이어지면 다음 블록들을 요청한다.
+     */
+    synchronized void access(long blockNo) throws IOException {
+        if (closed || blockNo == lastBlock) {
+            return;
+        }
+        if (blockNo > lastBlock && blockNo <= lastBlock + window) {
+            runLength++;
+        } else {
+            runLength = 0;
+            requestedUntil = -1;
+        }
+        lastBlock = blockNo;
+
+        if (runLength < DbConst.PREFETCH_TRIGGER || requestedUntil >= blockNo + window / 2) {
+            return;
+        }
+        if (pending != null && !pending.isDone()) {
+            return;
+        }
+
+        long from = Math.max(requestedUntil + 1, blockNo + 1);
+        long to = Math.min(blockNo + window, file.length() / file.getBlockSize() - 1);
+        if (from > to) {
+            return;
+        }
+        requestedUntil = to;
+        pending = EXECUTOR.submit(() -> load(from, (int) (to - from + 1)));
+    }
+
+    private void load(long firstBlock, int blocks) {
+        BufferPool pool = BufferPool.getInstance();
+        try {
+            // 읽는 사이에 버퍼 풀의 페이지가 디스크에 쓰이거나 버려졌으면 읽은 내용은 버린다
+            long version = pool.getVersion();
+            byte[] data = new byte[blocks * file.getBlockSize()];
+            int read = file.readPhysicalRun(firstBlock, data);
+            pool.preload(file, firstBlock, data, read / file.getBlockSize(), version);
+        } catch (IOException e) {
+            // 미리 읽기는 실패해도 원래 읽기에서 다시 읽으므로 무시한다
+        }
+    }
+
+    /**
+     * 파일을 닫기 전에 호출, 진행 중인 미리 읽기가 끝날 때까지 기다린다.
+     * (파일이 교체된 뒤에 예전 파일의 페이지가 버퍼 풀에 들어가지 않도록)
+     */
+    void close() {
+        Future<?> last;
+        synchronized (this) {
+            last = pending;
+            pending = null;
+            closed = true;
+        }
+        if (last == null) {
+            return;
+        }
+        try {
+            last.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // load 에서 처리하지 못한 예외는 없다
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package dbSystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 조인 결과를 받는 대로 표로 출력하는 JoinSink
+ */
+public class PrintingJoinSink implements JoinSink {
+
+    private TablePrinter printer;
+    private String[] joined;
+    private int rowNumber;
+
+    @Override
+    public void begin(List<String> leftColumns, List<String> rightColumns) {
+        List<String> columns = new ArrayList<>(leftColumns);
+        columns.addAll(rightColumns);
+        printer = new TablePrinter(columns, 20);
+        joined = new String[columns.size()];
+
+        System.out.println("\n조인 결과:");
+        printer.printHeader();
+    }
+
+    @Override
+    public void accept(String[] left, String[] right) {
+        System.arraycopy(left, 0, joined, 0, left.length);
+        System.arraycopy(right, 0, joined, left.length, right.length);
+        printer.printRow(++rowNumber, Arrays.asList(joined));
+    }
+
+    @Override
+    public void end(long joinCount) {
+        printer.printFooter();
+        System.out.println("조인된 레코드 수: " + joinCount);
+    }
+}
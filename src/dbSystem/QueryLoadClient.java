@@ -0,0 +1,184 @@
+package dbSystem;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * QueryServer 부하 테스트, 세션 수를 1, 2, 4, ... 로 늘리면서 요청 지연 시간(p50, p99)과 처리량 측정
+ *
+ * 세션마다 연결 하나를 열고 INSERT 와 RANGE 를 섞어 보낸다 (RANGE 비율은 -Dbench.readRatio, 기본 0.2).
+ * 포트를 주면 떠 있는 서버에 붙고, 없으면 이 JVM 안에 서버를 띄운다.
+ *
+ * 사용법: java dbSystem.QueryLoadClient [세션당 요청 수] [최대 세션 수] [포트]  (Java 21 이상)
+ */
+public class QueryLoadClient {
+
+    private static final String TABLE = "bench_server";
+
+    public static void main(String[] args) throws Exception {
+        int perSession = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int maxSessions = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        double readRatio = Double.parseDouble(System.getProperty("bench.readRatio", "0.2"));
+
+        PrintStream console = System.out;
+        QueryServer server = null;
+        int port;
+        if (args.length > 2) {
+            port = Integer.parseInt(args[2]);
+        } else {
+            // 서버의 삽입, 검색 메시지는 버리고 측정 결과만 출력한다
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            server = new QueryServer(0, new PrintStream(OutputStream.nullOutputStream()));
+            server.start();
+            port = server.getPort();
+        }
+
+        try {
+            try (Connection setup = new Connection(port)) {
+                setup.request("CREATE " + TABLE + " ID:8,NAME:20,DEPT:4");
+            }
+            console.println("세션당 요청 " + perSession + "개, RANGE 비율 " + readRatio + ", 코어 "
+                    + Runtime.getRuntime().availableProcessors() + "개"
+                    + (server != null ? ", 같은 JVM 의 서버 (로그 방식 " + WriteAheadLog.getDurability() + ")"
+                    : ", 포트 " + port + " 의 서버"));
+
+            // 연결, 클래스 로딩, 버퍼 풀을 데워 두는 실행은 출력하지 않는다
+            run(port, 1, Math.min(perSession, 200), readRatio);
+            for (int sessions = 1; sessions <= maxSessions; sessions *= 2) {
+                print(console, sessions, run(port, sessions, perSession, readRatio));
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+            System.setOut(console);
+        }
+    }
+
+    /**
+     * sessions 개 세션이 동시에 perSession 개씩 요청, 요청마다의 지연 시간(ns)과 전체 시간 반환
+     */
+    private static Result run(int port, int sessions, int perSession, double readRatio) throws Exception {
+        List<Future<long[]>> futures = new ArrayList<>();
+        long start;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            start = System.nanoTime();
+            for (int s = 0; s < sessions; s++) {
+                futures.add(clients.submit(() -> session(port, perSession, readRatio)));
+            }
+        }
+        long nanos = System.nanoTime() - start;
+
+        long[] latencies = new long[sessions * perSession];
+        int n = 0;
+        for (Future<long[]> future : futures) {
+            long[] part = future.get();
+            System.arraycopy(part, 0, latencies, n, part.length);
+            n += part.length;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, nanos);
+    }
+
+    private static long[] session(int port, int requests, double readRatio) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[requests];
+        try (Connection connection = new Connection(port)) {
+            for (int i = 0; i < requests; i++) {
+                int key = random.nextInt(100000000);
+                String request = random.nextDouble() < readRatio
+                        ? "RANGE " + TABLE + " ID " + String.format("%08d", key) + " " + String.format("%08d", key + 100000)
+                        : "INSERT " + TABLE + " " + String.format("%08d", key) + ";name" + i + ";d" + i % 50;
+                long start = System.nanoTime();
+                connection.request(request);
+                latencies[i] = System.nanoTime() - start;
+            }
+        }
+        return latencies;
+    }
+
+    private static void print(PrintStream console, int sessions, Result result) {
+        long[] latencies = result.latencies;
+        console.printf("  %3d 세션 %9.1f ms (%,8.0f ops/sec) p50 %7.2f ms, p99 %7.2f ms, 최대 %7.2f ms%n",
+                sessions, result.nanos / 1e6, latencies.length * 1e9 / result.nanos,
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+    }
+
+    private static final class Result {
+        final long[] latencies;
+        final long nanos;
+
+        Result(long[] latencies, long nanos) {
+            this.latencies = latencies;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * 서버와의 연결 하나, 요청을 보내고 OK 까지 읽는다
+     */
+    static final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+
+        Connection(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), KeyComparator.CHARSET));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), KeyComparator.CHARSET));
+        }
+
+        /**
+         * 요청 한 줄을 보내고 결과 행 수 반환, ERR 이면 IOException
+         */
+        long request(String line) throws IOException {
+            out.write(line);
+            out.newLine();
+            out.flush();
+            long rows = 0;
+            String reply;
+            while ((reply = in.readLine()) != null) {
+                if (reply.startsWith("ROW ")) {
+                    rows++;
+                } else if (reply.startsWith("OK")) {
+                    return rows;
+                } else if (reply.startsWith("ERR")) {
+                    throw new IOException("서버 오류: " + reply.substring(3).trim() + " (요청: " + line + ")");
+                }
+            }
+            throw new IOException("서버가 연결을 끊었습니다 (요청: " + line + ")");
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.write("QUIT");
+                out.newLine();
+                out.flush();
+            } finally {
+                socket.close();
+            }
+        }
+    }
+}
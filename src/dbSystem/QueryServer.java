@@ -0,0 +1,327 @@
+package dbSystem;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 파일, 카탈로그, 버퍼 풀을 한 JVM 에 띄워 둔 채로 여러 클라이언트 세션의 요청을 받는 서버 (127.0.0.1 에서만)
+ *
+ * 연결 하나가 세션 하나이고, 세션마다 가상 스레드 하나가 요청을 한 줄씩 읽어 처리한다. 요청은 공백으로 구분한다.
+ *   CREATE 테이블 컬럼:길이,컬럼:길이,...   첫 컬럼이 search key, DB 테이블도 다시 만든다
+ *   INSERT 테이블 값;값;값                  파일에 정렬 삽입하고 DB 테이블에도 넣는다
+ *   RANGE 테이블 필드 시작값 끝값            값 자리에 * 를 주면 그쪽 범위는 제한하지 않는다
+ *   FIELD 테이블 필드                        한 필드의 값 전체
+ *   JOIN 테이블 테이블                       search key 조인 (방법은 JoinPlanner 가 고른다)
+ *   METRICS                                  동작 통계(Metrics)를 Prometheus 텍스트 형식으로, 한 줄이 한 행
+ *   STATS | PING | QUIT
+ * 응답은 결과 행마다 "ROW 값;값;..." 한 줄 (null 은 \N), 마지막에 "OK 행수" 또는 "ERR 메시지" 한 줄이다.
+ *
+ * 가상 스레드가 synchronized 안에서 다른 잠금을 기다리면 캐리어 스레드를 붙잡은 채 멈추므로,
+ * 세션이 거치는 코드에서는 synchronized 안에서 latch 나 ReentrantLock 을 기다리지 않는다.
+ *
+ * 사용법: java dbSystem.QueryServer [포트]  (Java 21 이상)
+ */
+public class QueryServer implements AutoCloseable {
+
+    static final String NULL = "\\N";
+    static final String ANY = "*";
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final PrintStream log;
+    private Thread acceptor;
+
+    // 통계
+    private final AtomicLong sessionCount = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /**
+     * port 가 0 이면 빈 포트를 고른다 (getPort 로 확인), log 는 서버 메시지를 쓸 곳
+     */
+    public QueryServer(int port, PrintStream log) throws IOException {
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        this.log = log;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        run(args.length > 0 ? Integer.parseInt(args[0]) : DbConst.SERVER_PORT);
+    }
+
+    /**
+     * 서버를 띄우고 프로세스가 끝날 때까지 기다린다 (Main 메뉴의 서버 모드)
+     */
+    public static void run(int port) throws IOException, InterruptedException {
+        PrintStream console = System.out;
+        // CREATE 등이 System.out 에 찍는 진행 메시지는 서버 로그와 섞이지 않게 버린다.
+        // 엔진의 경고와 오류(Log)는 콘솔에 그대로 찍는다 (레벨이 debug 면 세션마다 삽입 메시지도 찍는다).
+        Log.setOutput(console);
+        if (!DbConst.SERVER_ECHO) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+        QueryServer server = new QueryServer(port, console);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        server.acceptor.join();
+    }
+
+    public void start() {
+        acceptor = Thread.ofVirtual().name("query-server-accept").start(this::acceptLoop);
+        log.println("서버 시작: " + serverSocket.getLocalSocketAddress() + " (세션마다 가상 스레드)");
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.println("연결 수락 중 오류 발생: " + e.getMessage());
+                }
+                continue;
+            }
+            openSockets.add(socket);
+            long session = sessionCount.incrementAndGet();
+            sessions.execute(() -> serve(session, socket));
+        }
+    }
+
+    /**
+     * 세션 하나: 연결이 끊기거나 QUIT 을 받을 때까지 요청을 한 줄씩 처리
+     */
+    private void serve(long session, Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), KeyComparator.CHARSET));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), KeyComparator.CHARSET))) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                requestCount.incrementAndGet();
+                if (line.equalsIgnoreCase("QUIT")) {
+                    reply(out, "OK 0");
+                    break;
+                }
+                try {
+                    reply(out, "OK " + execute(line, out));
+                } catch (IOException | SQLException | RuntimeException e) {
+                    // 요청 하나가 실패해도 세션은 계속된다
+                    errorCount.incrementAndGet();
+                    reply(out, "ERR " + oneLine(e.getMessage() != null ? e.getMessage() : e.toString()));
+                }
+            }
+        } catch (SocketException e) {
+            // 클라이언트가 연결을 끊었다
+        } catch (IOException e) {
+            log.println("세션 " + session + " 오류: " + e.getMessage());
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    /**
+     * 요청 한 줄 실행, 결과 행은 out 에 바로 쓰고 행 수 반환
+     */
+    private long execute(String line, BufferedWriter out) throws IOException, SQLException {
+        String[] parts = line.split("\\s+", 3);
+        String command = parts[0].toUpperCase(Locale.ROOT);
+        switch (command) {
+            case "PING":
+                return 0;
+            case "STATS":
+                writeRow(out, "sessions=" + sessionCount.get() + ";open=" + openSockets.size()
+                        + ";requests=" + requestCount.get() + ";errors=" + errorCount.get());
+                writeRow(out, BufferPool.getInstance().toString());
+                return 2;
+            case "METRICS": {
+                StringBuilder text = new StringBuilder();
+                Metrics.snapshot().export(text);
+                String[] lines = text.toString().split("\n");
+                for (String metric : lines) {
+                    writeRow(out, metric);
+                }
+                return lines.length;
+            }
+            case "CREATE":
+                require(parts, 3, "CREATE 테이블 컬럼:길이,컬럼:길이,...");
+                create(parts[1], parts[2]);
+                return 0;
+            case "INSERT":
+                require(parts, 3, "INSERT 테이블 값;값;값");
+                mirror(parts[1], Main.insertRecord(parts[1], parts[2]));
+                return 1;
+            case "RANGE": {
+                String[] args = line.split("\\s+");
+                if (args.length != 5) {
+                    throw new IllegalArgumentException("형식: RANGE 테이블 필드 시작값 끝값 (제한 없음은 *)");
+                }
+                return range(args[1], args[2], bound(args[3]), bound(args[4]), out);
+            }
+            case "FIELD": {
+                String[] args = line.split("\\s+");
+                if (args.length != 3) {
+                    throw new IllegalArgumentException("형식: FIELD 테이블 필드");
+                }
+                return field(args[1], args[2], out);
+            }
+            case "JOIN": {
+                String[] args = line.split("\\s+");
+                if (args.length != 3) {
+                    throw new IllegalArgumentException("형식: JOIN 테이블 테이블");
+                }
+                return join(args[1], args[2], out);
+            }
+            default:
+                throw new IllegalArgumentException("알 수 없는 요청: " + parts[0]);
+        }
+    }
+
+    private static void create(String tableName, String columnSpec) {
+        LinkedHashMap<String, Integer> columns = new LinkedHashMap<>();
+        for (String column : columnSpec.split(",")) {
+            String[] nameAndLength = column.split(":");
+            if (nameAndLength.length != 2) {
+                throw new IllegalArgumentException("컬럼은 이름:길이 형식이어야 합니다: " + column);
+            }
+            columns.put(nameAndLength[0].trim(), Integer.parseInt(nameAndLength[1].trim()));
+        }
+        Main.createSequentialFile(tableName, columns, Main.DEFAULT_PAGE_SIZE, DbConst.STORAGE_MODE);
+    }
+
+    /**
+     * 파일에 삽입한 레코드를 DB 테이블에도 넣는다 (CREATE 가 만든 DB 테이블과 파일이 어긋나지 않게)
+     */
+    private static void mirror(String tableName, Record record) throws SQLException {
+        try (SqlMirrorWriter mirror = new SqlMirrorWriter(tableName)) {
+            mirror.add(record);
+        } catch (SQLException e) {
+            throw new SQLException("DB 테이블 반영 실패, 파일에만 삽입되었습니다: " + e.getMessage(), e);
+        }
+    }
+
+    private static long range(String tableName, String keyField, String startValue, String endValue,
+                              BufferedWriter out) throws IOException, SQLException {
+        try (RangeCursor cursor = RangeCursor.open(tableName, keyField, startValue, endValue)) {
+            int columns = cursor.getSchema().getColumnNames().size();
+            String[] values = new String[columns];
+            while (cursor.next()) {
+                cursor.row().copyTo(values);
+                writeRow(out, values);
+            }
+            return cursor.getMatchedCount();
+        }
+    }
+
+    private static long field(String tableName, String fieldName, BufferedWriter out)
+            throws IOException, SQLException {
+        try (RangeCursor cursor = RangeCursor.open(tableName, fieldName, null, null, fieldName)) {
+            String[] value = new String[1];
+            while (cursor.next()) {
+                value[0] = cursor.row().get(fieldName);
+                writeRow(out, value);
+            }
+            return cursor.getMatchedCount();
+        }
+    }
+
+    private static long join(String table1, String table2, BufferedWriter out) throws IOException, SQLException {
+        try (RangeCursor r = RangeCursor.open(table1, SchemaCatalog.get(table1).getSearchKey(), null, null);
+             RangeCursor s = RangeCursor.open(table2, SchemaCatalog.get(table2).getSearchKey(), null, null)) {
+            if (r.isTableEmpty() || s.isTableEmpty()) {
+                return 0;
+            }
+            JoinPlanner.Plan plan = JoinPlanner.plan(r, s);
+            return JoinPlanner.execute(plan, r, s, new JoinSink() {
+                private String[] joined;
+
+                @Override
+                public void accept(String[] left, String[] right) throws IOException {
+                    if (joined == null) {
+                        joined = new String[left.length + right.length];
+                    }
+                    System.arraycopy(left, 0, joined, 0, left.length);
+                    System.arraycopy(right, 0, joined, left.length, right.length);
+                    writeRow(out, joined);
+                }
+            });
+        }
+    }
+
+    private static void writeRow(BufferedWriter out, String... values) throws IOException {
+        out.write("ROW ");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(';');
+            }
+            out.write(values[i] == null ? NULL : oneLine(values[i]));
+        }
+        out.newLine();
+    }
+
+    private static void reply(BufferedWriter out, String status) throws IOException {
+        out.write(status);
+        out.newLine();
+        out.flush();
+    }
+
+    private static String bound(String value) {
+        return ANY.equals(value) ? null : value;
+    }
+
+    private static void require(String[] parts, int length, String usage) {
+        if (parts.length < length) {
+            throw new IllegalArgumentException("형식: " + usage);
+        }
+    }
+
+    private static String oneLine(String message) {
+        return message == null ? "" : message.replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * 새 연결을 더 받지 않고 열린 세션을 모두 끊는다
+     */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        for (Socket socket : List.copyOf(openSockets)) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        sessions.shutdown();
+        log.println("서버 종료: 세션 " + sessionCount.get() + "개, 요청 " + requestCount.get() + "개, 오류 "
+                + errorCount.get() + "개");
+    }
+}
@@ -0,0 +1,311 @@
+package dbSystem;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * 포인터 체인을 따라 key 범위의 레코드를 한 건씩 꺼내는 커서 (open → next → close)
+ *
+ * 레코드는 next 를 부를 때마다 하나씩 읽으므로, 앞부분만 읽고 close 하면 나머지 블록은 읽지 않는다.
+ * row 는 다음 next 에서 덮어쓰므로 결과를 모아 둘 때는 RowView.toMap 으로 복사한다.
+ * 열려 있는 동안 swap 읽기 잠금을 잡고 있으므로 open 한 스레드에서 close 해야 한다.
+ * close 할 때 검사한 레코드, 검색된 레코드 수와 open 부터의 시간을 Metrics 와 JFR 이벤트로 남긴다.
+ */
+public class RangeCursor implements AutoCloseable {
+
+    private final String tableName;
+    private final BlockFile file;
+    private final TableLocks locks;
+    private final int keyFieldIndex;
+    private String startValue;
+    private String endValue;
+    // 범위 비교는 String 을 만들지 않고 레코드 바이트와 직접 한다
+    private byte[] startBytes;
+    private byte[] endBytes;
+    // search key 로 검색하면 체인이 정렬되어 있으므로 endValue 를 넘으면 멈출 수 있다
+    private final boolean sorted;
+
+    private final RecordDecoder keyDecoder;
+    private final RecordDecoder rowDecoder;
+    private final RowView keyRow;
+    private final RowView row;
+    // 레코드를 읽어 두는 버퍼, 다음 레코드를 읽을 때 다시 쓴다
+    private byte[] recordBuffer;
+
+    private final boolean empty;
+    private final long tableRecordCount;
+    private final long maxRecords;
+    private final long firstAddress;
+    private long nextAddress;
+    private long currentAddress = -1;
+    private int examinedCount;
+    // 마지막으로 위치를 잡은 뒤 따라간 레코드 수 (순환 참조 감지용)
+    private long steps;
+    private int matchedCount;
+    private boolean closed;
+    private final long openedAt;
+    private final JfrEvents.RangeScan event;
+
+    private RangeCursor(String tableName, BlockFile file, TableLocks locks, TableSchema schema, int keyFieldIndex,
+                        String startValue, String endValue, RecordDecoder rowDecoder) throws IOException {
+        this.event = new JfrEvents.RangeScan();
+        event.begin();
+        this.openedAt = System.nanoTime();
+        this.tableName = tableName;
+        this.file = file;
+        this.locks = locks;
+        this.keyFieldIndex = keyFieldIndex;
+        setRange(startValue, endValue);
+        this.sorted = keyFieldIndex == 0;
+
+        this.keyDecoder = new RecordDecoder(schema, keyFieldIndex);
+        this.rowDecoder = rowDecoder;
+        this.keyRow = keyDecoder.newRow();
+        this.row = rowDecoder.newRow();
+
+        // 레코드는 최소 5바이트(비트맵 + 포인터)이므로 이보다 많이 따라가면 순환 참조
+        this.maxRecords = file.length() / 5;
+        this.firstAddress = file.readInt(FileHeader.FIRST_RECORD_POS);
+        this.nextAddress = firstAddress;
+        this.empty = firstAddress == -1;
+        // 헤더의 레코드 수는 슬롯 페이지 형식부터 있다
+        this.tableRecordCount = file.isSlotted() ? file.readInt(FileHeader.RECORD_COUNT_POS) : -1;
+    }
+
+    /**
+     * keyField 값이 startValue 이상 endValue 이하인 레코드의 커서
+     * startValue, endValue 가 null 이면 그쪽 범위는 제한하지 않고, 둘 다 null 이면 key 가 null 인 레코드도 꺼낸다.
+     * columns 를 주면 그 컬럼만 디코딩한다 (없으면 전체 컬럼).
+     */
+    public static RangeCursor open(String tableName, String keyField, String startValue, String endValue,
+                                   String... columns) throws IOException, SQLException {
+        TableSchema schema = SchemaCatalog.get(tableName);
+        int keyFieldIndex = schema.indexOf(keyField);
+        if (keyFieldIndex == -1) {
+            throw new IllegalArgumentException("'" + keyField + "' 필드가 " + tableName + " 테이블에 존재하지 않습니다.");
+        }
+        RecordDecoder rowDecoder = columns.length == 0 ? RecordDecoder.of(schema) : RecordDecoder.of(schema, columns);
+
+        // 읽는 동안 재구성이 파일을 교체하지 못하게 한다
+        TableLocks locks = TableLocks.of(tableName);
+        locks.swapRead().lock();
+        BlockFile file = null;
+        try {
+            String fileName = tableName + ".txt";
+            file = BlockFile.open(fileName, "r");
+            if (file.length() < file.getBlockSize()) {
+                throw new IOException("파일이 존재하지 않거나 너무 작습니다: " + fileName);
+            }
+
+            RangeCursor cursor = new RangeCursor(tableName, file, locks, schema, keyFieldIndex,
+                    startValue, endValue, rowDecoder);
+            cursor.seekStart();
+            file.startPrefetch();
+            return cursor;
+        } catch (IOException | RuntimeException e) {
+            if (file != null) {
+                file.close();
+            }
+            locks.swapRead().unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * search key 로 검색하면 인덱스로 startValue 보다 작은 마지막 레코드를 찾아 그 다음부터 읽는다
+     */
+    private void seekStart() throws IOException {
+        if (empty || !sorted || startValue == null) {
+            return;
+        }
+        BPlusTree index = file.getIndex(keyDecoder.getSchema());
+        if (index == null) {
+            return;
+        }
+        long prev = index.findPredecessor(index.encodeKey(startValue));
+        if (prev != -1) {
+            nextAddress = keyDecoder.decode(readRecord(prev), keyRow).getPointer();
+        }
+    }
+
+    /**
+     * 같은 파일에서 범위만 바꿔 처음부터 다시 읽기 (search key 로 연 커서만)
+     * 인덱스가 있으면 startValue 위치로 바로 가므로, key 하나씩 여러 번 찾을 때 파일을 다시 열지 않아도 된다.
+     */
+    public void seek(String startValue, String endValue) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("닫힌 커서입니다: " + tableName);
+        }
+        if (!sorted) {
+            throw new IllegalStateException("search key 로 연 커서만 위치를 옮길 수 있습니다: " + tableName);
+        }
+        setRange(startValue, endValue);
+        this.nextAddress = firstAddress;
+        this.currentAddress = -1;
+        this.steps = 0;
+        seekStart();
+    }
+
+    private void setRange(String startValue, String endValue) {
+        this.startValue = startValue;
+        this.endValue = endValue;
+        this.startBytes = startValue == null ? null : KeyComparator.encode(startValue);
+        this.endBytes = endValue == null ? null : KeyComparator.encode(endValue);
+    }
+
+    /**
+     * 다음 레코드로 이동, 더 이상 없으면 false
+     */
+    public boolean next() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("닫힌 커서입니다: " + tableName);
+        }
+
+        while (!empty && nextAddress != 0 && nextAddress != -1) {
+            if (steps++ >= maxRecords) {
+                throw new IOException("레코드 체인에 순환 참조가 감지되었습니다: " + tableName);
+            }
+            long address = nextAddress;
+            examinedCount++;
+
+            // 레코드는 한 번만 읽고, 범위 안이면 같은 바이트에서 나머지 컬럼을 디코딩한다
+            byte[] recordBytes = readRecord(address);
+            BinaryRow key = keyDecoder.decode(recordBytes, keyRow).binary();
+            nextAddress = key.getPointer();
+
+            if (key.isNull(keyFieldIndex)) {
+                if (startBytes != null || endBytes != null) {
+                    continue;
+                }
+            } else {
+                if (endBytes != null && key.compareField(keyFieldIndex, endBytes) > 0) {
+                    if (sorted) {
+                        nextAddress = 0;
+                        break;
+                    }
+                    continue;
+                }
+                if (startBytes != null && key.compareField(keyFieldIndex, startBytes) < 0) {
+                    continue;
+                }
+            }
+
+            rowDecoder.decode(recordBytes, row);
+            currentAddress = address;
+            matchedCount++;
+            return true;
+        }
+
+        currentAddress = -1;
+        return false;
+    }
+
+    /**
+     * 현재 레코드, 다음 next 에서 내용이 바뀐다
+     */
+    public RowView row() {
+        if (currentAddress == -1) {
+            throw new IllegalStateException("현재 레코드가 없습니다. next 가 true 를 반환한 뒤에 호출하세요.");
+        }
+        return row;
+    }
+
+    /**
+     * 현재 레코드의 주소 (rid 또는 예전 형식의 파일 오프셋)
+     */
+    public long address() {
+        return currentAddress;
+    }
+
+    /**
+     * 범위 조건에 쓰는 필드의 인덱스
+     */
+    public int getKeyFieldIndex() {
+        return keyFieldIndex;
+    }
+
+    /**
+     * key 순서대로 레코드가 나오는지 (search key 로 연 커서)
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    public TableSchema getSchema() {
+        return rowDecoder.getSchema();
+    }
+
+    /**
+     * key 로 위치를 찾는 인덱스의 높이, 인덱스가 없으면 (search key 가 아니거나 예전 형식) -1
+     */
+    public int getIndexHeight() throws IOException {
+        if (!sorted) {
+            return -1;
+        }
+        BPlusTree index = file.getIndex(keyDecoder.getSchema());
+        return index == null ? -1 : index.getHeight();
+    }
+
+    /**
+     * 파일의 블록 수 (헤더 포함)
+     */
+    public long getPageCount() throws IOException {
+        return (file.length() + file.getBlockSize() - 1) / file.getBlockSize();
+    }
+
+    /**
+     * 파일에 레코드가 하나도 없는지
+     */
+    public boolean isTableEmpty() {
+        return empty;
+    }
+
+    /**
+     * 헤더에 기록된 테이블 전체 레코드 수, 모르면 (예전 형식 파일) -1
+     */
+    public long getTableRecordCount() {
+        return tableRecordCount;
+    }
+
+    public int getExaminedCount() {
+        return examinedCount;
+    }
+
+    public int getMatchedCount() {
+        return matchedCount;
+    }
+
+    private byte[] readRecord(long address) throws IOException {
+        try {
+            recordBuffer = Main.readRecordBytes(file, address, tableName, recordBuffer);
+            return recordBuffer;
+        } catch (SQLException e) {
+            throw new IOException("테이블 스키마를 읽지 못했습니다: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Metrics.increment(Metrics.Counter.SCANS);
+        Metrics.add(Metrics.Counter.RECORDS_EXAMINED, examinedCount);
+        Metrics.add(Metrics.Counter.RECORDS_RETURNED, matchedCount);
+        Metrics.record(Metrics.Operation.RANGE_SCAN, openedAt);
+        event.end();
+        if (event.shouldCommit()) {
+            event.table = tableName;
+            event.keyField = keyDecoder.getSchema().getColumnNames().get(keyFieldIndex);
+            event.examined = examinedCount;
+            event.returned = matchedCount;
+            event.commit();
+        }
+        try {
+            file.close();
+        } finally {
+            locks.swapRead().unlock();
+        }
+    }
+}
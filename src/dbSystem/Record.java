@@ -1,42 +1,101 @@
 package dbSystem;
 
-import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.Map;
 
+/**
+ * 파일에 쓸 레코드 한 건, 디스크와 같은 형식의 바이트(Null 비트맵 + 고정 길이 필드 + 포인터)로 가진다.
+ *
+ * 값은 BinaryRow 로 읽는다. getRecordMap 은 컬럼 이름 → 값 Map 이 필요한 곳을 위한 변환으로, 부를 때마다 새로 만든다.
+ */
 public class Record {
 
-    private byte nullBitMap;
-    private LinkedHashMap<String, String> recordMap = new LinkedHashMap<>();
-    private Integer pointerField;
+    private final BinaryRow row;
 
-    // 기본 생성자
-    public Record(){
+    /**
+     * 레코드 바이트로 구성 (배열을 복사하지 않는다)
+     */
+    public Record(TableSchema schema, byte[] recordBytes) {
+        this.row = new BinaryRow(schema, recordBytes);
+    }
 
+    /**
+     * 컬럼 순서대로의 값(null 허용)으로 레코드 바이트를 만든다, 포인터는 0
+     * 값이 필드 크기보다 길면 잘리고 짧으면 공백으로 채운다. 값이 모자라면 나머지 컬럼은 null.
+     */
+    public static Record of(TableSchema schema, String... values) {
+        int columnCount = schema.getColumnCount();
+        byte nullBitMap = 0;
+        byte[][] encoded = new byte[columnCount][];
+        for (int i = 0; i < columnCount; i++) {
+            String value = i < values.length ? values[i] : null;
+            if (value == null) {
+                nullBitMap |= (byte) (1 << (7 - i));
+            } else {
+                encoded[i] = KeyComparator.encode(value);
+            }
+        }
 
+        byte[] recordBytes = new byte[schema.recordLength(nullBitMap)];
+        recordBytes[0] = nullBitMap;
+        for (int i = 0; i < columnCount; i++) {
+            if (encoded[i] == null) {
+                continue;
+            }
+            int pos = schema.fieldOffset(nullBitMap, i);
+            int size = schema.getFieldSize(i);
+            int n = Math.min(encoded[i].length, size);
+            System.arraycopy(encoded[i], 0, recordBytes, pos, n);
+            for (int j = n; j < size; j++) {
+                recordBytes[pos + j] = ' ';
+            }
+        }
+        // 포인터 필드는 0 (new byte[] 의 초기값)
+        return new Record(schema, recordBytes);
     }
 
-    public byte getNullBitMap() {
-        return nullBitMap;
+    public TableSchema getSchema() {
+        return row.getSchema();
     }
 
-    public void setNullBitMap(byte nullBitMap) {
-        this.nullBitMap = nullBitMap;
+    /**
+     * 파일에 쓸 레코드 바이트 (복사본이 아니다)
+     */
+    public byte[] getBytes() {
+        return row.getBuffer();
     }
 
-    public LinkedHashMap<String, String> getRecordMap() {
-        return recordMap;
+    public BinaryRow getRow() {
+        return row;
     }
 
-    public void setRecordMap(LinkedHashMap<String, String> recordMap) {
-        this.recordMap = recordMap;
+    public byte getNullBitMap() {
+        return row.getNullBitMap();
     }
 
-    public Integer getPointerField() {
-        return pointerField;
+    /**
+     * 필드 값, null 이면 null
+     */
+    public String getValue(int fieldIndex) {
+        return row.getString(fieldIndex);
     }
 
-    public void setPointerField(Integer pointerField) {
-        this.pointerField = pointerField;
+    public int getPointerField() {
+        return row.getPointer();
+    }
+
+    public void setPointerField(int pointerField) {
+        row.setPointer(pointerField);
+    }
+
+    /**
+     * 컬럼 이름 → 값 (컬럼 순서), 부를 때마다 새 Map 을 만든다
+     */
+    public LinkedHashMap<String, String> getRecordMap() {
+        TableSchema schema = row.getSchema();
+        LinkedHashMap<String, String> recordMap = new LinkedHashMap<>();
+        for (int i = 0; i < schema.getColumnCount(); i++) {
+            recordMap.put(schema.getColumnName(i), getValue(i));
+        }
+        return recordMap;
     }
 }
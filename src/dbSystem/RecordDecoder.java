@@ -0,0 +1,76 @@
+package dbSystem;
+
+/**
+ * 레코드 바이트를 한 번만 훑어서 필요한 컬럼만 꺼내는 디코더
+ *
+ * 필드 위치는 null 비트맵별로 미리 계산된 TableSchema 의 오프셋으로 바로 찾는다.
+ * 결과는 호출하는 쪽이 다시 쓰는 RowView 에 채우므로, 레코드마다 Map 을 새로 만들지 않는다.
+ * 값은 꺼낼 때 디코딩하므로, 읽지 않는 컬럼에는 String 을 만들지 않는다.
+ */
+public class RecordDecoder {
+
+    private final TableSchema schema;
+    private final int[] projection;
+
+    /**
+     * columns 에 있는 컬럼만 꺼내는 디코더 (필드 인덱스)
+     */
+    public RecordDecoder(TableSchema schema, int... columns) {
+        for (int column : columns) {
+            if (column < 0 || column >= schema.getColumnCount()) {
+                throw new IllegalArgumentException(schema.getTableName() + " 테이블에 없는 컬럼 인덱스입니다: " + column);
+            }
+        }
+        this.schema = schema;
+        this.projection = columns.clone();
+    }
+
+    /**
+     * 모든 컬럼을 꺼내는 디코더
+     */
+    public static RecordDecoder of(TableSchema schema) {
+        int[] columns = new int[schema.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = i;
+        }
+        return new RecordDecoder(schema, columns);
+    }
+
+    /**
+     * 이름으로 고른 컬럼만 꺼내는 디코더 (대소문자 무시)
+     */
+    public static RecordDecoder of(TableSchema schema, String... columnNames) {
+        int[] columns = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columns[i] = schema.indexOf(columnNames[i]);
+            if (columns[i] == -1) {
+                throw new IllegalArgumentException("'" + columnNames[i] + "' 필드가 "
+                        + schema.getTableName() + " 테이블에 존재하지 않습니다.");
+            }
+        }
+        return new RecordDecoder(schema, columns);
+    }
+
+    public TableSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * 이 디코더로 채울 빈 행
+     */
+    public RowView newRow() {
+        return new RowView(schema);
+    }
+
+    /**
+     * 레코드 바이트의 projection 컬럼과 포인터를 row 에서 꺼낼 수 있게 하고 row 반환
+     * 바이트는 복사하지 않으므로 row 를 쓰는 동안 recordBytes 를 바꾸면 안 된다. String 은 row.get 에서 만든다.
+     */
+    public RowView decode(byte[] recordBytes, RowView row) {
+        if (row.getSchema() != schema) {
+            throw new IllegalArgumentException("다른 스키마로 만든 행입니다: " + row.getSchema().getTableName());
+        }
+        row.reset(recordBytes, projection);
+        return row;
+    }
+}
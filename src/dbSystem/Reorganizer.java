@@ -0,0 +1,97 @@
+package dbSystem;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 파일을 포인터 체인(search key) 순서대로 다시 써서 물리적 순서와 논리적 순서를 맞추는 재구성
+ *
+ * 레코드는 FSM 이 찾아준 블록 아무 데나 들어가므로, 삽입이 쌓이면 체인을 따라 읽을 때 블록을 건너뛰게 된다.
+ * 헤더에는 레코드 수와 클러스터링된 링크 수(다음 레코드가 같은 블록이나 바로 다음 블록에 있는 링크)를 유지하고,
+ * 그 비율이 REORG_THRESHOLD 아래로 내려가면 백그라운드에서 재구성을 시작한다.
+ *
+ * 재구성은 BulkLoader 와 같은 방법으로 새 파일을 쓴 뒤 swap 잠금을 잡고 교체하므로,
+ * 그동안 읽기는 예전 파일에서 계속된다. 삽입은 writer 잠금에서 기다린다.
+ */
+public class Reorganizer {
+
+    private static final Set<String> RUNNING = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 테이블 파일 재구성 (끝날 때까지 기다린다)
+     */
+    public static void reorganize(String tableName) throws IOException, SQLException {
+        String fileName = tableName + ".txt";
+        if (!FileHeader.probe(fileName).isCurrent()) {
+            throw new IOException("예전 형식의 파일은 재구성할 수 없습니다. 파일 업그레이드 후 사용하세요: " + fileName);
+        }
+        TableSchema schema = SchemaCatalog.get(tableName);
+
+        TableLocks locks = TableLocks.of(tableName);
+        locks.writer().lock();
+        try {
+            double before = clusteringRatio(tableName);
+            long start = System.nanoTime();
+            long total = BulkLoader.rewrite(tableName, schema, Collections.emptyList());
+
+            Log.info(String.format("%s 재구성 완료: 레코드 %d개, 클러스터링 비율 %.2f → %.2f (%.1f ms)",
+                    tableName, total, before, clusteringRatio(tableName), (System.nanoTime() - start) / 1e6));
+        } finally {
+            locks.writer().unlock();
+        }
+    }
+
+    /**
+     * 헤더에 기록된 클러스터링 비율
+     */
+    public static double clusteringRatio(String tableName) throws IOException {
+        try (BlockFile file = BlockFile.open(tableName + ".txt", "r")) {
+            return FileHeader.clusteringRatio(file.readInt(FileHeader.RECORD_COUNT_POS),
+                    file.readInt(FileHeader.CLUSTERED_LINKS_POS));
+        }
+    }
+
+    /**
+     * 체인의 링크 from → to 가 클러스터링되어 있는지 (같은 블록이거나 바로 다음 블록)
+     */
+    static boolean isClustered(long fromRid, long toRid) {
+        long distance = SlottedPage.pageOf(toRid) - SlottedPage.pageOf(fromRid);
+        return distance == 0 || distance == 1;
+    }
+
+    /**
+     * 삽입 후 호출, 클러스터링 비율이 임계값 아래면 백그라운드 재구성 시작
+     * 같은 테이블의 재구성이 이미 진행 중이면 아무것도 하지 않는다.
+     */
+    static void maybeStart(String tableName, int recordCount, int clusteredLinks) {
+        if (DbConst.REORG_THRESHOLD <= 0 || recordCount < DbConst.REORG_MIN_RECORDS) {
+            return;
+        }
+        double ratio = FileHeader.clusteringRatio(recordCount, clusteredLinks);
+        if (ratio >= DbConst.REORG_THRESHOLD) {
+            return;
+        }
+
+        String key = tableName.toLowerCase(Locale.ROOT);
+        if (!RUNNING.add(key)) {
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                Log.info(String.format("%s 클러스터링 비율 %.2f < %.2f, 백그라운드 재구성 시작",
+                        tableName, ratio, DbConst.REORG_THRESHOLD));
+                reorganize(tableName);
+            } catch (IOException | SQLException | RuntimeException e) {
+                Log.error(tableName + " 자동 재구성 실패: " + e.getMessage());
+            } finally {
+                RUNNING.remove(key);
+            }
+        }, "reorganizer-" + tableName);
+        thread.start();
+    }
+}
@@ -0,0 +1,156 @@
+package dbSystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 컬럼 값 배열(행)을 모아 두고 처음부터 여러 번 다시 읽을 수 있는 버퍼
+ *
+ * 모은 행의 크기가 메모리 한도를 넘으면 그때까지의 행과 이후의 행을 모두 임시 파일에 쓰고,
+ * 다시 읽을 때는 파일을 처음부터 읽는다.
+ */
+class RowBuffer implements AutoCloseable {
+
+    /**
+     * 버퍼의 행을 하나씩 받는 곳, 넘기는 배열은 다음 행에서 다시 쓴다.
+     */
+    interface RowConsumer {
+        void accept(String[] row) throws IOException;
+    }
+
+    private final int width;
+    private final long memoryLimit;
+    private final SpillDirectory spillDir;
+    private final String prefix;
+
+    private final List<String[]> rows = new ArrayList<>();
+    private long memoryUsed;
+    private int size;
+
+    private File spillFile;
+    private DataOutputStream spillOut;
+
+    /**
+     * 임시 파일은 spillDir 안에 prefix 로 시작하는 이름으로 만든다
+     */
+    RowBuffer(int width, long memoryLimit, SpillDirectory spillDir, String prefix) {
+        this.width = width;
+        this.memoryLimit = memoryLimit;
+        this.spillDir = spillDir;
+        this.prefix = prefix;
+    }
+
+    /**
+     * 행 추가 (복사해서 보관한다)
+     */
+    void add(String[] row) throws IOException {
+        size++;
+        if (spillOut != null) {
+            write(spillOut, row);
+            return;
+        }
+
+        rows.add(row.clone());
+        memoryUsed += estimateSize(row);
+        if (memoryUsed > memoryLimit) {
+            spill();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * 넣은 순서대로 모든 행 읽기
+     */
+    void forEach(RowConsumer consumer) throws IOException {
+        if (spillOut == null) {
+            for (String[] row : rows) {
+                consumer.accept(row);
+            }
+            return;
+        }
+
+        spillOut.flush();
+        String[] row = new String[width];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)))) {
+            for (int i = 0; i < size; i++) {
+                for (int c = 0; c < width; c++) {
+                    row[c] = in.readBoolean() ? in.readUTF() : null;
+                }
+                consumer.accept(row);
+            }
+        }
+    }
+
+    /**
+     * 비우기, 임시 파일이 있으면 지운다
+     */
+    void clear() throws IOException {
+        rows.clear();
+        memoryUsed = 0;
+        size = 0;
+        deleteSpillFile();
+    }
+
+    @Override
+    public void close() throws IOException {
+        clear();
+    }
+
+    private void spill() throws IOException {
+        spillFile = spillDir.newFile(prefix);
+        spillOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+        for (String[] row : rows) {
+            write(spillOut, row);
+        }
+        rows.clear();
+        memoryUsed = 0;
+    }
+
+    private void write(DataOutputStream out, String[] row) throws IOException {
+        for (int c = 0; c < width; c++) {
+            out.writeBoolean(row[c] != null);
+            if (row[c] != null) {
+                out.writeUTF(row[c]);
+            }
+        }
+    }
+
+    private void deleteSpillFile() throws IOException {
+        if (spillOut != null) {
+            spillOut.close();
+            spillOut = null;
+        }
+        if (spillFile != null) {
+            if (!spillFile.delete() && spillFile.exists()) {
+                throw new IOException("임시 파일을 지우지 못했습니다: " + spillFile);
+            }
+            spillFile = null;
+        }
+    }
+
+    // 배열과 String 객체 헤더, char 당 2바이트로 어림한다
+    static long estimateSize(String[] row) {
+        long bytes = 16 + 8L * row.length;
+        for (String value : row) {
+            if (value != null) {
+                bytes += 40 + 2L * value.length();
+            }
+        }
+        return bytes;
+    }
+}
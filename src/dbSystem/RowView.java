@@ -0,0 +1,113 @@
+package dbSystem;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RecordDecoder 가 채우는 레코드 한 건, 다음 레코드를 디코딩하면 내용이 바뀐다.
+ * 결과를 모아 둘 때는 toMap 으로 복사한다.
+ *
+ * 값은 레코드 바이트(BinaryRow)에 그대로 두고, get 으로 처음 꺼낼 때 String 을 만든다.
+ * key 비교처럼 String 이 필요 없는 곳은 binary() 로 바이트를 직접 비교한다.
+ */
+public class RowView {
+
+    private final TableSchema schema;
+    private final BinaryRow binary;
+    private final String[] values;
+    private final boolean[] decoded;
+    private final boolean[] materialized;
+
+    RowView(TableSchema schema) {
+        this.schema = schema;
+        this.binary = new BinaryRow(schema);
+        this.values = new String[schema.getColumnCount()];
+        this.decoded = new boolean[schema.getColumnCount()];
+        this.materialized = new boolean[schema.getColumnCount()];
+    }
+
+    public TableSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * 레코드 바이트를 직접 읽는 행 (String 을 만들지 않는다)
+     */
+    public BinaryRow binary() {
+        return binary;
+    }
+
+    /**
+     * 필드 값, null 이면 null
+     * 디코더의 projection 에 없는 컬럼을 꺼내면 IllegalStateException
+     */
+    public String get(int fieldIndex) {
+        if (!decoded[fieldIndex]) {
+            throw new IllegalStateException("디코딩하지 않은 컬럼입니다: " + schema.getColumnName(fieldIndex));
+        }
+        if (!materialized[fieldIndex]) {
+            values[fieldIndex] = binary.getString(fieldIndex);
+            materialized[fieldIndex] = true;
+        }
+        return values[fieldIndex];
+    }
+
+    public String get(String fieldName) {
+        int fieldIndex = schema.indexOf(fieldName);
+        if (fieldIndex == -1) {
+            throw new IllegalArgumentException("'" + fieldName + "' 필드가 테이블에 존재하지 않습니다.");
+        }
+        return get(fieldIndex);
+    }
+
+    public boolean isNull(int fieldIndex) {
+        if (!decoded[fieldIndex]) {
+            throw new IllegalStateException("디코딩하지 않은 컬럼입니다: " + schema.getColumnName(fieldIndex));
+        }
+        return binary.isNull(fieldIndex);
+    }
+
+    /**
+     * 다음 레코드의 주소 (0 이면 마지막 레코드)
+     */
+    public int getPointer() {
+        return binary.getPointer();
+    }
+
+    /**
+     * 값을 컬럼 순서대로 target 에 복사 (디코딩하지 않은 컬럼은 null)
+     */
+    public void copyTo(String[] target) {
+        for (int i = 0; i < values.length; i++) {
+            target[i] = decoded[i] ? get(i) : null;
+        }
+    }
+
+    /**
+     * 디코딩한 컬럼을 컬럼 순서대로 담은 새 Map
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            if (decoded[i]) {
+                result.put(schema.getColumnName(i), get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 새 레코드로 바꾸고 columns 만 꺼낼 수 있게 한다
+     */
+    void reset(byte[] recordBytes, int[] columns) {
+        binary.wrap(recordBytes);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = null;
+            decoded[i] = false;
+            materialized[i] = false;
+        }
+        for (int column : columns) {
+            decoded[column] = true;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package dbSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static dbSystem.DbConst.schema;
+
+/**
+ * 테이블 스키마를 메모리에 캐싱하는 카탈로그
+ *
+ * 테이블마다 한 번만 로드한다. 파일 헤더에 카탈로그가 있으면 그것을 쓰고,
+ * 없으면 (예전 형식의 파일) MySQL 메타데이터를 조회한다.
+ * createSequentialFile 로 테이블을 다시 만들면 invalidate 로 버전을 올리고,
+ * 새 헤더를 쓴 뒤 publish 로 새 스키마를 캐시에 넣는다.
+ *
+ * 캐시에 있으면 잠금 없이 돌려준다. 없으면 그 테이블의 잠금만 잡고 로드하므로,
+ * 한 테이블을 로드하는 동안(파일 헤더나 JDBC 조회) 다른 테이블의 조회는 기다리지 않는다.
+ */
+public class SchemaCatalog {
+
+    private static final ConcurrentMap<String, TableSchema> cache = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Integer> versions = new ConcurrentHashMap<>();
+    // 테이블마다 로드와 invalidate 를 한 번에 하나씩
+    // (헤더를 읽으면서 페이지 latch 를 기다릴 수 있어 synchronized 나 computeIfAbsent 안에서 로드하지 않는다)
+    private static final ConcurrentMap<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * 테이블 스키마 조회 (캐시 → 파일 헤더 → DB 메타데이터 순)
+     */
+    public static TableSchema get(String tableName) throws SQLException {
+        Metrics.increment(Metrics.Counter.METADATA_LOOKUPS);
+        TableSchema cached = cache.get(tableName);
+        if (cached != null) {
+            return cached;
+        }
+
+        ReentrantLock lock = lockFor(tableName);
+        lock.lock();
+        try {
+            // 기다리는 동안 다른 스레드가 로드했을 수 있다
+            cached = cache.get(tableName);
+            if (cached != null) {
+                return cached;
+            }
+
+            JfrEvents.MetadataLoad event = new JfrEvents.MetadataLoad();
+            event.begin();
+            long start = System.nanoTime();
+            TableSchema loaded = loadFromFile(tableName);
+            String source = "file";
+            if (loaded == null) {
+                loaded = loadFromDatabase(tableName);
+                source = "database";
+                Metrics.increment(Metrics.Counter.METADATA_DB_LOADS);
+            } else {
+                Metrics.increment(Metrics.Counter.METADATA_FILE_LOADS);
+            }
+            Metrics.record(Metrics.Operation.METADATA_LOAD, start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.table = tableName;
+                event.source = source;
+                event.commit();
+            }
+
+            cache.put(tableName, loaded);
+            versions.put(tableName, loaded.getVersion());
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 캐시를 비우고 다음 스키마 버전을 반환
+     */
+    public static int invalidate(String tableName) {
+        ReentrantLock lock = lockFor(tableName);
+        lock.lock();
+        try {
+            cache.remove(tableName);
+
+            int current = versions.getOrDefault(tableName, 0);
+            try {
+                TableSchema stored = loadFromFile(tableName);
+                if (stored != null) {
+                    current = Math.max(current, stored.getVersion());
+                }
+            } catch (SQLException ignored) {
+                // 헤더를 읽지 못하면 메모리의 버전만 사용
+            }
+
+            int next = current + 1;
+            versions.put(tableName, next);
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 새 헤더를 쓴 뒤 그 스키마를 캐시에 넣는다
+     *
+     * invalidate 와 헤더 쓰기 사이에 다른 스레드가 예전 헤더를 다시 로드했을 수 있으므로,
+     * 헤더를 쓴 쪽이 파일 잠금을 쥔 채로 호출해 그 캐시를 덮어쓴다.
+     */
+    public static void publish(TableSchema tableSchema) {
+        String tableName = tableSchema.getTableName();
+        ReentrantLock lock = lockFor(tableName);
+        lock.lock();
+        try {
+            cache.put(tableName, tableSchema);
+            versions.put(tableName, tableSchema.getVersion());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 가지고 있는 스키마가 아직 유효한지 확인
+     */
+    public static boolean isCurrent(TableSchema tableSchema) {
+        return cache.get(tableSchema.getTableName()) == tableSchema;
+    }
+
+    private static ReentrantLock lockFor(String tableName) {
+        return LOCKS.computeIfAbsent(tableName, name -> new ReentrantLock());
+    }
+
+    private static TableSchema loadFromFile(String tableName) throws SQLException {
+        File file = new File(tableName + ".txt");
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (BlockFile blockFile = BlockFile.open(file.getPath(), "r")) {
+            return FileHeader.readSchema(blockFile, tableName);
+        } catch (IOException e) {
+            throw new SQLException("파일 헤더의 카탈로그 읽기 실패: " + e.getMessage(), e);
+        }
+    }
+
+    private static TableSchema loadFromDatabase(String tableName) throws SQLException {
+        Map<Integer, String> namesByPosition = new TreeMap<>();
+        Map<Integer, Integer> sizesByPosition = new TreeMap<>();
+
+        try (PooledConnection con = Main.getConnection()) {
+            DatabaseMetaData meta = con.getMetaData();
+            try (ResultSet rs = meta.getColumns(null, schema, tableName, "%")) {
+                while (rs.next()) {
+                    int position = rs.getInt("ORDINAL_POSITION");
+                    namesByPosition.put(position, rs.getString("COLUMN_NAME"));
+                    sizesByPosition.put(position, rs.getInt("COLUMN_SIZE"));
+                }
+            }
+        }
+
+        if (namesByPosition.isEmpty()) {
+            throw new SQLException("테이블 '" + tableName + "'의 메타데이터가 없습니다.");
+        }
+
+        List<String> names = new ArrayList<>(namesByPosition.values());
+        List<Integer> sizes = new ArrayList<>(sizesByPosition.values());
+        return new TableSchema(tableName, versions.getOrDefault(tableName, 1), names, sizes);
+    }
+}
@@ -0,0 +1,115 @@
+package dbSystem;
+
+/**
+ * 슬롯 페이지 형식의 데이터 블록
+ *
+ * 0~1   : 슬롯 수
+ * 2~3   : 예약
+ * 4~7   : 레코드 영역 시작 위치 (레코드는 페이지 끝에서부터 앞으로 채운다)
+ * 8~    : 슬롯 디렉터리, 슬롯마다 (레코드 위치 2바이트, 레코드 길이 2바이트)
+ *
+ * 레코드는 (페이지 번호, 슬롯 번호) 를 int 하나로 묶은 rid 로 가리킨다.
+ * 레코드는 항상 한 페이지 안에 있으므로 페이지 하나만 읽으면 된다.
+ * 페이지 안에서 레코드를 옮겨도 슬롯 번호는 그대로라 rid 가 바뀌지 않는다.
+ */
+public class SlottedPage {
+
+    public static final int HEADER_SIZE = 8;
+    public static final int SLOT_SIZE = 4;
+
+    // rid = 페이지 번호 << SLOT_BITS | 슬롯 번호, 0번 페이지는 헤더이므로 rid 0 은 "레코드 없음"
+    public static final int SLOT_BITS = 12;
+    public static final int MAX_SLOTS = 1 << SLOT_BITS;
+    public static final long MAX_PAGES = 1L << (31 - SLOT_BITS);
+
+    private static final int SLOT_COUNT_POS = 0;
+    private static final int FREE_END_POS = 4;
+
+    /**
+     * 빈 페이지로 초기화
+     */
+    public static void init(byte[] page) {
+        putShort(page, SLOT_COUNT_POS, 0);
+        FileHeader.putInt(page, FREE_END_POS, page.length);
+    }
+
+    public static int slotCount(byte[] page) {
+        return getShort(page, SLOT_COUNT_POS);
+    }
+
+    /**
+     * 레코드와 슬롯 하나를 합쳐 넣을 수 있는 바이트 수 (슬롯이 다 찼으면 0)
+     */
+    public static int freeSpace(byte[] page) {
+        int slotCount = slotCount(page);
+        if (slotCount >= MAX_SLOTS) {
+            return 0;
+        }
+        return FileHeader.getInt(page, FREE_END_POS) - HEADER_SIZE - slotCount * SLOT_SIZE;
+    }
+
+    /**
+     * 레코드를 페이지에 추가하고 슬롯 번호 반환, 공간이 없으면 -1
+     */
+    public static int insert(byte[] page, byte[] record) {
+        if (record.length + SLOT_SIZE > freeSpace(page)) {
+            return -1;
+        }
+
+        int slot = slotCount(page);
+        int position = FileHeader.getInt(page, FREE_END_POS) - record.length;
+        System.arraycopy(record, 0, page, position, record.length);
+
+        int slotPos = HEADER_SIZE + slot * SLOT_SIZE;
+        putShort(page, slotPos, position);
+        putShort(page, slotPos + 2, record.length);
+
+        putShort(page, SLOT_COUNT_POS, slot + 1);
+        FileHeader.putInt(page, FREE_END_POS, position);
+        return slot;
+    }
+
+    /**
+     * 슬롯이 가리키는 레코드의 페이지 내 위치
+     */
+    public static int recordPosition(byte[] page, int slot) {
+        checkSlot(page, slot);
+        return getShort(page, HEADER_SIZE + slot * SLOT_SIZE);
+    }
+
+    public static int recordLength(byte[] page, int slot) {
+        checkSlot(page, slot);
+        return getShort(page, HEADER_SIZE + slot * SLOT_SIZE + 2);
+    }
+
+    public static int rid(long pageNo, int slot) {
+        if (pageNo <= 0 || pageNo >= MAX_PAGES) {
+            throw new IllegalArgumentException("rid 로 나타낼 수 없는 페이지 번호입니다: " + pageNo);
+        }
+        return (int) (pageNo << SLOT_BITS) | slot;
+    }
+
+    public static long pageOf(long rid) {
+        return rid >>> SLOT_BITS;
+    }
+
+    public static int slotOf(long rid) {
+        return (int) (rid & (MAX_SLOTS - 1));
+    }
+
+    private static void checkSlot(byte[] page, int slot) {
+        if (slot < 0 || slot >= slotCount(page)) {
+            throw new IllegalArgumentException("페이지에 없는 슬롯입니다: " + slot);
+        }
+    }
+
+    // 페이지 크기가 65536 이어도 레코드 위치와 길이는 65535 이하이므로 2바이트로 충분하다
+    private static int getShort(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    private static void putShort(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >> 8);
+        data[offset + 1] = (byte) value;
+    }
+}
@@ -0,0 +1,52 @@
+package dbSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 조인 하나가 쓰는 임시 파일 디렉터리 (DbConst.JOIN_SPILL_DIR 아래에 조인마다 새로 만든다)
+ *
+ * 디렉터리는 처음 파일을 만들 때 Files.createTempDirectory 로 만들므로, 같은 테이블을 조인하는 세션끼리도 겹치지 않는다.
+ * 메모리 안에서 끝나는 조인은 디렉터리를 만들지 않는다. close() 에서 남은 파일과 함께 지운다.
+ */
+final class SpillDirectory implements AutoCloseable {
+
+    private final String prefix;
+    private Path dir;
+
+    /**
+     * prefix : 디렉터리 이름 앞부분 (예: "f1.hash")
+     */
+    SpillDirectory(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * 이 디렉터리 안에 새 임시 파일 만들기
+     */
+    File newFile(String name) throws IOException {
+        if (dir == null) {
+            Path parent = Path.of(DbConst.JOIN_SPILL_DIR);
+            Files.createDirectories(parent);
+            dir = Files.createTempDirectory(parent, prefix + ".");
+        }
+        return Files.createTempFile(dir, name + ".", ".spill").toFile();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (dir == null) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+        dir = null;
+    }
+}
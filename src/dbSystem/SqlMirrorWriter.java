@@ -0,0 +1,152 @@
+package dbSystem;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * 파일에 삽입한 레코드를 DB 테이블에도 똑같이 넣는 배치 writer
+ *
+ * PreparedStatement 에 addBatch 로 모았다가 batchSize 개마다 executeBatch 하고,
+ * commitInterval 개마다 커밋한다. close() 에서 남은 배치를 보내고 커밋한다.
+ */
+public class SqlMirrorWriter implements AutoCloseable {
+
+    private final String tableName;
+    private final int batchSize;
+    private final int commitInterval;
+
+    private final PooledConnection con;
+    private final PreparedStatement stmt;
+    private final int columnCount;
+
+    private int pendingBatch = 0;
+    private int uncommitted = 0;
+    private long written = 0;
+    private long elapsedNanos = 0;
+
+    public SqlMirrorWriter(String tableName) throws SQLException {
+        this(tableName, DbConst.MIRROR_BATCH_SIZE, DbConst.MIRROR_COMMIT_INTERVAL);
+    }
+
+    public SqlMirrorWriter(String tableName, int batchSize, int commitInterval) throws SQLException {
+        this.tableName = tableName;
+        this.batchSize = Math.max(1, batchSize);
+        this.commitInterval = Math.max(this.batchSize, commitInterval);
+        this.columnCount = SchemaCatalog.get(tableName).getColumnCount();
+
+        StringBuilder sql = new StringBuilder("insert into " + tableName + " values(");
+        for (int i = 0; i < columnCount; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        this.con = Main.getConnection();
+        try {
+            con.setAutoCommit(false);
+            this.stmt = con.prepareStatement(sql.toString());
+        } catch (SQLException e) {
+            con.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 레코드 하나를 배치에 추가
+     */
+    public void add(Record record) throws SQLException {
+        long start = System.nanoTime();
+
+        int recordColumns = record.getSchema().getColumnCount();
+        for (int i = 1; i <= columnCount; i++) {
+            String value = i <= recordColumns ? record.getValue(i - 1) : null;
+            // null 처리
+            if (value == null) {
+                stmt.setNull(i, Types.CHAR);
+            } else {
+                stmt.setString(i, value);
+            }
+        }
+        stmt.addBatch();
+        pendingBatch++;
+        uncommitted++;
+
+        if (pendingBatch >= batchSize) {
+            executeBatch();
+        }
+        if (uncommitted >= commitInterval) {
+            commit();
+        }
+
+        elapsedNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * 모아 둔 배치를 보낸다. 실패하면 커밋하지 않은 작업을 모두 되돌리고 배치를 비운 뒤 예외를 던진다.
+     */
+    private void executeBatch() throws SQLException {
+        if (pendingBatch == 0) {
+            return;
+        }
+        try {
+            stmt.executeBatch();
+            Metrics.increment(Metrics.Counter.JDBC_BATCHES);
+            written += pendingBatch;
+        } catch (SQLException e) {
+            // 실패한 뒤 배치가 비워지는지는 드라이버마다 달라서 직접 비운다
+            try {
+                stmt.clearBatch();
+            } catch (SQLException clearError) {
+                e.addSuppressed(clearError);
+            }
+            try {
+                con.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            // 이전 배치로 보냈지만 커밋하지 않은 레코드도 같이 되돌아갔다
+            written -= uncommitted - pendingBatch;
+            uncommitted = 0;
+            throw e;
+        } finally {
+            pendingBatch = 0;
+        }
+    }
+
+    private void commit() throws SQLException {
+        executeBatch();
+        con.commit();
+        uncommitted = 0;
+    }
+
+    /**
+     * 지금까지 DB 에 보낸 레코드 수
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * 레코드/초 단위 처리량
+     */
+    public double getRecordsPerSecond() {
+        return elapsedNanos == 0 ? 0 : written * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * 남은 배치를 보내고 커밋한 뒤 커넥션 반납
+     */
+    @Override
+    public void close() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            commit();
+        } finally {
+            elapsedNanos += System.nanoTime() - start;
+            con.close();
+        }
+
+        Log.info(String.format("DB 테이블 %s에 %d개 레코드 삽입 완료 (%.1f records/sec, 배치 %d, 커밋 간격 %d)",
+                tableName, written, getRecordsPerSecond(), batchSize, commitInterval));
+    }
+}
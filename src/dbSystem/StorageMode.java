@@ -0,0 +1,45 @@
+package dbSystem;
+
+/**
+ * 순차 파일의 저장 방식, 파일을 만들 때 정해서 헤더에 기록한다.
+ */
+public enum StorageMode {
+
+    // RandomAccessFile + 공용 버퍼 풀
+    RANDOM_ACCESS(0),
+
+    // FileChannel.map 으로 매핑한 영역을 직접 읽고 쓴다 (버퍼 풀을 거치지 않음)
+    MAPPED(1);
+
+    private final int code;
+
+    StorageMode(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static StorageMode fromCode(int code) {
+        for (StorageMode mode : values()) {
+            if (mode.code == code) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 저장 방식: " + code);
+    }
+
+    /**
+     * "raf", "mmap" 같은 설정 값 해석
+     */
+    public static StorageMode parse(String value) {
+        if (value.equalsIgnoreCase("mmap") || value.equalsIgnoreCase("mapped")) {
+            return MAPPED;
+        }
+        if (value.equalsIgnoreCase("raf") || value.equalsIgnoreCase("random_access")) {
+            return RANDOM_ACCESS;
+        }
+        throw new IllegalArgumentException("알 수 없는 저장 방식: " + value);
+    }
+}
@@ -0,0 +1,43 @@
+package dbSystem;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 테이블마다 하나씩 있는 잠금 (같은 JVM 안에서만 유효)
+ *
+ * writer : 파일을 통째로 바꾸는 작업(대량 적재, 재구성, 업그레이드, 새로 만들기)은 한 번에 하나만 하고,
+ *          그동안 삽입은 기다린다.
+ * insert : 삽입끼리는 같이 잡는다 (삽입끼리의 충돌은 LockManager 가 막는다).
+ * swap   : 파일을 통째로 교체하는 순간에는 쓰기 잠금을 잡고, 파일을 읽는 동안에는 읽기 잠금을 잡는다.
+ *          재구성하는 동안에도 읽기는 예전 파일에서 계속되고, 교체하는 순간에만 잠깐 기다린다.
+ */
+public class TableLocks {
+
+    private static final ConcurrentMap<String, TableLocks> LOCKS = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock writer = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock swap = new ReentrantReadWriteLock();
+
+    public static TableLocks of(String tableName) {
+        return LOCKS.computeIfAbsent(tableName.toLowerCase(Locale.ROOT), name -> new TableLocks());
+    }
+
+    public ReentrantReadWriteLock.WriteLock writer() {
+        return writer.writeLock();
+    }
+
+    public ReentrantReadWriteLock.ReadLock insert() {
+        return writer.readLock();
+    }
+
+    public ReentrantReadWriteLock.ReadLock swapRead() {
+        return swap.readLock();
+    }
+
+    public ReentrantReadWriteLock.WriteLock swapWrite() {
+        return swap.writeLock();
+    }
+}
@@ -0,0 +1,66 @@
+package dbSystem;
+
+import java.util.List;
+
+/**
+ * 검색, 조인 결과를 | 로 구분한 표로 출력
+ * 결과를 만드는 쪽(커서, 조인)과 분리해서, 행을 받는 대로 한 줄씩 출력한다.
+ */
+public class TablePrinter {
+
+    private final List<String> columns;
+    private final String valueFormat;
+    private final String header;
+    private final String separator;
+
+    /**
+     * columns : 출력할 컬럼 이름, width : 값 칸의 폭
+     */
+    public TablePrinter(List<String> columns, int width) {
+        this.columns = columns;
+        this.valueFormat = " %-" + width + "s |";
+
+        StringBuilder headerBuilder = new StringBuilder("| 번호 | ");
+        StringBuilder separatorBuilder = new StringBuilder("|------|");
+        String dashes = "-".repeat(width + 2) + "|";
+        for (String column : columns) {
+            headerBuilder.append(String.format(valueFormat, column));
+            separatorBuilder.append(dashes);
+        }
+        this.header = headerBuilder.toString();
+        this.separator = separatorBuilder.toString();
+    }
+
+    public void printHeader() {
+        System.out.println(separator);
+        System.out.println(header);
+        System.out.println(separator);
+    }
+
+    /**
+     * 행 번호와 값 출력, null 은 NULL 로 출력한다
+     */
+    public void printRow(int rowNumber, List<String> values) {
+        StringBuilder rowBuilder = new StringBuilder(String.format("| %-4d |", rowNumber));
+        for (String value : values) {
+            rowBuilder.append(String.format(valueFormat, value == null ? "NULL" : value));
+        }
+        System.out.println(rowBuilder);
+    }
+
+    /**
+     * 디코딩한 행을 columns 순서대로 출력
+     */
+    public void printRow(int rowNumber, RowView row) {
+        StringBuilder rowBuilder = new StringBuilder(String.format("| %-4d |", rowNumber));
+        for (String column : columns) {
+            String value = row.get(column);
+            rowBuilder.append(String.format(valueFormat, value == null ? "NULL" : value));
+        }
+        System.out.println(rowBuilder);
+    }
+
+    public void printFooter() {
+        System.out.println(separator);
+    }
+}
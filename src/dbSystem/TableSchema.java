@@ -0,0 +1,134 @@
+package dbSystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 테이블 하나의 스키마 정보 (컬럼 이름, 길이, 순서, search key, 필드 오프셋)
+ * 한 번 만들어지면 변경되지 않는다.
+ */
+public class TableSchema {
+
+    // null 비트맵이 1바이트이므로 컬럼은 최대 8개
+    public static final int MAX_COLUMNS = 8;
+
+    private final String tableName;
+    private final int version;
+    private final List<String> columnNames;
+    private final List<Integer> fieldSizes;
+    private final int[] ordinals;
+
+    // offsets[nullBitMap][i] : 레코드 시작 기준 i번째 필드의 오프셋
+    // offsets[nullBitMap][컬럼 수] : 포인터 필드의 오프셋
+    private final int[][] offsets;
+
+    public TableSchema(String tableName, int version, List<String> columnNames, List<Integer> fieldSizes) {
+        if (columnNames.isEmpty() || columnNames.size() > MAX_COLUMNS) {
+            throw new IllegalArgumentException("컬럼 수는 1~" + MAX_COLUMNS + "개여야 합니다: " + columnNames.size());
+        }
+        if (columnNames.size() != fieldSizes.size()) {
+            throw new IllegalArgumentException("컬럼 이름과 길이의 개수가 다릅니다.");
+        }
+
+        this.tableName = tableName;
+        this.version = version;
+        this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnNames));
+        this.fieldSizes = Collections.unmodifiableList(new ArrayList<>(fieldSizes));
+
+        int count = columnNames.size();
+        this.ordinals = new int[count];
+        for (int i = 0; i < count; i++) {
+            ordinals[i] = i + 1;
+        }
+
+        // 가능한 모든 null 비트맵에 대해 필드 오프셋을 미리 계산
+        this.offsets = new int[256][count + 1];
+        for (int bitMap = 0; bitMap < 256; bitMap++) {
+            int offset = 1; // nullBitMap 다음부터
+            for (int i = 0; i < count; i++) {
+                offsets[bitMap][i] = offset;
+                if (!isNull((byte) bitMap, i)) {
+                    offset += fieldSizes.get(i);
+                }
+            }
+            offsets[bitMap][count] = offset;
+        }
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public List<Integer> getFieldSizes() {
+        return fieldSizes;
+    }
+
+    public String getColumnName(int fieldIndex) {
+        return columnNames.get(fieldIndex);
+    }
+
+    public int getFieldSize(int fieldIndex) {
+        return fieldSizes.get(fieldIndex);
+    }
+
+    public int getOrdinal(int fieldIndex) {
+        return ordinals[fieldIndex];
+    }
+
+    /**
+     * 첫 번째 컬럼이 search key
+     */
+    public String getSearchKey() {
+        return columnNames.get(0);
+    }
+
+    /**
+     * 필드 이름으로 인덱스 찾기 (대소문자 무시), 없으면 -1
+     */
+    public int indexOf(String fieldName) {
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (columnNames.get(i).equalsIgnoreCase(fieldName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 레코드 시작 기준 필드 오프셋
+     */
+    public int fieldOffset(byte nullBitMap, int fieldIndex) {
+        return offsets[nullBitMap & 0xFF][fieldIndex];
+    }
+
+    /**
+     * 레코드 시작 기준 포인터 필드 오프셋
+     */
+    public int pointerOffset(byte nullBitMap) {
+        return offsets[nullBitMap & 0xFF][columnNames.size()];
+    }
+
+    /**
+     * 레코드 전체 길이 (nullBitMap + 필드 + 포인터)
+     */
+    public int recordLength(byte nullBitMap) {
+        return pointerOffset(nullBitMap) + 4;
+    }
+
+    public static boolean isNull(byte nullBitMap, int fieldIndex) {
+        return ((nullBitMap >> (7 - fieldIndex)) & 1) == 1;
+    }
+}
@@ -0,0 +1,683 @@
+package dbSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * 데이터 파일의 write-ahead log (테이블 이름.wal)
+ *
+ * 삽입 하나가 바꾼 데이터 페이지들(레코드가 들어간 블록, 앞 레코드의 포인터, 헤더)의 이미지를
+ * 트랜잭션 레코드 하나로 로그 끝에 쓴다. 데이터 파일에는 그 로그가 fsync 된 뒤에만 페이지를 쓰고,
+ * 그 전까지 버퍼 풀에서 밀려난 페이지는 로그에 쓴 이미지(pending)에서 다시 읽는다.
+ * 그래서 중간에 죽어도 데이터 파일에는 끝난 삽입의 페이지만 들어가고, 다음에 열 때 로그를 다시 적용하면 된다.
+ *
+ * fsync 시점은 WAL_DURABILITY 로 정한다.
+ *   PER_OP  : 커밋마다 fsync (동시에 커밋한 트랜잭션은 한 번의 fsync 를 같이 쓴다)
+ *   BATCHED : WAL_BATCH_MS 마다 또는 커밋이 WAL_BATCH_OPS 개 쌓이면 fsync (그 사이의 커밋은 잃을 수 있다)
+ *   NONE    : fsync 하지 않는다 (프로세스가 죽는 것은 견디지만 운영체제가 죽으면 잃을 수 있다)
+ * 로그가 WAL_CHECKPOINT_BYTES 를 넘고 적용할 페이지가 없으면 데이터 파일을 fsync 하고 로그를 비운다.
+ *
+ * 인덱스와 FSM 은 로그를 쓰지 않으므로, 로그 파일 자체를 "깨끗이 닫지 않았다"는 표시로 쓴다.
+ * 로그 파일은 처음 쓸 때 생기고 비워도 남아 있다가, 종료할 때 버퍼 풀을 모두 내린 뒤에만 지운다.
+ * 다음에 열 때 로그 파일이 (비어 있더라도) 남아 있으면 인덱스와 FSM 을 지워서 다시 만든다.
+ *
+ * 레코드 형식: 매직(4) LSN(8) 페이지 크기(4) 페이지 수(4) [블록 번호(8) 페이지]... CRC32(4)
+ * 페이지 전체 이미지라 같은 레코드를 여러 번 적용해도 결과가 같다.
+ *
+ * MAPPED 방식 파일과 슬롯 페이지 이전 형식 파일은 로그를 쓰지 않는다.
+ *
+ * 로그 쓰기, fsync, 데이터 파일 쓰기는 잠금을 잡은 채로 하므로 잠금은 모두 ReentrantLock 이다
+ * (synchronized 안에서 I/O 를 기다리면 가상 스레드가 캐리어 스레드를 붙잡는다).
+ */
+public class WriteAheadLog {
+
+    public enum Durability {
+        PER_OP, BATCHED, NONE;
+
+        /**
+         * "per_op", "batched", "none" 같은 설정 값 해석
+         */
+        public static Durability parse(String value) {
+            for (Durability durability : values()) {
+                if (durability.name().equalsIgnoreCase(value.replace('-', '_'))) {
+                    return durability;
+                }
+            }
+            throw new IllegalArgumentException("알 수 없는 로그 방식: " + value);
+        }
+    }
+
+    private static final int MAGIC = 0x57414C52; // "WALR"
+    private static final int RECORD_HEADER = 20;
+
+    // LOGS 는 LOGS_LOCK 으로 보호한다
+    private static final Map<String, WriteAheadLog> LOGS = new HashMap<>();
+    private static final ReentrantLock LOGS_LOCK = new ReentrantLock();
+
+    private static final ScheduledExecutorService SYNCER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "wal-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile Durability durability = DbConst.WAL_DURABILITY;
+
+    static {
+        SYNCER.scheduleWithFixedDelay(WriteAheadLog::syncAll, DbConst.WAL_BATCH_MS, DbConst.WAL_BATCH_MS,
+                TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(WriteAheadLog::shutdown, "wal-checkpoint"));
+    }
+
+    private final String dataPath;
+    private final File logFile;
+
+    // 아래 필드는 lock 으로 보호한다
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel log;
+    private long logSize;
+    private long lastLsn;
+    private int unsyncedOps;
+    // 로그에는 있지만 아직 데이터 파일에 쓰지 않은 페이지 (블록 번호 → 가장 최근 이미지)
+    private final Map<Long, Pending> pending = new HashMap<>();
+    // pending 페이지까지 포함한 데이터 파일 길이
+    private long logicalLength;
+
+    // fsync 는 한 번에 하나씩, 기다리던 커밋은 앞의 fsync 가 자기 레코드까지 덮었으면 바로 돌아간다
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile long syncedLsn;
+
+    // 데이터 파일에 페이지를 쓰는 쪽도 한 번에 하나씩
+    private final ReentrantLock applyLock = new ReentrantLock();
+    private RandomAccessFile data;
+
+    // 통계
+    private long syncCount;
+    private long appliedPages;
+    private long checkpoints;
+
+    private WriteAheadLog(String dataPath) {
+        this.dataPath = dataPath;
+        this.logFile = fileFor(dataPath);
+    }
+
+    /**
+     * 데이터 파일(정규 경로)의 로그, 이 프로세스에서 처음 열 때 남아 있는 로그를 데이터 파일에 다시 적용한다.
+     */
+    static WriteAheadLog of(String dataPath) throws IOException {
+        LOGS_LOCK.lock();
+        try {
+            WriteAheadLog wal = LOGS.get(dataPath);
+            if (wal == null) {
+                wal = new WriteAheadLog(dataPath);
+                wal.recover();
+                LOGS.put(dataPath, wal);
+            }
+            return wal;
+        } finally {
+            LOGS_LOCK.unlock();
+        }
+    }
+
+    /**
+     * 데이터 파일 경로에 대응하는 로그 파일 (f1.txt → f1.wal)
+     */
+    public static File fileFor(String dataFilePath) {
+        return FileUtil.companionFile(dataFilePath, "wal");
+    }
+
+    public static Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * fsync 방식 바꾸기 (벤치마크에서 방식별로 잴 때)
+     */
+    static void setDurability(Durability value) {
+        durability = value;
+    }
+
+    /**
+     * 파일을 교체하기 전에 호출, 로그의 페이지를 모두 데이터 파일에 쓰고 fsync 한 뒤 로그를 비운다.
+     */
+    public static void checkpoint(String dataFileName) throws IOException {
+        WriteAheadLog wal = lookup(new File(dataFileName).getCanonicalPath());
+        if (wal != null) {
+            wal.checkpoint();
+        }
+    }
+
+    /**
+     * 파일을 새로 만들 때 호출, 예전 파일의 로그와 적용하지 않은 페이지를 버린다.
+     */
+    public static void discard(String dataFileName) throws IOException {
+        String path = new File(dataFileName).getCanonicalPath();
+        WriteAheadLog wal = lookup(path);
+        if (wal != null) {
+            wal.reset();
+        }
+        File file = fileFor(path);
+        if (file.exists() && !file.delete()) {
+            throw new IOException("로그 파일 삭제 실패: " + file);
+        }
+    }
+
+    private static WriteAheadLog lookup(String path) {
+        LOGS_LOCK.lock();
+        try {
+            return LOGS.get(path);
+        } finally {
+            LOGS_LOCK.unlock();
+        }
+    }
+
+    private static List<WriteAheadLog> openLogs() {
+        LOGS_LOCK.lock();
+        try {
+            return new ArrayList<>(LOGS.values());
+        } finally {
+            LOGS_LOCK.unlock();
+        }
+    }
+
+    /**
+     * 트랜잭션 하나의 페이지 이미지를 로그에 쓰고 LSN 반환, fsync 는 commit 에서
+     */
+    long append(long[] blockNos, byte[][] pages) throws IOException {
+        lock.lock();
+        try {
+            int pageSize = pages[0].length;
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + pages.length * (8 + pageSize) + 4);
+            long lsn = lastLsn + 1;
+            record.putInt(MAGIC).putLong(lsn).putInt(pageSize).putInt(pages.length);
+            for (int i = 0; i < pages.length; i++) {
+                record.putLong(blockNos[i]).put(pages[i]);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 0, record.position());
+            record.putInt((int) crc.getValue());
+            record.flip();
+
+            FileChannel channel = logChannel();
+            while (record.hasRemaining()) {
+                channel.write(record, logSize + record.position());
+            }
+            logSize += record.limit();
+            lastLsn = lsn;
+            unsyncedOps++;
+
+            for (int i = 0; i < pages.length; i++) {
+                pending.put(blockNos[i], new Pending(lsn, pages[i]));
+                logicalLength = Math.max(logicalLength, (blockNos[i] + 1) * pageSize);
+            }
+            return lsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 커밋한 트랜잭션을 WAL_DURABILITY 에 따라 디스크에 내린다.
+     */
+    void commit(long lsn) throws IOException {
+        switch (durability) {
+            case PER_OP:
+                sync(lsn);
+                break;
+            case BATCHED:
+                boolean full;
+                lock.lock();
+                try {
+                    full = unsyncedOps >= DbConst.WAL_BATCH_OPS;
+                } finally {
+                    lock.unlock();
+                }
+                // 아니면 wal-sync 스레드가 WAL_BATCH_MS 안에 내린다
+                if (full) {
+                    sync(lsn);
+                }
+                break;
+            case NONE:
+                apply(lsn);
+                break;
+        }
+    }
+
+    /**
+     * lsn 까지 로그를 fsync 하고, 그 페이지들을 데이터 파일에 쓴다.
+     */
+    void sync(long lsn) throws IOException {
+        syncLock.lock();
+        try {
+            if (syncedLsn < lsn) {
+                long target;
+                FileChannel channel;
+                lock.lock();
+                try {
+                    target = lastLsn;
+                    unsyncedOps = 0;
+                    channel = log;
+                } finally {
+                    lock.unlock();
+                }
+                // fsync 하는 동안에도 다른 트랜잭션은 로그 끝에 계속 쓸 수 있다
+                if (channel != null) {
+                    channel.force(false);
+                    lock.lock();
+                    try {
+                        syncCount++;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                syncedLsn = target;
+            }
+        } finally {
+            syncLock.unlock();
+        }
+        apply(syncedLsn);
+    }
+
+    /**
+     * 데이터 파일에 아직 쓰지 않은 페이지 이미지, 없으면 null (버퍼 풀이 페이지를 읽을 때)
+     */
+    byte[] pendingPage(long blockNo) {
+        lock.lock();
+        try {
+            Pending page = pending.get(blockNo);
+            return page == null ? null : page.image;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 디스크에서 연속으로 읽은 블록 위에 pending 이미지를 덮어쓴다 (미리 읽기)
+     */
+    void overlay(long firstBlock, byte[] data, int blockSize, int blocks) {
+        lock.lock();
+        try {
+            for (int i = 0; i < blocks && !pending.isEmpty(); i++) {
+                Pending page = pending.get(firstBlock + i);
+                if (page != null) {
+                    System.arraycopy(page.image, 0, data, i * blockSize, blockSize);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * pending 페이지까지 포함한 데이터 파일 길이
+     */
+    long getLogicalLength() {
+        lock.lock();
+        try {
+            return logicalLength;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 로그의 페이지를 모두 데이터 파일에 쓰고 데이터 파일을 fsync 한 뒤 로그를 비운다.
+     */
+    void checkpoint() throws IOException {
+        sync(getLastLsn());
+        applyLock.lock();
+        try {
+            truncateIfApplied(true);
+            closeData();
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    private long getLastLsn() {
+        lock.lock();
+        try {
+            return lastLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAppliedPages() {
+        lock.lock();
+        try {
+            return appliedPages;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCheckpoints() {
+        lock.lock();
+        try {
+            return checkpoints;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLogSize() {
+        lock.lock();
+        try {
+            return logSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * upTo 이하의 LSN 으로 로그에 쓴 페이지를 데이터 파일에 쓴다.
+     */
+    private void apply(long upTo) throws IOException {
+        applyLock.lock();
+        try {
+            List<Map.Entry<Long, Pending>> ready = new ArrayList<>();
+            lock.lock();
+            try {
+                for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+                    if (entry.getValue().lsn <= upTo) {
+                        ready.add(Map.entry(entry.getKey(), entry.getValue()));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (ready.isEmpty()) {
+                return;
+            }
+
+            FileChannel channel = dataChannel();
+            for (Map.Entry<Long, Pending> entry : ready) {
+                byte[] image = entry.getValue().image;
+                ByteBuffer buffer = ByteBuffer.wrap(image);
+                long pos = entry.getKey() * image.length;
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, pos + buffer.position());
+                }
+            }
+
+            lock.lock();
+            try {
+                // 쓰는 사이에 같은 블록의 새 이미지가 들어왔으면 남겨 둔다
+                for (Map.Entry<Long, Pending> entry : ready) {
+                    pending.remove(entry.getKey(), entry.getValue());
+                }
+                appliedPages += ready.size();
+            } finally {
+                lock.unlock();
+            }
+            if (getLogSize() > DbConst.WAL_CHECKPOINT_BYTES) {
+                truncateIfApplied(durability != Durability.NONE);
+            }
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    /**
+     * 로그의 모든 페이지가 데이터 파일에 들어갔으면 데이터 파일을 fsync 하고 로그를 비운다 (applyLock 안에서)
+     */
+    private void truncateIfApplied(boolean force) throws IOException {
+        lock.lock();
+        try {
+            if (!pending.isEmpty() || log == null || logSize == 0) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (force && data != null) {
+            data.getChannel().force(false);
+        }
+        lock.lock();
+        try {
+            // fsync 하는 사이에 새 트랜잭션이 들어왔으면 다음 기회에
+            if (!pending.isEmpty()) {
+                return;
+            }
+            log.truncate(0);
+            if (force) {
+                log.force(false);
+            }
+            logSize = 0;
+            checkpoints++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 로그 파일을 처음 쓸 때 열고 잠근다. 버퍼 풀과 잠금은 프로세스마다 따로이므로,
+     * 다른 프로세스가 같은 테이블에 쓰고 있으면 삽입하지 않고 실패한다. (lock 안에서)
+     */
+    private FileChannel logChannel() throws IOException {
+        if (log == null) {
+            FileChannel channel = new RandomAccessFile(logFile, "rw").getChannel();
+            if (channel.tryLock() == null) {
+                channel.close();
+                throw new IOException("다른 프로세스가 이 테이블에 쓰고 있습니다: " + logFile);
+            }
+            log = channel;
+            logSize = log.size();
+        }
+        return log;
+    }
+
+    private FileChannel dataChannel() throws IOException {
+        if (data == null) {
+            data = new RandomAccessFile(dataPath, "rw");
+        }
+        return data.getChannel();
+    }
+
+    private void closeData() throws IOException {
+        if (data != null) {
+            data.close();
+            data = null;
+        }
+    }
+
+    /**
+     * 로그에 남은 트랜잭션을 순서대로 데이터 파일에 다시 쓴다.
+     * 끝이 잘리거나 CRC 가 맞지 않는 레코드(쓰다가 죽은 트랜잭션)부터는 버린다.
+     * 로그 파일이 남아 있으면 (비어 있어도) 앞의 프로세스가 깨끗이 닫지 않은 것이므로,
+     * 버퍼 풀에만 있던 페이지를 잃었을 인덱스와 FSM 을 지워서 다음에 열 때 다시 만든다.
+     */
+    private void recover() throws IOException {
+        if (!logFile.exists() || !new File(dataPath).exists()) {
+            return;
+        }
+
+        int transactions = 0;
+        int pages = 0;
+        try (RandomAccessFile in = new RandomAccessFile(logFile, "rw");
+             RandomAccessFile out = new RandomAccessFile(dataPath, "rw")) {
+            // 다른 프로세스가 쓰고 있는 로그면 건드리지 않는다
+            if (in.getChannel().tryLock() == null) {
+                return;
+            }
+            long pos = 0;
+            long length = in.length();
+            byte[] header = new byte[RECORD_HEADER];
+            while (pos + RECORD_HEADER <= length) {
+                in.seek(pos);
+                in.readFully(header);
+                ByteBuffer h = ByteBuffer.wrap(header);
+                int magic = h.getInt();
+                long lsn = h.getLong();
+                int pageSize = h.getInt();
+                int count = h.getInt();
+                long recordLength = RECORD_HEADER + (long) count * (8 + pageSize) + 4;
+                if (magic != MAGIC || pageSize <= 0 || count <= 0 || pos + recordLength > length) {
+                    break;
+                }
+
+                byte[] record = new byte[(int) recordLength];
+                in.seek(pos);
+                in.readFully(record);
+                CRC32 crc = new CRC32();
+                crc.update(record, 0, record.length - 4);
+                if ((int) crc.getValue() != ByteBuffer.wrap(record, record.length - 4, 4).getInt()) {
+                    break;
+                }
+
+                ByteBuffer body = ByteBuffer.wrap(record, RECORD_HEADER, record.length - RECORD_HEADER - 4);
+                for (int i = 0; i < count; i++) {
+                    long blockNo = body.getLong();
+                    out.seek(blockNo * pageSize);
+                    out.write(record, body.position(), pageSize);
+                    body.position(body.position() + pageSize);
+                    pages++;
+                }
+                lastLsn = lsn;
+                transactions++;
+                pos += recordLength;
+            }
+            out.getChannel().force(false);
+
+            FreeSpaceMap.delete(dataPath);
+            BPlusTree.delete(dataPath);
+            in.setLength(0);
+            in.getChannel().force(false);
+        }
+        if (!logFile.delete()) {
+            throw new IOException("로그 파일 삭제 실패: " + logFile);
+        }
+        syncedLsn = lastLsn;
+        Log.info(new File(dataPath).getName() + " 로그 복구: 트랜잭션 " + transactions + "개, 페이지 "
+                + pages + "개 다시 적용, 인덱스와 FSM 은 다시 만든다");
+    }
+
+    /**
+     * 로그를 모두 적용했으면 로그 파일을 닫고 지운다 (버퍼 풀을 모두 내린 뒤, 종료할 때)
+     * 이 프로세스가 쓰지 않은 로그 파일은 다른 프로세스의 것일 수 있어 건드리지 않는다.
+     */
+    private void closeClean() throws IOException {
+        syncLock.lock();
+        applyLock.lock();
+        try {
+            lock.lock();
+            try {
+                if (log == null || logSize != 0 || !pending.isEmpty()) {
+                    return;
+                }
+                log.close();
+                log = null;
+                if (!logFile.delete()) {
+                    throw new IOException("로그 파일 삭제 실패: " + logFile);
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            applyLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    private void reset() throws IOException {
+        syncLock.lock();
+        applyLock.lock();
+        try {
+            lock.lock();
+            try {
+                pending.clear();
+                logicalLength = 0;
+                unsyncedOps = 0;
+                if (log != null) {
+                    log.close();
+                    log = null;
+                }
+                logSize = 0;
+                syncedLsn = lastLsn;
+            } finally {
+                lock.unlock();
+            }
+            closeData();
+        } finally {
+            applyLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    private static void syncAll() {
+        for (WriteAheadLog wal : openLogs()) {
+            try {
+                long lsn = wal.getLastLsn();
+                if (lsn > wal.syncedLsn && durability == Durability.BATCHED) {
+                    wal.sync(lsn);
+                }
+            } catch (IOException e) {
+                Log.error(wal.logFile.getName() + " 로그 fsync 실패: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 종료할 때 모든 로그를 체크포인트하고, 인덱스와 FSM 페이지까지 디스크에 내린 뒤 로그 파일을 지운다.
+     * 어디서든 실패하면 로그 파일을 남겨서 다음에 열 때 인덱스와 FSM 을 다시 만들게 한다.
+     */
+    private static void shutdown() {
+        boolean clean = true;
+        List<WriteAheadLog> logs = openLogs();
+        for (WriteAheadLog wal : logs) {
+            try {
+                wal.checkpoint();
+            } catch (IOException e) {
+                clean = false;
+                Log.error(wal.logFile.getName() + " 체크포인트 실패: " + e.getMessage());
+            }
+        }
+        if (!clean) {
+            return;
+        }
+        try {
+            BufferPool.getInstance().flushAll();
+        } catch (IOException e) {
+            Log.error("종료할 때 버퍼 풀 내리기 실패: " + e.getMessage());
+            return;
+        }
+        for (WriteAheadLog wal : logs) {
+            try {
+                wal.closeClean();
+            } catch (IOException e) {
+                Log.error(wal.logFile.getName() + " 로그 닫기 실패: " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Pending {
+        final long lsn;
+        final byte[] image;
+
+        Pending(long lsn, byte[] image) {
+            this.lsn = lsn;
+            this.image = image;
+        }
+    }
+}
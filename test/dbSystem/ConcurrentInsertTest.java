@@ -0,0 +1,70 @@
+package dbSystem;
+
+import org.junit.jupiter.api.RepeatedTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 여러 스레드가 같은 테이블에 동시에 정렬 삽입해도 체인, 헤더, 인덱스가 맞는지 확인
+ *
+ * 스레드마다 서로 겹치지 않는 key 를 섞어서 넣으므로, 끝난 뒤 테이블에는 모든 key 가 한 번씩 있어야 한다.
+ * 새 테이블에서 시작하므로 FSM 과 인덱스를 처음 만드는 것도 여러 스레드가 동시에 한다.
+ * MAPPED 파일은 삽입마다 핸들을 따로 열어 파일을 늘리므로, 핸들끼리 파일 길이를 다르게 보지 않는지도 본다.
+ */
+class ConcurrentInsertTest {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 150;
+
+    @RepeatedTest(3)
+    void keepsChainHeaderAndIndexInAgreement() throws Exception {
+        insertConcurrently("concurrent_insert", StorageMode.RANDOM_ACCESS);
+    }
+
+    @RepeatedTest(3)
+    void keepsMappedFileInAgreement() throws Exception {
+        insertConcurrently("concurrent_insert_mapped", StorageMode.MAPPED);
+    }
+
+    private static void insertConcurrently(String table, StorageMode mode) throws Exception {
+        TableChecks.create(table, mode);
+
+        List<String> all = new ArrayList<>();
+        List<List<String>> work = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < PER_THREAD; i++) {
+                keys.add(TableChecks.key(i * THREADS + t));
+            }
+            Collections.shuffle(keys, new Random(t));
+            work.add(keys);
+            all.addAll(keys);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<String> keys : work) {
+                futures.add(executor.submit(() -> {
+                    for (String key : keys) {
+                        Main.insertRecord(table, key + ";n" + key);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        TableChecks.assertConsistent(table, all);
+    }
+}
@@ -0,0 +1,131 @@
+package dbSystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * H2 인메모리 DB 로 커넥션 풀의 크기 제한, 재사용, Statement 캐시, 누수 검사를 확인
+ */
+class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:h2:mem:pool_test;DB_CLOSE_DELAY=-1";
+
+    private ConnectionPool pool;
+
+    @AfterEach
+    void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ConnectionPool open(int maxSize, long leakThresholdMillis, int statementCacheSize) {
+        pool = new ConnectionPool(URL, "sa", "", maxSize, leakThresholdMillis, statementCacheSize);
+        return pool;
+    }
+
+    @Test
+    void boundsBorrowedConnections() throws SQLException {
+        ConnectionPool pool = open(2, 0, 4);
+        PooledConnection first = pool.borrow(100);
+        PooledConnection second = pool.borrow(100);
+        assertEquals(2, pool.getActiveCount());
+
+        assertThrows(SQLException.class, () -> pool.borrow(50), "최대 개수를 넘어서 빌렸다");
+
+        first.close();
+        PooledConnection third = pool.borrow(100);
+        assertSame(first, third, "반납한 커넥션을 다시 빌려준다");
+        third.close();
+        second.close();
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    @Test
+    void resetsReturnedConnectionBeforeReuse() throws SQLException {
+        ConnectionPool pool = open(1, 0, 4);
+        try (PooledConnection con = pool.borrow(100); Statement stmt = con.createStatement()) {
+            stmt.execute("create table pool_reset (id int)");
+        }
+
+        PooledConnection con = pool.borrow(100);
+        con.setAutoCommit(false);
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("insert into pool_reset values (1)");
+        }
+        con.close(); // 커밋하지 않고 반납
+
+        try (PooledConnection again = pool.borrow(100); Statement stmt = again.createStatement()) {
+            assertSame(con, again);
+            assertTrue(again.getConnection().getAutoCommit(), "autocommit 복구");
+            try (var rs = stmt.executeQuery("select count(*) from pool_reset")) {
+                rs.next();
+                assertEquals(0, rs.getInt(1), "커밋하지 않은 작업은 되돌린다");
+            }
+            stmt.execute("drop table pool_reset");
+        }
+    }
+
+    @Test
+    void cachesPreparedStatementsPerConnection() throws SQLException {
+        ConnectionPool pool = open(1, 0, 2);
+        long prepares = Metrics.snapshot().get(Metrics.Counter.JDBC_PREPARES);
+
+        PreparedStatement select;
+        try (PooledConnection con = pool.borrow(100)) {
+            select = con.prepareStatement("select 1");
+            assertSame(select, con.prepareStatement("select 1"));
+            con.createStatement().close();
+        }
+        try (PooledConnection con = pool.borrow(100)) {
+            assertSame(select, con.prepareStatement("select 1"), "반납한 뒤에도 캐시가 남는다");
+            assertEquals(prepares + 1, Metrics.snapshot().get(Metrics.Counter.JDBC_PREPARES),
+                    "한 번만 준비하고 createStatement 는 세지 않는다");
+
+            // 캐시 크기(2)를 넘으면 가장 오래 쓰지 않은 것을 닫는다
+            con.prepareStatement("select 2");
+            con.prepareStatement("select 3");
+            assertTrue(select.isClosed());
+            assertNotSame(select, con.prepareStatement("select 1"));
+        }
+    }
+
+    @Test
+    void reportsConnectionNotReturned() throws Exception {
+        ConnectionPool pool = open(1, 50, 4);
+        PooledConnection con = pool.borrow(100);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getLeakCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, pool.getLeakCount());
+
+        // 같은 대여는 한 번만 보고한다
+        Thread.sleep(200);
+        assertEquals(1, pool.getLeakCount());
+        con.close();
+    }
+
+    @Test
+    void rejectsBorrowAfterClose() throws SQLException {
+        ConnectionPool pool = open(2, 0, 4);
+        PooledConnection borrowed = pool.borrow(100);
+        pool.close();
+
+        assertThrows(SQLException.class, () -> pool.borrow(100));
+        borrowed.close();
+        assertTrue(borrowed.getConnection().isClosed(), "닫힌 풀에 반납한 커넥션은 닫는다");
+        assertEquals(0, pool.getIdleCount());
+    }
+}
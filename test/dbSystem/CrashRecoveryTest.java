@@ -0,0 +1,244 @@
+package dbSystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 삽입하던 프로세스가 죽은 뒤 로그로 복구하는지 확인
+ *
+ * 자식 JVM(Writer)이 테이블을 만들고 삽입하다가 Runtime.halt 로 끝난다 (셧다운 훅의 체크포인트 없이).
+ * 이 JVM 은 그 테이블을 처음 여는 것이므로 WriteAheadLog.of 에서 복구가 돈다.
+ * 로그 끝을 자르거나 레코드 하나를 망가뜨린 뒤 복구해서, 그 앞의 삽입만 남는지 본다.
+ * 로그가 비어 있어도 깨끗이 닫지 않았으면 인덱스와 FSM 을 다시 만드는지도 본다.
+ */
+class CrashRecoveryTest {
+
+    private static final int RECORDS = 120;
+
+    @Test
+    void replaysEveryInsertLeftInLog() throws Exception {
+        String table = "crash_replay";
+        List<String> keys = crashWhileInserting(table, Crash.LOG_ONLY);
+        List<Long> records = logRecords(table);
+        assertEquals(RECORDS, records.size(), "삽입마다 로그 레코드 하나");
+
+        recover(table);
+        TableChecks.assertConsistent(table, keys);
+
+        // 복구한 뒤에도 FSM 과 인덱스를 다시 만들어 이어서 삽입할 수 있다
+        Main.insertRecord(table, TableChecks.key(RECORDS) + ";after");
+        keys.add(TableChecks.key(RECORDS));
+        TableChecks.assertConsistent(table, keys);
+    }
+
+    @Test
+    void dropsTornRecordAtLogTail() throws Exception {
+        String table = "crash_torn";
+        List<String> keys = crashWhileInserting(table, Crash.LOG_ONLY);
+        List<Long> records = logRecords(table);
+        File log = logFile(table);
+
+        // 마지막 레코드를 쓰다가 죽은 것처럼 중간에서 자른다
+        long last = records.get(records.size() - 1);
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(last + (file.length() - last) / 2);
+        }
+
+        recover(table);
+        TableChecks.assertConsistent(table, keys.subList(0, RECORDS - 1));
+    }
+
+    @Test
+    void stopsAtRecordWithBadChecksum() throws Exception {
+        String table = "crash_corrupt";
+        List<String> keys = crashWhileInserting(table, Crash.LOG_ONLY);
+        List<Long> records = logRecords(table);
+
+        // 가운데 레코드의 페이지 이미지 한 바이트를 바꾸면 CRC 가 맞지 않아 그 레코드부터 버린다
+        int broken = RECORDS / 2;
+        try (RandomAccessFile file = new RandomAccessFile(logFile(table), "rw")) {
+            long pos = records.get(broken) + 40;
+            file.seek(pos);
+            int value = file.read();
+            file.seek(pos);
+            file.write(value ^ 0xFF);
+        }
+
+        recover(table);
+        TableChecks.assertConsistent(table, keys.subList(0, broken));
+    }
+
+    @Test
+    void recoversAfterCheckpointTruncatedLog() throws Exception {
+        String table = "crash_checkpoint";
+        List<String> keys = crashWhileInserting(table, Crash.CHECKPOINT);
+        List<Long> records = logRecords(table);
+        assertTrue(records.size() < RECORDS, "체크포인트가 로그를 비웠어야 한다: 레코드 " + records.size());
+
+        recover(table);
+        TableChecks.assertConsistent(table, keys);
+    }
+
+    @Test
+    void rebuildsIndexWhenLogWasEmptied() throws Exception {
+        String table = "crash_stale_index";
+        List<String> keys = crashWhileInserting(table, Crash.STALE_INDEX);
+        assertTrue(logFile(table).exists(), "깨끗이 닫지 않았으면 로그 파일이 남는다");
+        assertEquals(0, logFile(table).length(), "체크포인트가 로그를 비웠어야 한다");
+
+        recover(table);
+        assertFalse(BPlusTree.fileFor(new File(table + ".txt").getCanonicalPath()).exists(),
+                "로그가 비어 있어도 인덱스를 지운다");
+        TableChecks.assertConsistent(table, keys);
+    }
+
+    /**
+     * 자식 JVM 이 죽기 전의 상태
+     *   LOG_ONLY    : fsync 를 하지 않아 데이터 파일에는 아무 페이지도 쓰이지 않고 모든 삽입이 로그에만 남는다.
+     *   CHECKPOINT  : 커밋마다 fsync 하고 로그를 자주 비운다.
+     *   STALE_INDEX : 마지막에 체크포인트로 로그를 비운 뒤, 인덱스 파일을 절반만 삽입했을 때의 것으로 되돌린다
+     *                 (인덱스 페이지를 버퍼 풀에만 두고 죽은 것과 같다).
+     */
+    private enum Crash {
+        LOG_ONLY, CHECKPOINT, STALE_INDEX
+    }
+
+    /**
+     * 자식 JVM 에서 테이블을 만들고 RECORDS 개를 삽입한 뒤 죽게 하고, 삽입한 key 를 순서대로 반환
+     */
+    private static List<String> crashWhileInserting(String table, Crash crash)
+            throws IOException, InterruptedException {
+        TableChecks.delete(table);
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        for (String name : List.of("dbSystem.url", "dbSystem.user", "dbSystem.password", "dbSystem.schema")) {
+            command.add("-D" + name + "=" + System.getProperty(name, ""));
+        }
+        command.add("-DdbSystem.log.level=warn");
+        command.add("-DdbSystem.reorg.threshold=0");
+        if (crash != Crash.LOG_ONLY) {
+            command.add("-DdbSystem.wal.durability=per_op");
+            command.add("-DdbSystem.wal.checkpointBytes=16384");
+        } else {
+            command.add("-DdbSystem.wal.durability=batched");
+            command.add("-DdbSystem.wal.batchMs=3600000");
+            command.add("-DdbSystem.wal.batchOps=1000000");
+        }
+        command.add(Writer.class.getName());
+        command.add(table);
+        command.add(Integer.toString(RECORDS));
+        command.add(crash.name());
+
+        File output = new File(table + ".out");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(output).start();
+        assertTrue(process.waitFor(2, TimeUnit.MINUTES), "자식 JVM 이 끝나지 않았다");
+        assertEquals(Writer.HALTED, process.exitValue(),
+                () -> "자식 JVM 실패:\n" + readQuietly(output));
+        return keys();
+    }
+
+    /**
+     * 삽입 순서의 key (0 ~ RECORDS-1 을 섞은 것, 정렬 삽입이 체인 중간에 끼워 넣게)
+     */
+    private static List<String> keys() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i++) {
+            keys.add(TableChecks.key(i));
+        }
+        Collections.shuffle(keys, new Random(42));
+        return keys;
+    }
+
+    /**
+     * 이 JVM 에서 처음 로그를 열어 복구하고, 로그 파일을 지웠는지 확인
+     * 로그 파일이 남아 있었으면 데이터 파일과 어긋났을 FSM 과 인덱스도 지웠어야 한다.
+     */
+    private static void recover(String table) throws IOException {
+        String dataPath = new File(table + ".txt").getCanonicalPath();
+        boolean unclean = logFile(table).exists();
+        WriteAheadLog.of(dataPath);
+        assertFalse(logFile(table).exists(), "복구한 뒤 로그");
+        if (unclean) {
+            assertFalse(FreeSpaceMap.fileFor(dataPath).exists(), "복구하면 FSM 을 지운다");
+            assertFalse(BPlusTree.fileFor(dataPath).exists(), "복구하면 인덱스를 지운다");
+        }
+    }
+
+    private static File logFile(String table) throws IOException {
+        return WriteAheadLog.fileFor(new File(table + ".txt").getCanonicalPath());
+    }
+
+    /**
+     * 로그 레코드마다 시작 위치 (형식: 매직(4) LSN(8) 페이지 크기(4) 페이지 수(4) [블록 번호(8) 페이지]... CRC32(4))
+     */
+    private static List<Long> logRecords(String table) throws IOException {
+        List<Long> offsets = new ArrayList<>();
+        try (RandomAccessFile file = new RandomAccessFile(logFile(table), "r")) {
+            long pos = 0;
+            while (pos + 20 <= file.length()) {
+                file.seek(pos);
+                file.readInt();
+                file.readLong();
+                int pageSize = file.readInt();
+                int count = file.readInt();
+                offsets.add(pos);
+                pos += 20 + (long) count * (8 + pageSize) + 4;
+            }
+        }
+        return offsets;
+    }
+
+    private static String readQuietly(File file) {
+        try {
+            return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return e.toString();
+        }
+    }
+
+    /**
+     * 자식 JVM: 테이블을 만들고 삽입한 뒤 파일을 닫지 않고 바로 끝난다
+     */
+    static final class Writer {
+        static final int HALTED = 3;
+
+        public static void main(String[] args) throws IOException {
+            String table = args[0];
+            int records = Integer.parseInt(args[1]);
+            Crash crash = Crash.valueOf(args[2]);
+            File index = BPlusTree.fileFor(new File(table + ".txt").getCanonicalPath());
+            File staleIndex = new File(index.getPath() + ".stale");
+
+            TableChecks.create(table);
+            List<String> keys = keys();
+            for (int i = 0; i < records; i++) {
+                Main.insertRecord(table, keys.get(i) + ";name" + i);
+                if (crash == Crash.STALE_INDEX && i == records / 2) {
+                    Files.copy(index.toPath(), staleIndex.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            if (crash == Crash.STALE_INDEX) {
+                WriteAheadLog.checkpoint(table + ".txt");
+                Files.move(staleIndex.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Runtime.getRuntime().halt(HALTED);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package dbSystem;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 조인 연산자가 같은 커서에서 nested loop 와 같은 결과 쌍을 내는지 확인
+ *
+ * 결과는 (왼쪽 행, 오른쪽 행) 문자열을 정렬한 목록으로 비교한다 (순서는 따지지 않고 중복 개수는 따진다).
+ * NAME 으로 조인하면 커서가 정렬되어 있지 않고, key 가 null 인 행이 섞여 있다.
+ */
+class JoinTest {
+
+    private static final String LEFT = "join_left";
+    private static final String RIGHT = "join_right";
+    // 모든 행의 NAME 이 같아서 해시로 나눌 수 없는 테이블
+    private static final String HOT_LEFT = "join_hot_left";
+    private static final String HOT_RIGHT = "join_hot_right";
+
+    @BeforeAll
+    static void createTables() throws IOException {
+        // ID 는 같은 key 가 여러 번 나오고, NAME 은 7번째(9번째)마다 null
+        TableChecks.create(LEFT);
+        for (int i = 0; i < 300; i++) {
+            String id = i % 45 == 0 ? "null" : TableChecks.key(i % 30);
+            String name = i % 7 == 0 ? "null" : "k" + (i % 50);
+            Main.insertRecord(LEFT, id + ";" + name);
+        }
+        TableChecks.create(RIGHT);
+        for (int i = 0; i < 200; i++) {
+            String id = i % 50 == 0 ? "null" : TableChecks.key(i % 20);
+            String name = i % 9 == 0 ? "null" : "k" + (i % 60);
+            Main.insertRecord(RIGHT, id + ";" + name);
+        }
+
+        TableChecks.create(HOT_LEFT);
+        for (int i = 0; i < 40; i++) {
+            Main.insertRecord(HOT_LEFT, TableChecks.key(i) + ";" + (i % 10 == 0 ? "null" : "hot"));
+        }
+        TableChecks.create(HOT_RIGHT);
+        for (int i = 0; i < 30; i++) {
+            Main.insertRecord(HOT_RIGHT, TableChecks.key(i) + ";" + (i % 10 == 0 ? "null" : "hot"));
+        }
+    }
+
+    @Test
+    void hashJoinInMemory() throws Exception {
+        HashJoin join = new HashJoin(1 << 20, 2);
+        assertEquals(nestedLoop(LEFT, RIGHT, "NAME"), hashJoin(join, LEFT, RIGHT, "NAME"));
+        assertEquals(0, join.getSpilledPartitions());
+        assertEquals(0, join.getMaxDepth());
+    }
+
+    @Test
+    void hashJoinSpillsPartitions() throws Exception {
+        // build(오른쪽) 전체는 한도를 넘지만 한 번 나눈 partition 은 들어간다
+        HashJoin join = new HashJoin(16 * 1024, 2);
+        assertEquals(nestedLoop(LEFT, RIGHT, "NAME"), hashJoin(join, LEFT, RIGHT, "NAME"));
+        assertTrue(join.getSpilledPartitions() > 0, "partition 을 파일로 내보냈어야 한다");
+        assertEquals(1, join.getMaxDepth());
+    }
+
+    @Test
+    void hashJoinSplitsPartitionsAgain() throws Exception {
+        HashJoin join = new HashJoin(4 * 1024, 2);
+        assertEquals(nestedLoop(LEFT, RIGHT, "NAME"), hashJoin(join, LEFT, RIGHT, "NAME"));
+        assertTrue(join.getMaxDepth() >= 2, "partition 을 한 번 더 나눴어야 한다: " + join.getMaxDepth());
+    }
+
+    @Test
+    void hashJoinChunksSingleHotKey() throws Exception {
+        // 한 key 에 몰려 있어 MAX_DEPTH(3) 까지 나눠도 줄지 않으므로 build 를 잘라서 조인한다
+        HashJoin join = new HashJoin(1024, 2);
+        List<String> expected = nestedLoop(HOT_LEFT, HOT_RIGHT, "NAME");
+        assertEquals(36 * 27, expected.size());
+        assertEquals(expected, hashJoin(join, HOT_LEFT, HOT_RIGHT, "NAME"));
+        assertEquals(4, join.getMaxDepth());
+    }
+
+    @Test
+    void hashJoinOnSearchKeySkipsNullKeys() throws Exception {
+        assertEquals(nestedLoop(LEFT, RIGHT, "ID"), hashJoin(new HashJoin(4 * 1024, 2), LEFT, RIGHT, "ID"));
+    }
+
+    @Test
+    void hashJoinKeepsLeadingSpaceInKey() throws Exception {
+        // 앞쪽 공백은 값의 일부라 " k1" 과 "k1" 은 조인되지 않는다 (뒤를 채운 공백만 무시한다)
+        TableChecks.create("join_space_left");
+        Main.insertRecord("join_space_left", TableChecks.key(1) + ";k1");
+        Main.insertRecord("join_space_left", TableChecks.key(2) + "; k1");
+        TableChecks.create("join_space_right");
+        Main.insertRecord("join_space_right", TableChecks.key(1) + ";k1");
+
+        List<String> pairs = hashJoin(new HashJoin(1 << 20, 2), "join_space_left", "join_space_right", "NAME");
+        assertEquals(nestedLoop("join_space_left", "join_space_right", "NAME"), pairs);
+        assertEquals(1, pairs.size(), pairs.toString());
+    }
+
+    @Test
+    void mergeJoinSpillsKeyGroup() throws Exception {
+        // 한도 0: 오른쪽의 key 묶음마다 첫 행부터 임시 파일에 쓴다
+        Collector sink = new Collector();
+        try (RangeCursor left = open(LEFT, "ID"); RangeCursor right = open(RIGHT, "ID")) {
+            MergeJoin.join(left, right, sink, 0);
+        }
+        assertEquals(nestedLoop(LEFT, RIGHT, "ID"), sink.sorted());
+    }
+
+    @Test
+    void mergeJoinInMemory() throws Exception {
+        Collector sink = new Collector();
+        try (RangeCursor left = open(LEFT, "ID"); RangeCursor right = open(RIGHT, "ID")) {
+            MergeJoin.join(left, right, sink);
+        }
+        assertEquals(nestedLoop(LEFT, RIGHT, "ID"), sink.sorted());
+    }
+
+    @Test
+    void indexNestedLoopWithLeftOuter() throws Exception {
+        Collector sink = new Collector();
+        try (RangeCursor left = open(LEFT, "ID"); RangeCursor right = open(RIGHT, "ID")) {
+            IndexNestedLoopJoin.join(left, right, true, sink);
+        }
+        assertEquals(nestedLoop(LEFT, RIGHT, "ID"), sink.sorted());
+    }
+
+    @Test
+    void indexNestedLoopWithRightOuter() throws Exception {
+        // 오른쪽이 outer 여도 sink 에는 (왼쪽, 오른쪽) 순서로 넘어와야 한다
+        Collector sink = new Collector();
+        try (RangeCursor left = open(LEFT, "ID"); RangeCursor right = open(RIGHT, "ID")) {
+            IndexNestedLoopJoin.join(right, left, false, sink);
+        }
+        assertEquals(nestedLoop(LEFT, RIGHT, "ID"), sink.sorted());
+    }
+
+    @Test
+    void plannerChoiceMatchesNestedLoop() throws Exception {
+        for (String keyField : List.of("ID", "NAME")) {
+            Collector sink = new Collector();
+            JoinPlanner.Plan plan;
+            try (RangeCursor left = open(LEFT, keyField); RangeCursor right = open(RIGHT, keyField)) {
+                plan = JoinPlanner.plan(left, right);
+                JoinPlanner.execute(plan, left, right, sink);
+            }
+            assertEquals(nestedLoop(LEFT, RIGHT, keyField), sink.sorted(), plan.toString());
+            if (keyField.equals("NAME")) {
+                // 정렬되어 있지 않고 인덱스도 없으면 hash join 밖에 없다
+                assertEquals(JoinPlanner.Method.HASH, plan.getMethod());
+            }
+        }
+    }
+
+    private static List<String> hashJoin(HashJoin join, String leftTable, String rightTable, String keyField)
+            throws IOException, SQLException {
+        Collector sink = new Collector();
+        try (RangeCursor left = open(leftTable, keyField); RangeCursor right = open(rightTable, keyField)) {
+            join.join(left, right, sink);
+        }
+        return sink.sorted();
+    }
+
+    /**
+     * 양쪽 전체를 메모리에 읽어서 모든 쌍을 비교한 결과 (key 가 null 이면 조인하지 않는다)
+     */
+    private static List<String> nestedLoop(String leftTable, String rightTable, String keyField)
+            throws IOException, SQLException {
+        List<String[]> leftRows = readAll(leftTable, keyField);
+        List<String[]> rightRows = readAll(rightTable, keyField);
+        int leftKey = SchemaCatalog.get(leftTable).indexOf(keyField);
+        int rightKey = SchemaCatalog.get(rightTable).indexOf(keyField);
+
+        List<String> pairs = new ArrayList<>();
+        for (String[] left : leftRows) {
+            for (String[] right : rightRows) {
+                if (left[leftKey] != null && left[leftKey].equals(right[rightKey])) {
+                    pairs.add(pair(left, right));
+                }
+            }
+        }
+        assertFalse(pairs.isEmpty(), "조인 결과가 있어야 비교가 의미 있다");
+        Collections.sort(pairs);
+        return pairs;
+    }
+
+    private static List<String[]> readAll(String table, String keyField) throws IOException, SQLException {
+        List<String[]> rows = new ArrayList<>();
+        try (RangeCursor cursor = open(table, keyField)) {
+            while (cursor.next()) {
+                String[] row = new String[cursor.getSchema().getColumnCount()];
+                cursor.row().copyTo(row);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * keyField 로 연 전체 범위 커서 (key 가 null 인 행도 꺼낸다)
+     */
+    private static RangeCursor open(String table, String keyField) throws IOException, SQLException {
+        return RangeCursor.open(table, keyField, null, null);
+    }
+
+    private static String pair(String[] left, String[] right) {
+        return Arrays.toString(left) + " " + Arrays.toString(right);
+    }
+
+    private static final class Collector implements JoinSink {
+        private final List<String> pairs = new ArrayList<>();
+
+        @Override
+        public void accept(String[] left, String[] right) {
+            pairs.add(pair(left, right));
+        }
+
+        List<String> sorted() {
+            Collections.sort(pairs);
+            return pairs;
+        }
+    }
+}
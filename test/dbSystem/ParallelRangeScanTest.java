@@ -0,0 +1,105 @@
+package dbSystem;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 조각으로 나눠 읽은 결과가 RangeCursor 하나로 읽은 결과와 같은지 확인
+ *
+ * key 마다 RUN 개씩 같은 key 가 이어지므로 조각 경계(인덱스의 분리 키)가 같은 key 묶음 한가운데에 떨어진다.
+ * 그래도 경계의 key 는 다음 조각에서만 읽어야 하고, collect 는 체인 순서를 그대로 지켜야 한다.
+ */
+class ParallelRangeScanTest {
+
+    private static final String TABLE = "parallel_scan";
+    private static final int KEYS = 20;
+    private static final int RUN = 100;
+
+    private static ParallelRangeScan scan;
+
+    @BeforeAll
+    static void createTable() throws IOException {
+        TableChecks.create(TABLE);
+        // key 순서와 상관없이 섞어서 넣는다
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < KEYS * RUN; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(7));
+        for (int i : order) {
+            Main.insertRecord(TABLE, TableChecks.key(i % KEYS) + ";n" + i);
+        }
+        Main.insertRecord(TABLE, "null;nullkey");
+        scan = new ParallelRangeScan(4);
+    }
+
+    @AfterAll
+    static void closeScan() {
+        scan.close();
+    }
+
+    @Test
+    void splitsOnDuplicateRuns() throws Exception {
+        List<String> bounds = scan.split(TABLE, TableChecks.key(0), TableChecks.key(KEYS - 1));
+        assertTrue(bounds.size() > 3, "인덱스로 여러 조각에 나눴어야 한다: " + bounds);
+    }
+
+    @Test
+    void collectMatchesSingleCursorInOrder() throws Exception {
+        assertCollect(TableChecks.key(0), TableChecks.key(KEYS - 1));
+        assertCollect(TableChecks.key(7), TableChecks.key(8));
+        assertCollect(TableChecks.key(5), TableChecks.key(5));
+    }
+
+    @Test
+    void forEachReturnsSameRows() throws Exception {
+        for (String[] range : List.of(new String[] {TableChecks.key(0), TableChecks.key(KEYS - 1)},
+                new String[] {TableChecks.key(7), TableChecks.key(8)})) {
+            List<String> expected = rows(cursorScan(range[0], range[1]));
+            List<String> actual = Collections.synchronizedList(new ArrayList<>());
+            long count = scan.forEach(TABLE, range[0], range[1], row -> actual.add(row.get(0) + ";" + row.get(1)));
+
+            assertEquals(expected.size(), count);
+            List<String> sorted = new ArrayList<>(actual);
+            Collections.sort(sorted);
+            Collections.sort(expected);
+            assertEquals(expected, sorted);
+        }
+    }
+
+    private static void assertCollect(String from, String to) throws IOException, SQLException {
+        List<Map<String, String>> expected = cursorScan(from, to);
+        assertEquals(rows(expected), rows(scan.collect(TABLE, from, to)), from + " ~ " + to);
+        assertEquals((Integer.parseInt(to) - Integer.parseInt(from) + 1) * RUN, expected.size());
+    }
+
+    private static List<Map<String, String>> cursorScan(String from, String to) throws IOException, SQLException {
+        List<Map<String, String>> rows = new ArrayList<>();
+        try (RangeCursor cursor = RangeCursor.open(TABLE, "ID", from, to)) {
+            while (cursor.next()) {
+                rows.add(cursor.row().toMap());
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> rows(List<Map<String, String>> maps) {
+        List<String> rows = new ArrayList<>();
+        for (Map<String, String> map : maps) {
+            rows.add(map.get("ID") + ";" + map.get("NAME"));
+        }
+        return rows;
+    }
+}
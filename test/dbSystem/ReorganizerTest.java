@@ -0,0 +1,94 @@
+package dbSystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 커서가 열려 있는 동안 재구성해도 읽기, 삽입, 교체된 파일이 모두 맞는지 확인
+ *
+ * 재구성은 새 파일을 다 쓴 뒤 swap 쓰기 잠금을 기다리므로, 열린 커서는 끝까지 예전 파일을 읽는다.
+ * 그동안 삽입은 writer 잠금에서 기다렸다가 교체된 파일에 들어간다.
+ */
+class ReorganizerTest {
+
+    private static final String TABLE = "reorganize";
+    private static final int RECORDS = 600;
+
+    @Test
+    void rewritesWhileCursorIsOpen() throws Exception {
+        TableChecks.create(TABLE);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i++) {
+            keys.add(TableChecks.key(i));
+        }
+        Collections.shuffle(keys, new Random(11));
+        for (String key : keys) {
+            Main.insertRecord(TABLE, key + ";n" + key);
+        }
+        assertTrue(Reorganizer.clusteringRatio(TABLE) < 1.0, "섞어서 넣었으면 체인이 블록을 건너뛴다");
+
+        List<String> sorted = new ArrayList<>(keys);
+        Collections.sort(sorted);
+        String lastKey = TableChecks.key(RECORDS);
+        File rewritten = BPlusTree.fileFor(new File(TABLE + ".txt.rewrite").getCanonicalPath());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<String> read = new ArrayList<>();
+            Future<?> reorganize;
+            Future<?> insert;
+            try (RangeCursor cursor = RangeCursor.open(TABLE, "ID", null, null)) {
+                for (int i = 0; i < RECORDS / 2 && cursor.next(); i++) {
+                    read.add(cursor.row().get(0));
+                }
+
+                reorganize = executor.submit(() -> {
+                    Reorganizer.reorganize(TABLE);
+                    return null;
+                });
+                // 새 파일과 인덱스를 다 쓰고 교체만 남았다
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                while (!rewritten.exists() && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertTrue(rewritten.exists(), "재구성이 새 인덱스를 만들지 않았다");
+
+                insert = executor.submit(() -> {
+                    Main.insertRecord(TABLE, lastKey + ";after");
+                    return null;
+                });
+                Thread.sleep(200);
+                assertFalse(reorganize.isDone(), "커서가 열려 있는 동안 파일을 교체하면 안 된다");
+                assertFalse(insert.isDone(), "재구성하는 동안 삽입은 기다린다");
+
+                while (cursor.next()) {
+                    read.add(cursor.row().get(0));
+                }
+            }
+            assertEquals(sorted, read, "열려 있던 커서는 예전 파일을 끝까지 읽는다");
+
+            reorganize.get(30, TimeUnit.SECONDS);
+            insert.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 가장 큰 key 는 마지막 블록 (또는 그 다음 새 블록)에 들어가므로 재구성한 순서가 그대로 유지된다
+        assertEquals(1.0, Reorganizer.clusteringRatio(TABLE));
+        sorted.add(lastKey);
+        TableChecks.assertConsistent(TABLE, sorted);
+    }
+}
@@ -0,0 +1,88 @@
+package dbSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 테스트가 같이 쓰는 테이블 생성, 정리와 일관성 확인
+ *
+ * 테이블 파일은 surefire 의 작업 디렉터리(target/test-work)에 생긴다.
+ */
+final class TableChecks {
+
+    private TableChecks() {
+    }
+
+    /**
+     * ID(8), NAME(20) 테이블을 새로 만든다 (남아 있던 파일은 먼저 지운다)
+     */
+    static void create(String tableName) throws IOException {
+        create(tableName, StorageMode.RANDOM_ACCESS);
+    }
+
+    static void create(String tableName, StorageMode mode) throws IOException {
+        delete(tableName);
+        LinkedHashMap<String, Integer> columns = new LinkedHashMap<>();
+        columns.put("ID", 8);
+        columns.put("NAME", 20);
+        Main.createSequentialFile(tableName, columns, Main.DEFAULT_PAGE_SIZE, mode);
+    }
+
+    static void delete(String tableName) throws IOException {
+        String dataPath = new File(tableName + ".txt").getCanonicalPath();
+        for (File file : List.of(new File(dataPath), WriteAheadLog.fileFor(dataPath),
+                FreeSpaceMap.fileFor(dataPath), BPlusTree.fileFor(dataPath))) {
+            if (file.exists() && !file.delete()) {
+                throw new IOException("삭제 실패: " + file);
+            }
+        }
+    }
+
+    static String key(int value) {
+        return String.format("%08d", value);
+    }
+
+    /**
+     * 포인터 체인, 헤더의 레코드 수, 인덱스가 모두 expectedKeys 와 같은지 확인
+     * 체인은 key 순서여야 하고, 인덱스는 항목 수와 key 마다 찾아간 레코드가 체인과 맞아야 한다.
+     */
+    static void assertConsistent(String tableName, List<String> expectedKeys) throws IOException, SQLException {
+        List<String> expected = new ArrayList<>(expectedKeys);
+        expected.sort(null);
+
+        List<String> chain = new ArrayList<>();
+        try (RangeCursor cursor = RangeCursor.open(tableName, "ID", null, null)) {
+            while (cursor.next()) {
+                chain.add(cursor.row().get(0));
+            }
+        }
+        assertEquals(expected, chain, "포인터 체인");
+
+        try (BlockFile file = BlockFile.open(tableName + ".txt", "r")) {
+            assertEquals(expected.size(), file.readInt(FileHeader.RECORD_COUNT_POS), "헤더의 레코드 수");
+            BPlusTree index = file.getIndex(SchemaCatalog.get(tableName));
+            assertNotNull(index, "인덱스");
+            assertEquals(expected.size(), index.getEntryCount(), "인덱스 항목 수");
+        }
+
+        // 인덱스로 key 마다 시작 위치를 찾아 그 레코드가 나오는지
+        if (expected.isEmpty()) {
+            return;
+        }
+        try (RangeCursor cursor = RangeCursor.open(tableName, "ID", expected.get(0), expected.get(0))) {
+            for (String key : expected) {
+                cursor.seek(key, key);
+                assertTrue(cursor.next(), "인덱스로 찾지 못한 key: " + key);
+                assertEquals(key, cursor.row().get(0));
+            }
+        }
+    }
+}